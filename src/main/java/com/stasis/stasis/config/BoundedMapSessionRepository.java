@@ -0,0 +1,132 @@
+package com.stasis.stasis.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory session store with a size bound and periodic expiry sweeping.
+ *
+ * Like {@code MapSessionRepository}, callers work on copies and only {@link #save} publishes
+ * changes. When a new session would exceed the bound, expired sessions are swept first and then
+ * the least recently used hundredth of the store is evicted in one pass, so a burst of logins at
+ * the bound pays for one scan per batch rather than one per session.
+ */
+@Component
+@ConditionalOnProperty(name = "stasis.sessions.store", havingValue = "memory", matchIfMissing = true)
+public class BoundedMapSessionRepository implements SessionRepository<MapSession> {
+
+    private final Map<String, MapSession> sessions = new ConcurrentHashMap<>();
+
+    private final Duration maxInactiveInterval;
+
+    private final int maxSessions;
+
+    private final Counter createdCounter;
+
+    private final Counter expiredCounter;
+
+    private final Counter evictedCounter;
+
+    public BoundedMapSessionRepository(@Value("${stasis.sessions.timeout-minutes:30}") long timeoutMinutes,
+                                       @Value("${stasis.sessions.max-sessions:100000}") int maxSessions,
+                                       MeterRegistry meterRegistry) {
+        this.maxInactiveInterval = Duration.ofMinutes(timeoutMinutes);
+        this.maxSessions = Math.max(1, maxSessions);
+        Gauge.builder("stasis.sessions.active", sessions, Map::size).register(meterRegistry);
+        this.createdCounter = meterRegistry.counter("stasis.sessions.created");
+        this.expiredCounter = meterRegistry.counter("stasis.sessions.expired");
+        this.evictedCounter = meterRegistry.counter("stasis.sessions.evicted");
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        if (!session.getId().equals(session.getOriginalId())) {
+            sessions.remove(session.getOriginalId());
+        }
+        MapSession stored = new MapSession(session);
+        if (sessions.put(session.getId(), stored) == null) {
+            createdCounter.increment();
+            if (sessions.size() > maxSessions) {
+                makeRoom();
+            }
+        }
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        MapSession saved = sessions.get(id);
+        if (saved == null) {
+            return null;
+        }
+        if (saved.isExpired()) {
+            if (sessions.remove(id, saved)) {
+                expiredCounter.increment();
+            }
+            return null;
+        }
+        return new MapSession(saved);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        sessions.remove(id);
+    }
+
+    /**
+     * Drop every session that has been inactive for longer than its timeout.
+     */
+    @Scheduled(fixedDelayString = "${stasis.sessions.cleanup-delay-ms:60000}")
+    public void removeExpired() {
+        sessions.values().forEach(session -> {
+            if (session.isExpired() && sessions.remove(session.getId(), session)) {
+                expiredCounter.increment();
+            }
+        });
+    }
+
+    private synchronized void makeRoom() {
+        if (sessions.size() <= maxSessions) {
+            return;
+        }
+        removeExpired();
+        int excess = sessions.size() - maxSessions;
+        if (excess <= 0) {
+            return;
+        }
+        int batch = Math.max(excess, maxSessions / 100);
+        // Max-heap on last access keeps the batch least recently used sessions seen so far
+        PriorityQueue<MapSession> oldest = new PriorityQueue<>(batch + 1,
+            Comparator.comparing(MapSession::getLastAccessedTime).reversed());
+        for (MapSession session : sessions.values()) {
+            oldest.add(session);
+            if (oldest.size() > batch) {
+                oldest.poll();
+            }
+        }
+        for (MapSession session : oldest) {
+            if (sessions.remove(session.getId(), session)) {
+                evictedCounter.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.stasis.stasis.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session store on the application database, shared by every node.
+ *
+ * A session's attributes are kept as one serialized map per row. New sessions and session ID
+ * changes are written immediately so the next request may land on any node; later attribute
+ * changes and last-access updates are coalesced per session and written behind in batches. Until
+ * a pending write is flushed this node serves the session from it, while other nodes may see the
+ * previous state for up to the flush delay. Expired rows are removed in bounded batches.
+ *
+ * A deleted session's ID is remembered for the session timeout, so a save racing the delete
+ * neither puts it back into the pending writes nor lets this node serve it again.
+ */
+@Component
+@ConditionalOnProperty(name = "stasis.sessions.store", havingValue = "jdbc")
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.JdbcSession> {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS http_session (session_id varchar(100) PRIMARY KEY, creation_time bigint NOT NULL, " +
+        "last_accessed_time bigint NOT NULL, max_inactive_seconds integer NOT NULL, expiry_time bigint NOT NULL, attributes bytea)";
+
+    private static final String CREATE_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_http_session_expiry_time ON http_session (expiry_time)";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO http_session (last_accessed_time, max_inactive_seconds, expiry_time, attributes, session_id, creation_time) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Only ever updates, so a flush racing a logout or the expiry cleanup cannot bring a session back
+    private static final String UPDATE_SQL =
+        "UPDATE http_session SET last_accessed_time = ?, max_inactive_seconds = ?, expiry_time = ?, attributes = ? " +
+        "WHERE session_id = ?";
+
+    private static final String TOUCH_SQL =
+        "UPDATE http_session SET last_accessed_time = ?, expiry_time = ? WHERE session_id = ?";
+
+    private static final String DELETE_EXPIRED_SQL =
+        "DELETE FROM http_session WHERE session_id IN " +
+        "(SELECT session_id FROM http_session WHERE expiry_time < ? LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Duration maxInactiveInterval;
+
+    private final int cleanupBatchSize;
+
+    // Latest unwritten state of each session changed on this node
+    private final Map<String, JdbcSession> pending = new ConcurrentHashMap<>();
+
+    // Sessions deleted on this node and when
+    private final Map<String, Long> deleted = new ConcurrentHashMap<>();
+
+    private final SerializingConverter serializer = new SerializingConverter();
+
+    private final DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+
+    private final Counter createdCounter;
+
+    private final Counter flushedCounter;
+
+    private final Counter expiredCounter;
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate,
+                                 @Value("${stasis.sessions.timeout-minutes:30}") long timeoutMinutes,
+                                 @Value("${stasis.sessions.jdbc.cleanup-batch-size:1000}") int cleanupBatchSize,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxInactiveInterval = Duration.ofMinutes(timeoutMinutes);
+        this.cleanupBatchSize = Math.max(1, cleanupBatchSize);
+        Gauge.builder("stasis.sessions.pending-writes", pending, Map::size).register(meterRegistry);
+        this.createdCounter = meterRegistry.counter("stasis.sessions.created");
+        this.flushedCounter = meterRegistry.counter("stasis.sessions.flushed");
+        this.expiredCounter = meterRegistry.counter("stasis.sessions.expired");
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public JdbcSession createSession() {
+        MapSession delegate = new MapSession();
+        delegate.setMaxInactiveInterval(maxInactiveInterval);
+        return new JdbcSession(delegate, true);
+    }
+
+    @Override
+    public void save(JdbcSession session) {
+        if (deleted.containsKey(session.storedId)) {
+            return;
+        }
+        if (session.isNew) {
+            write(true, List.of(session));
+            createdCounter.increment();
+        } else if (!session.getId().equals(session.storedId)) {
+            // Written now so a request on another node does not present an ID this store does not know
+            pending.remove(session.storedId);
+            jdbcTemplate.update("UPDATE http_session SET session_id = ? WHERE session_id = ?", session.getId(), session.storedId);
+            write(false, List.of(session));
+        } else if (session.attributesChanged || session.accessChanged) {
+            pending.merge(session.getId(), session.copy(), (previous, latest) -> {
+                latest.attributesChanged |= previous.attributesChanged;
+                return latest;
+            });
+        }
+        session.markSaved();
+    }
+
+    @Override
+    public JdbcSession findById(String id) {
+        if (deleted.containsKey(id)) {
+            return null;
+        }
+        JdbcSession unwritten = pending.get(id);
+        JdbcSession session = unwritten != null ? unwritten.copy() : load(id);
+        if (session == null) {
+            return null;
+        }
+        if (session.isExpired()) {
+            // Left for the batched cleanup
+            return null;
+        }
+        session.markSaved();
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        // Marked first, so a save that already passed its check is skipped by the flush instead
+        deleted.put(id, Instant.now().toEpochMilli());
+        pending.remove(id);
+        jdbcTemplate.update("DELETE FROM http_session WHERE session_id = ?", id);
+    }
+
+    /**
+     * Write the coalesced changes of every session saved since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${stasis.sessions.jdbc.flush-delay-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<JdbcSession> full = new ArrayList<>();
+        List<JdbcSession> touched = new ArrayList<>();
+        for (JdbcSession session : pending.values()) {
+            if (deleted.containsKey(session.getId())) {
+                pending.remove(session.getId(), session);
+                continue;
+            }
+            (session.attributesChanged ? full : touched).add(session);
+        }
+        write(false, full);
+        jdbcTemplate.batchUpdate(TOUCH_SQL, touched, BATCH_SIZE, (ps, session) -> {
+            ps.setLong(1, session.getLastAccessedTime().toEpochMilli());
+            ps.setLong(2, expiryTime(session));
+            ps.setString(3, session.getId());
+        });
+        // Kept visible until written; a session saved again meanwhile stays pending for the next flush
+        full.forEach(session -> pending.remove(session.getId(), session));
+        touched.forEach(session -> pending.remove(session.getId(), session));
+        flushedCounter.increment(full.size() + touched.size());
+    }
+
+    /**
+     * Delete expired sessions a batch at a time so no single statement holds many row locks.
+     */
+    @Scheduled(fixedDelayString = "${stasis.sessions.cleanup-delay-ms:60000}")
+    public void removeExpired() {
+        long now = Instant.now().toEpochMilli();
+        int removed;
+        do {
+            removed = jdbcTemplate.update(DELETE_EXPIRED_SQL, now, cleanupBatchSize);
+            expiredCounter.increment(removed);
+        } while (removed == cleanupBatchSize);
+        // A session deleted longer ago than the timeout would have expired by now anyway
+        deleted.values().removeIf(deletedAt -> deletedAt < now - maxInactiveInterval.toMillis());
+    }
+
+    private void write(boolean insert, List<JdbcSession> sessions) {
+        jdbcTemplate.batchUpdate(insert ? INSERT_SQL : UPDATE_SQL, sessions, BATCH_SIZE, (ps, session) -> {
+            ps.setLong(1, session.getLastAccessedTime().toEpochMilli());
+            ps.setInt(2, (int) session.getMaxInactiveInterval().getSeconds());
+            ps.setLong(3, expiryTime(session));
+            ps.setBytes(4, serializer.convert(session.attributes()));
+            ps.setString(5, session.getId());
+            if (insert) {
+                ps.setLong(6, session.getCreationTime().toEpochMilli());
+            }
+        });
+    }
+
+    private JdbcSession load(String id) {
+        List<JdbcSession> rows = jdbcTemplate.query(
+            "SELECT session_id, creation_time, last_accessed_time, max_inactive_seconds, attributes FROM http_session WHERE session_id = ?",
+            (rs, rowNum) -> {
+                MapSession delegate = new MapSession(rs.getString(1));
+                delegate.setCreationTime(Instant.ofEpochMilli(rs.getLong(2)));
+                delegate.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong(3)));
+                delegate.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt(4)));
+                byte[] attributes = rs.getBytes(5);
+                if (attributes != null) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> values = (Map<String, Object>) deserializer.convert(attributes);
+                    values.forEach(delegate::setAttribute);
+                }
+                return new JdbcSession(delegate, false);
+            },
+            id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static long expiryTime(Session session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).toEpochMilli();
+    }
+
+    /**
+     * Session backed by a {@link MapSession} that remembers what changed since it was read.
+     */
+    public static final class JdbcSession implements Session {
+
+        private final MapSession delegate;
+
+        private boolean isNew;
+
+        private String storedId;
+
+        private boolean attributesChanged;
+
+        private boolean accessChanged;
+
+        JdbcSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+            this.storedId = delegate.getId();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            attributesChanged = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            attributesChanged = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+            accessChanged = true;
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            attributesChanged = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+
+        private HashMap<String, Object> attributes() {
+            HashMap<String, Object> attributes = new HashMap<>();
+            for (String name : delegate.getAttributeNames()) {
+                attributes.put(name, delegate.getAttribute(name));
+            }
+            return attributes;
+        }
+
+        private JdbcSession copy() {
+            JdbcSession copy = new JdbcSession(new MapSession(delegate), isNew);
+            copy.storedId = storedId;
+            copy.attributesChanged = attributesChanged;
+            copy.accessChanged = accessChanged;
+            return copy;
+        }
+
+        private void markSaved() {
+            isNew = false;
+            storedId = delegate.getId();
+            attributesChanged = false;
+            accessChanged = false;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.stasis.stasis.config;
 
 import com.stasis.stasis.service.CustomUserDetailsService;
+import com.stasis.stasis.service.PasswordHashingService;
+import com.stasis.stasis.service.PrincipalContextService;
+import com.stasis.stasis.service.TokenService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,10 +16,11 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.core.session.SessionRegistryImpl;
@@ -32,9 +38,23 @@ public class SecurityConfig {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private ObjectProvider<TokenService> tokenService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private PrincipalContextService principalContextService;
+
+    // session (default) keeps the security context in the HTTP session; token authenticates each request from a signed bearer token
+    @Value("${stasis.auth.mode:session}")
+    private String authMode;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // BCrypt on the bounded hashing pool, with the configured cost
+        return passwordHashingService.passwordEncoder();
     }
 
     @Bean
@@ -42,6 +62,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-hash passwords stored with a lower cost on successful login
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -54,15 +76,25 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
-            .csrf(csrf -> csrf.disable())
-            .sessionManagement(session -> session
-                .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
-                .maximumSessions(-1) // Allow unlimited sessions for debugging
-                .maxSessionsPreventsLogin(false)
-                .sessionRegistry(sessionRegistry()))
+            .csrf(csrf -> csrf.disable());
+        if (isTokenMode()) {
+            http
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context
+                    .securityContextRepository(securityContextRepository()))
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService.getObject(), principalContextService), UsernamePasswordAuthenticationFilter.class);
+        } else {
+            http
+                .sessionManagement(session -> session
+                    .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
+                    .maximumSessions(-1) // Allow unlimited sessions for debugging
+                    .maxSessionsPreventsLogin(false)
+                    .sessionRegistry(sessionRegistry()))
+                .securityContext(context -> context
+                    .securityContextRepository(securityContextRepository()));
+        }
+        http
             .authenticationProvider(authenticationProvider())
-            .securityContext(context -> context
-                .securityContextRepository(securityContextRepository()))
             .authorizeHttpRequests(authz -> authz
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
@@ -98,6 +130,7 @@ public class SecurityConfig {
        "http://139.59.100.105"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -107,7 +140,12 @@ public class SecurityConfig {
     
     @Bean
     public SecurityContextRepository securityContextRepository() {
-        return new HttpSessionSecurityContextRepository();
+        // Stateless requests keep their context for the request only
+        return isTokenMode() ? new RequestAttributeSecurityContextRepository() : new HttpSessionSecurityContextRepository();
+    }
+
+    public boolean isTokenMode() {
+        return "token".equalsIgnoreCase(authMode);
     }
 
     @Bean
@@ -2,22 +2,20 @@ package com.stasis.stasis.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.session.MapSessionRepository;
 import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
 import org.springframework.session.web.http.CookieHttpSessionIdResolver;
 import org.springframework.session.web.http.HttpSessionIdResolver;
 
-import java.util.concurrent.ConcurrentHashMap;
-
+/**
+ * HTTP sessions come from the store selected by {@code stasis.sessions.store}: the bounded
+ * in-memory {@link BoundedMapSessionRepository} (default, single node) or the shared
+ * {@link JdbcSessionRepository} for running several nodes without sticky sessions. The nodes'
+ * other in-memory caches are kept in step through {@link com.stasis.stasis.service.CacheInvalidationService}.
+ */
 @Configuration
 @EnableSpringHttpSession
 public class SessionConfig {
 
-    @Bean
-    public MapSessionRepository sessionRepository() {
-        return new MapSessionRepository(new ConcurrentHashMap<>());
-    }
-
     @Bean
     public HttpSessionIdResolver httpSessionIdResolver() {
         return new CookieHttpSessionIdResolver();
@@ -0,0 +1,89 @@
+package com.stasis.stasis.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+/**
+ * Opt-in guard for deployments that must run a single application node against the database.
+ *
+ * Several nodes are supported without it: per-node caches are kept in step through
+ * CacheInvalidationService. When enabled, the node holds a lease row that it renews every third of
+ * the lease length; startup fails while another node's lease is live, a node that finds its lease
+ * taken shuts down, and a clean shutdown hands the lease back.
+ */
+@Component
+@ConditionalOnProperty(name = "stasis.cluster.single-node-lease", havingValue = "true")
+public class SingleNodeLease {
+
+    private static final String LEASE_NAME = "application";
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS node_lease (name varchar(40) PRIMARY KEY, node_id varchar(200) NOT NULL, expires_at bigint NOT NULL)";
+
+    // Takes the lease when it is free, expired or already ours; updates nothing otherwise
+    private static final String ACQUIRE_SQL =
+        "INSERT INTO node_lease (name, node_id, expires_at) VALUES (?, ?, ?) ON CONFLICT (name) DO UPDATE " +
+        "SET node_id = EXCLUDED.node_id, expires_at = EXCLUDED.expires_at " +
+        "WHERE node_lease.node_id = EXCLUDED.node_id OR node_lease.expires_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationContext context;
+
+    private final long leaseMillis;
+
+    private volatile boolean lost;
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public SingleNodeLease(JdbcTemplate jdbcTemplate, ApplicationContext context,
+                           @Value("${stasis.cluster.lease-seconds:30}") long leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.leaseMillis = Math.max(3, leaseSeconds) * 1000;
+    }
+
+    @PostConstruct
+    public void acquire() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        if (!tryAcquire()) {
+            String holder = jdbcTemplate.queryForObject("SELECT node_id FROM node_lease WHERE name = ?", String.class, LEASE_NAME);
+            throw new IllegalStateException("Another node (" + holder + ") holds the application lease; only one node may run " +
+                                            "against this database. Start again once it has stopped or its lease has expired.");
+        }
+        System.out.println("SingleNodeLease: acquired the application lease as " + nodeId);
+    }
+
+    @Scheduled(fixedDelayString = "#{${stasis.cluster.lease-seconds:30} * 1000 / 3}")
+    public void renew() {
+        if (lost) {
+            return;
+        }
+        if (!tryAcquire()) {
+            lost = true;
+            System.err.println("SingleNodeLease: lost the application lease to another node; shutting down");
+            // Closing the context from the scheduler thread would wait on this very task
+            new Thread(() -> System.exit(SpringApplication.exit(context, () -> 1)), "lease-lost-shutdown").start();
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        jdbcTemplate.update("DELETE FROM node_lease WHERE name = ? AND node_id = ?", LEASE_NAME, nodeId);
+    }
+
+    private boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.update(ACQUIRE_SQL, LEASE_NAME, nodeId, now + leaseMillis, now) == 1;
+    }
+}
@@ -0,0 +1,54 @@
+package com.stasis.stasis.config;
+
+import com.stasis.stasis.dto.PrincipalContext;
+import com.stasis.stasis.service.PrincipalContextService;
+import com.stasis.stasis.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying a signed bearer token, without a session or store lookup.
+ * Requests with a missing, invalid or revoked token continue unauthenticated; a token is revoked
+ * once its account changes or logs out after the token was issued.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    private final PrincipalContextService principalContextService;
+
+    public TokenAuthenticationFilter(TokenService tokenService, PrincipalContextService principalContextService) {
+        this.tokenService = tokenService;
+        this.principalContextService = principalContextService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            PrincipalContext context = tokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+            if (context != null && !principalContextService.isRevoked(context)) {
+                UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                    context.getUsername(), null, List.of(new SimpleGrantedAuthority("ROLE_" + context.getRole().name())));
+                authentication.setDetails(context);
+                SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+                securityContext.setAuthentication(authentication);
+                SecurityContextHolder.setContext(securityContext);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
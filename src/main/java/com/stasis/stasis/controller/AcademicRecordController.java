@@ -4,9 +4,11 @@ import com.stasis.stasis.model.AcademicRecord;
 import com.stasis.stasis.service.AcademicRecordService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @AllArgsConstructor
@@ -27,6 +29,21 @@ public class AcademicRecordController {
             .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/student/{studentId}")
+    public ResponseEntity<AcademicRecord> getRecordByStudentId(@PathVariable Long studentId) {
+        return academicRecordService.getRecordByStudentId(studentId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Run the academic record reconciliation now instead of waiting for the nightly job
+    @PostMapping("/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reconcile() {
+        int corrected = academicRecordService.reconcile();
+        return ResponseEntity.ok(Map.of("correctedRecords", corrected));
+    }
+
     @PostMapping
     public AcademicRecord createRecord(@RequestBody AcademicRecord record) {
         return academicRecordService.createRecord(record);
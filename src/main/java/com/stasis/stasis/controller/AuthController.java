@@ -2,8 +2,12 @@ package com.stasis.stasis.controller;
 
 import com.stasis.stasis.dto.LoginRequest;
 import com.stasis.stasis.dto.LoginResponse;
+import com.stasis.stasis.dto.PrincipalContext;
 import com.stasis.stasis.model.Users;
 import com.stasis.stasis.service.AuthService;
+import com.stasis.stasis.service.PasswordHashingService;
+import com.stasis.stasis.service.TokenService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -28,6 +32,10 @@ public class AuthController {
     @Autowired
     private SecurityContextRepository securityContextRepository;
 
+    // Present only in the stateless token mode
+    @Autowired
+    private ObjectProvider<TokenService> tokenService;
+
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> authenticateUser(@RequestBody LoginRequest loginRequest, 
                                                          HttpServletRequest request, 
@@ -39,6 +47,13 @@ public class AuthController {
                 SecurityContext securityContext = SecurityContextHolder.getContext();
                 Authentication authentication = securityContext.getAuthentication();
                 
+                TokenService tokens = tokenService.getIfAvailable();
+                if (tokens != null) {
+                    // Stateless mode: the signed token replaces the session
+                    loginResponse.setToken(tokens.issue((PrincipalContext) authentication.getDetails()));
+                    return ResponseEntity.ok(loginResponse);
+                }
+                
                 if (authentication != null && authentication.isAuthenticated()) {
                     // Save the security context to the session using the configured repository
                     securityContextRepository.saveContext(securityContext, request, response);
@@ -60,6 +75,13 @@ public class AuthController {
             } else {
                 return ResponseEntity.status(401).body(loginResponse);
             }
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity.status(503)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(LoginResponse.builder()
+                    .success(false)
+                    .message("Too many sign-ins in progress, please retry shortly")
+                    .build());
         } catch (Exception e) {
             System.err.println("Auth: Login error - " + e.getMessage());
             e.printStackTrace();
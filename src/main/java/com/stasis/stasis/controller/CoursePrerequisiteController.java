@@ -4,11 +4,14 @@ import com.stasis.stasis.model.CoursePrerequisite;
 import com.stasis.stasis.model.Course;
 import com.stasis.stasis.service.CoursePrerequisiteService;
 import com.stasis.stasis.service.CourseService;
+import com.stasis.stasis.service.PrerequisiteGraphService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -21,6 +24,9 @@ public class CoursePrerequisiteController {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private PrerequisiteGraphService prerequisiteGraphService;
+
     @GetMapping
     public List<CoursePrerequisite> getAllCoursePrerequisites() {
         return coursePrerequisiteService.getAllCoursePrerequisites();
@@ -125,4 +131,38 @@ public class CoursePrerequisiteController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    /**
+     * IDs of every course that must be passed before this one, directly or transitively.
+     */
+    @GetMapping("/course/{courseId}/all")
+    public ResponseEntity<Map<String, Object>> getAllPrerequisites(@PathVariable Long courseId) {
+        return ResponseEntity.ok(Map.of(
+            "courseId", courseId,
+            "prerequisiteCourseIds", prerequisiteGraphService.getAllPrerequisites(courseId)));
+    }
+
+    /**
+     * Whether a student has passed every direct prerequisite of a course, and which are missing.
+     */
+    @GetMapping("/course/{courseId}/student/{studentId}")
+    public ResponseEntity<Map<String, Object>> checkStudentPrerequisites(@PathVariable Long courseId, @PathVariable Long studentId) {
+        List<Long> missing = prerequisiteGraphService.findMissingPrerequisites(studentId, List.of(courseId))
+            .getOrDefault(courseId, List.of());
+        return ResponseEntity.ok(Map.of(
+            "courseId", courseId,
+            "studentId", studentId,
+            "eligible", missing.isEmpty(),
+            "missingPrerequisiteIds", missing));
+    }
+
+    /**
+     * Reload the prerequisite graph from the database, e.g. after manual data fixes.
+     */
+    @PostMapping("/graph/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuildGraph() {
+        prerequisiteGraphService.rebuild();
+        return ResponseEntity.ok("Prerequisite graph rebuilt");
+    }
 }
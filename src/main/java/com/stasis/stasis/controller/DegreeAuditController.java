@@ -0,0 +1,42 @@
+package com.stasis.stasis.controller;
+
+import com.stasis.stasis.dto.DegreeAuditDTO;
+import com.stasis.stasis.service.DegreeAuditService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/degree-audit")
+public class DegreeAuditController {
+
+    @Autowired
+    private DegreeAuditService degreeAuditService;
+
+    /**
+     * Completed, in-progress and remaining curriculum requirements of a student, per year and semester.
+     */
+    @GetMapping("/student/{studentId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY') or (hasRole('STUDENT') and @securityService.isCurrentUser(#studentId))")
+    public ResponseEntity<?> auditStudent(@PathVariable Long studentId) {
+        try {
+            DegreeAuditDTO audit = degreeAuditService.audit(studentId);
+            return ResponseEntity.ok(audit);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Audit every student of a program that has a curriculum assigned.
+     */
+    @GetMapping("/program/{programId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY')")
+    public ResponseEntity<List<DegreeAuditDTO>> auditProgram(@PathVariable Long programId) {
+        return ResponseEntity.ok(degreeAuditService.auditProgram(programId));
+    }
+}
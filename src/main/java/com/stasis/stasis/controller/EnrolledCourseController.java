@@ -2,8 +2,16 @@ package com.stasis.stasis.controller;
 
 import com.stasis.stasis.model.EnrolledCourse;
 import com.stasis.stasis.model.Grade;
+import com.stasis.stasis.dto.BulkEnrollmentRequestDTO;
+import com.stasis.stasis.dto.BulkEnrollmentResultDTO;
+import com.stasis.stasis.dto.EnrollmentCartResultDTO;
+import com.stasis.stasis.dto.EnrollmentCartRequestDTO;
 import com.stasis.stasis.dto.EnrolledCourseResponseDTO;
+import com.stasis.stasis.service.BulkEnrollmentService;
 import com.stasis.stasis.service.EnrolledCourseService;
+import com.stasis.stasis.service.EnrollmentCartService;
+import com.stasis.stasis.service.IdempotencyService;
+import com.stasis.stasis.service.SeatReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,6 +28,18 @@ public class EnrolledCourseController {
     @Autowired
     private EnrolledCourseService enrolledCourseService;
 
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private EnrollmentCartService enrollmentCartService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public List<EnrolledCourse> getAllEnrolledCourses() {
@@ -195,7 +215,13 @@ public class EnrolledCourseController {
 
     @PostMapping
     // @PreAuthorize("hasRole('STUDENT')") // Temporarily disabled for debugging
-    public ResponseEntity<?> enrollInCourse(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<?> enrollInCourse(@RequestBody Map<String, Object> payload,
+                                            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // A retried or double-clicked request with the same key gets the original response back
+        return idempotencyService.execute("enroll", idempotencyKey, payload, () -> doEnrollInCourse(payload));
+    }
+
+    private ResponseEntity<?> doEnrollInCourse(Map<String, Object> payload) {
         try {
             Long studentId = Long.valueOf(payload.get("studentId").toString());
             String status = payload.get("status") != null ? payload.get("status").toString() : "Enrolled";
@@ -218,7 +244,12 @@ public class EnrolledCourseController {
         } catch (RuntimeException e) {
             // If the error is about duplicate course enrollment, return 409 Conflict
             String msg = e.getMessage() != null ? e.getMessage() : "Enrollment failed";
-            if (msg.contains("already enrolled in this course") || msg.contains("already enrolled in this specific course")) {
+            if (msg.contains("is full")) {
+                // The student can queue for the seat through /api/waitlist instead of retrying
+                return ResponseEntity.status(409).body(Map.of("error", msg, "waitlistAvailable", true));
+            }
+            if (msg.contains("already enrolled in this course") || msg.contains("already enrolled in this specific course") ||
+                msg.startsWith("Time conflict")) {
                 return ResponseEntity.status(409).body(Map.of("error", msg));
             }
             // Otherwise, return 400 Bad Request
@@ -232,12 +263,15 @@ public class EnrolledCourseController {
      */
     @PostMapping("/enroll-schedule")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<EnrolledCourse> enrollInSchedule(@RequestBody Map<String, Object> payload) {
-        Long studentId = Long.valueOf(payload.get("studentId").toString());
-        Long scheduleId = Long.valueOf(payload.get("scheduleId").toString());
-        String status = payload.get("status") != null ? payload.get("status").toString() : "Enrolled";
-        EnrolledCourse enrolled = enrolledCourseService.studentEnrollInSchedule(studentId, scheduleId, status);
-        return ResponseEntity.ok(enrolled);
+    public ResponseEntity<?> enrollInSchedule(@RequestBody Map<String, Object> payload,
+                                              @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("enroll-schedule", idempotencyKey, payload, () -> {
+            Long studentId = Long.valueOf(payload.get("studentId").toString());
+            Long scheduleId = Long.valueOf(payload.get("scheduleId").toString());
+            String status = payload.get("status") != null ? payload.get("status").toString() : "Enrolled";
+            EnrolledCourse enrolled = enrolledCourseService.studentEnrollInSchedule(studentId, scheduleId, status);
+            return ResponseEntity.ok(enrolled);
+        });
     }
 
     @PutMapping("/{id}")
@@ -386,6 +420,77 @@ public class EnrolledCourseController {
     }
 
 
+    /**
+     * Enroll many students at once. Every row is validated independently and reported back
+     * as ENROLLED, SKIPPED (already enrolled) or FAILED with a reason.
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY')")
+    public ResponseEntity<BulkEnrollmentResultDTO> bulkEnroll(@RequestBody BulkEnrollmentRequestDTO request) {
+        return ResponseEntity.ok(bulkEnrollmentService.enroll(request));
+    }
+
+    /**
+     * Check a proposed set of schedules for duplicates, time conflicts and full schedules without enrolling.
+     */
+    @PostMapping("/validate-cart")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('STUDENT') and @securityService.isCurrentUser(#request.studentId))")
+    public ResponseEntity<?> validateCart(@RequestBody EnrollmentCartRequestDTO request) {
+        try {
+            EnrollmentCartResultDTO result = enrollmentCartService.validate(request.getStudentId(), request.getScheduleIds());
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Enroll in every schedule of a cart in one transaction, or in none of them. An invalid cart
+     * comes back with 409 and the per-schedule problems.
+     */
+    @PostMapping("/cart")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('STUDENT') and @securityService.isCurrentUser(#request.studentId))")
+    public ResponseEntity<?> commitCart(@RequestBody EnrollmentCartRequestDTO request,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("enroll-cart", idempotencyKey, request, () -> {
+            try {
+                EnrollmentCartResultDTO result = enrollmentCartService.commit(
+                    request.getStudentId(), request.getScheduleIds(), request.getStatus());
+                return result.isCommitted() ? ResponseEntity.ok(result) : ResponseEntity.status(409).body(result);
+            } catch (RuntimeException e) {
+                String msg = e.getMessage() != null ? e.getMessage() : "Enrollment failed";
+                // Lost a seat or hit the credit limit after validation passed
+                if (msg.contains("is full") || msg.contains("maximum load")) {
+                    return ResponseEntity.status(409).body(Map.of("error", msg));
+                }
+                return ResponseEntity.badRequest().body(Map.of("error", msg));
+            }
+        });
+    }
+
+    /**
+     * Seat capacity and current occupancy for a schedule, served from the in-memory counters.
+     */
+    @GetMapping("/seats/{scheduleId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Object>> getSeatAvailability(@PathVariable Long scheduleId) {
+        try {
+            return ResponseEntity.ok(seatReservationService.getAvailability(scheduleId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Recount every schedule's seats from the enrollment table, e.g. after manual data fixes.
+     */
+    @PostMapping("/seats/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reconcileSeats() {
+        int schedules = seatReservationService.reconcile();
+        return ResponseEntity.ok(Map.of("reconciledSchedules", schedules));
+    }
+
     /**
      * Returns all available schedules for enrollment (no filtering by course).
      * The check for only one instance of a course per student is enforced on enrollment.
@@ -2,6 +2,8 @@ package com.stasis.stasis.controller;
 
 import com.stasis.stasis.model.Faculty;
 import com.stasis.stasis.service.FacultyService;
+import com.stasis.stasis.service.PasswordHashingService;
+import com.stasis.stasis.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -34,9 +36,13 @@ public class FacultyController {
         try {
             FacultyService.FacultyWithCredentials facultyWithCredentials = facultyService.createFaculty(faculty);
             return ResponseEntity.ok(facultyWithCredentials);
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
         } catch (DataIntegrityViolationException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body("Email already exists in the system");
+                .body(UserService.describeConflict(e));
         } catch (RuntimeException e) {
             if (e.getMessage().contains("Email already exists")) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
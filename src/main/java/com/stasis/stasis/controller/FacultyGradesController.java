@@ -1,17 +1,20 @@
 package com.stasis.stasis.controller;
 
 import com.stasis.stasis.dto.FacultyGradeResponseDTO;
-import com.stasis.stasis.model.CourseSection;
+import com.stasis.stasis.dto.GradeImportResultDTO;
 import com.stasis.stasis.model.EnrolledCourse;
-import com.stasis.stasis.service.CourseSectionService;
 import com.stasis.stasis.service.EnrolledCourseService;
+import com.stasis.stasis.service.GradeImportService;
+import com.stasis.stasis.service.SectionGradeSummaryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,10 +28,13 @@ import java.util.stream.Collectors;
 public class FacultyGradesController {
 
     @Autowired
-    private CourseSectionService courseSectionService;
+    private EnrolledCourseService enrolledCourseService;
 
     @Autowired
-    private EnrolledCourseService enrolledCourseService;
+    private GradeImportService gradeImportService;
+
+    @Autowired
+    private SectionGradeSummaryService sectionGradeSummaryService;
 
     /**
      * Get all sections assigned to a faculty member with grade summary information
@@ -46,55 +52,8 @@ public class FacultyGradesController {
         try {
             System.out.println("FacultyGradesController: Fetching sections for faculty ID: " + facultyId);
             
-            // Get all sections assigned to this faculty
-            List<CourseSection> facultySections = courseSectionService.getSectionsByFaculty(facultyId);
-            System.out.println("FacultyGradesController: Found " + facultySections.size() + " sections for faculty");
-            
-            // Convert to response DTOs with grade summary information
-            List<FacultyGradeResponseDTO> response = facultySections.stream()
-                .map(section -> {
-                    System.out.println("Processing section: " + section.getSectionID() + " - " + section.getSectionName());
-                    
-                    // Get enrolled students count for this section
-                    List<EnrolledCourse> enrolledCourses = enrolledCourseService.getEnrolledCoursesBySection(section.getSectionID());
-                    int enrolledCount = enrolledCourses.size();
-                    
-                    // Count students with grades
-                    int studentsWithGrades = (int) enrolledCourses.stream()
-                        .filter(enrollment -> enrollment.getGrade() != null)
-                        .count();
-                    
-                    // Extract course information - handle both old and new structure
-                    String courseCode = "N/A";
-                    String courseDescription = "Unknown Course";
-                    
-                    // Try to get course info from schedules first (new structure)
-                    if (section.getSchedules() != null && !section.getSchedules().isEmpty()) {
-                        var firstScheduleWithCourse = section.getSchedules().stream()
-                            .filter(schedule -> schedule.getCourse() != null)
-                            .findFirst();
-                        
-                        if (firstScheduleWithCourse.isPresent()) {
-                            var course = firstScheduleWithCourse.get().getCourse();
-                            courseCode = course.getCourseCode();
-                            courseDescription = course.getCourseDescription();
-                        }
-                    }
-                    
-                    System.out.println("Section " + section.getSectionID() + ": " + 
-                                     enrolledCount + " enrolled, " + 
-                                     studentsWithGrades + " with grades");
-                    
-                    return FacultyGradeResponseDTO.builder()
-                        .sectionId(section.getSectionID())
-                        .sectionName(section.getSectionName())
-                        .courseCode(courseCode)
-                        .courseDescription(courseDescription)
-                        .enrolledStudentsCount(enrolledCount)
-                        .studentsWithGrades(studentsWithGrades)
-                        .build();
-                })
-                .collect(Collectors.toList());
+            // Enrollment and grade counts for every section come from one aggregate query
+            List<FacultyGradeResponseDTO> response = sectionGradeSummaryService.getSummariesByFaculty(facultyId);
             
             System.out.println("FacultyGradesController: Returning " + response.size() + " section summaries");
             return ResponseEntity.ok(response);
@@ -186,7 +145,7 @@ public class FacultyGradesController {
      * Update midterm grade for a student enrollment
      */
     @PutMapping("/enrollment/{enrollmentId}/midterm-grade")
-    @PreAuthorize("hasRole('FACULTY') or hasRole('ADMIN')")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.teachesEnrollment(#enrollmentId)")
     public ResponseEntity<?> updateMidtermGrade(
             @PathVariable Long enrollmentId, 
             @RequestBody Map<String, Object> gradeData) {
@@ -216,7 +175,7 @@ public class FacultyGradesController {
      * Update final grade for a student enrollment
      */
     @PutMapping("/enrollment/{enrollmentId}/final-grade")
-    @PreAuthorize("hasRole('FACULTY') or hasRole('ADMIN')")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.teachesEnrollment(#enrollmentId)")
     public ResponseEntity<?> updateFinalGrade(
             @PathVariable Long enrollmentId, 
             @RequestBody Map<String, Object> gradeData) {
@@ -246,7 +205,7 @@ public class FacultyGradesController {
      * Update complete grade information for a student enrollment
      */
     @PutMapping("/enrollment/{enrollmentId}/grades")
-    @PreAuthorize("hasRole('FACULTY') or hasRole('ADMIN')")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.teachesEnrollment(#enrollmentId)")
     public ResponseEntity<?> updateGrades(
             @PathVariable Long enrollmentId, 
             @RequestBody Map<String, Object> gradeData) {
@@ -308,11 +267,39 @@ public class FacultyGradesController {
         }
     }
 
+    /**
+     * Import the grades of a whole section from a CSV (text/csv) or JSON array body
+     */
+    @PostMapping(value = "/section/{sectionId}/grades/import",
+                 consumes = {"text/csv", "text/plain", MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN') or @securityService.teachesSection(#sectionId)")
+    public ResponseEntity<?> importSectionGrades(
+            @PathVariable Long sectionId,
+            @RequestHeader(value = "Content-Type") String contentType,
+            InputStream body) {
+
+        try {
+            GradeImportResultDTO result = MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? gradeImportService.importJson(sectionId, body)
+                : gradeImportService.importCsv(sectionId, body);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            System.err.println("FacultyGradesController: Rejected grade import: " + e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid grade import: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("FacultyGradesController: Error importing grades: " + e.getMessage());
+            if (e.getMessage() != null && e.getMessage().contains("not found")) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(500).body("Error importing grades: " + e.getMessage());
+        }
+    }
+
     /**
      * Bulk update grades for multiple enrollments
      */
     @PutMapping("/bulk-update-grades")
-    @PreAuthorize("hasRole('FACULTY') or hasRole('ADMIN')")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.teachesGradeUpdates(#gradeUpdates)")
     public ResponseEntity<?> bulkUpdateGrades(@RequestBody List<Map<String, Object>> gradeUpdates) {
         
         try {
@@ -1,5 +1,7 @@
 package com.stasis.stasis.controller;
 
+import com.stasis.stasis.dto.FreeSlotDTO;
+import com.stasis.stasis.dto.ScheduleConflictDTO;
 import com.stasis.stasis.model.Schedule;
 import com.stasis.stasis.service.ScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -130,11 +132,26 @@ public class ScheduleController {
             @RequestParam String day,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+            @RequestParam(required = false) String room,
+            @RequestParam(required = false) Long sectionId,
+            @RequestParam(required = false) Long facultyId,
             @RequestParam(required = false) Long excludeScheduleId) {
-        List<Schedule> conflicts = scheduleService.checkConflicts(day, startTime, endTime, excludeScheduleId);
+        List<Schedule> conflicts = scheduleService.checkConflicts(day, startTime, endTime, room, sectionId, facultyId, excludeScheduleId);
         return ResponseEntity.ok(conflicts);
     }
 
+    /**
+     * Room, faculty and section conflicts of several new schedules, including among themselves.
+     */
+    @PostMapping("/conflicts/batch")
+    public ResponseEntity<List<ScheduleConflictDTO>> checkBatchConflicts(
+            @RequestParam(required = false) Long sectionId,
+            @RequestParam(required = false) Long facultyId,
+            @RequestParam(required = false) List<Long> excludeScheduleIds,
+            @RequestBody List<Schedule> schedules) {
+        return ResponseEntity.ok(scheduleService.checkConflicts(schedules, sectionId, facultyId, excludeScheduleIds));
+    }
+
     @GetMapping("/conflicts")
     public ResponseEntity<List<Schedule>> getConflictingSchedules(
             @RequestParam String day,
@@ -144,6 +161,26 @@ public class ScheduleController {
         return ResponseEntity.ok(schedules);
     }
 
+    /**
+     * Free intervals of at least minMinutes shared by a room, faculty member and/or section.
+     */
+    @GetMapping("/free-slots")
+    public ResponseEntity<?> getFreeSlots(
+            @RequestParam(required = false) String room,
+            @RequestParam(required = false) Long facultyId,
+            @RequestParam(required = false) Long sectionId,
+            @RequestParam(defaultValue = "Monday,Tuesday,Wednesday,Thursday,Friday") String days,
+            @RequestParam(defaultValue = "60") int minMinutes,
+            @RequestParam(defaultValue = "07:00") @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime from,
+            @RequestParam(defaultValue = "21:00") @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime to) {
+        try {
+            List<FreeSlotDTO> freeSlots = scheduleService.findFreeSlots(room, facultyId, sectionId, days, from, to, minMinutes);
+            return ResponseEntity.ok(freeSlots);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/time-range")
     public ResponseEntity<List<Schedule>> getSchedulesByTimeRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
@@ -1,12 +1,16 @@
 package com.stasis.stasis.controller;
 
 import com.stasis.stasis.model.SemesterEnrollment;
+import com.stasis.stasis.service.AcademicTermService;
+import com.stasis.stasis.service.CreditAccountingService;
 import com.stasis.stasis.service.SemesterEnrollmentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,6 +20,12 @@ public class SemesterEnrollmentController {
     @Autowired
     private SemesterEnrollmentService semesterEnrollmentService;
 
+    @Autowired
+    private CreditAccountingService creditAccountingService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
     @GetMapping
     public List<SemesterEnrollment> getAllSemesterEnrollments() {
         return semesterEnrollmentService.getAllSemesterEnrollments();
@@ -61,4 +71,19 @@ public class SemesterEnrollmentController {
     public SemesterEnrollment updateTotalCredits(@PathVariable Long id) {
         return semesterEnrollmentService.updateTotalCredits(id);
     }
-}
\ No newline at end of file
+
+    // Run the credit reconciliation now instead of waiting for the nightly job
+    @PostMapping("/reconcile-credits")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reconcileCredits() {
+        int corrected = creditAccountingService.reconcile();
+        return ResponseEntity.ok(Map.of("correctedEnrollments", corrected));
+    }
+
+    // One-off migration: merge duplicate term enrollments and add the unique key they block
+    @PostMapping("/merge-duplicates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> mergeDuplicates() {
+        return ResponseEntity.ok(academicTermService.mergeDuplicates());
+    }
+}
@@ -17,7 +17,9 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import com.stasis.stasis.model.Student;
+import com.stasis.stasis.service.PasswordHashingService;
 import com.stasis.stasis.service.StudentService;
+import com.stasis.stasis.service.UserService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -56,10 +58,14 @@ public class StudentController {
             StudentService.StudentWithCredentials studentWithCredentials = studentService.createStudent(student);
             System.out.println("Saved student: " + studentWithCredentials.getStudent());
             return ResponseEntity.ok(studentWithCredentials);
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
         } catch (DataIntegrityViolationException e) {
             System.err.println("Data integrity violation: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body("Email already exists in the system");
+                .body(UserService.describeConflict(e));
         } catch (RuntimeException e) {
             if (e.getMessage().contains("Email already exists")) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -75,6 +81,25 @@ public class StudentController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createStudents(@RequestBody List<Student> students) {
+        try {
+            List<StudentService.StudentWithCredentials> created = studentService.createStudents(students);
+            System.out.println("Bulk created " + created.size() + " students");
+            return ResponseEntity.ok(created);
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(UserService.describeConflict(e));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("Data validation error: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateStudent(@PathVariable Long id, @RequestBody Student student) {
         try {
@@ -0,0 +1,33 @@
+package com.stasis.stasis.controller;
+
+import com.stasis.stasis.dto.TimetableRequestDTO;
+import com.stasis.stasis.service.TimetableGeneratorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/timetables")
+public class TimetableController {
+
+    @Autowired
+    private TimetableGeneratorService timetableGeneratorService;
+
+    /**
+     * Generate schedules for every course the given sections still lack. Nothing is saved unless
+     * the request sets commit.
+     */
+    @PostMapping("/generate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> generate(@RequestBody TimetableRequestDTO request) {
+        try {
+            return ResponseEntity.ok(timetableGeneratorService.generate(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.stasis.stasis.controller;
+
+import com.stasis.stasis.dto.TranscriptBatchJobDTO;
+import com.stasis.stasis.dto.TranscriptPageDTO;
+import com.stasis.stasis.service.TranscriptBatchService;
+import com.stasis.stasis.service.TranscriptService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/transcripts")
+public class TranscriptController {
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private TranscriptBatchService transcriptBatchService;
+
+    /**
+     * One page of a student's transcript. Answers 304 when If-None-Match carries the current ETag.
+     */
+    @GetMapping("/student/{studentId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY') or (hasRole('STUDENT') and @securityService.isCurrentUser(#studentId))")
+    public ResponseEntity<TranscriptPageDTO> getTranscript(
+            @PathVariable Long studentId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+
+        String eTag = "\"" + transcriptService.getVersion(studentId) + "\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(transcriptService.getTranscript(studentId, page, size));
+    }
+
+    /**
+     * Start generating the transcripts of a program or curriculum cohort into one archive.
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startBatch(
+            @RequestParam(required = false) Long programId,
+            @RequestParam(required = false) Long curriculumId,
+            @RequestParam(required = false) Integer yearLevel,
+            @RequestParam(defaultValue = TranscriptBatchService.FORMAT_CSV) String format) {
+        try {
+            TranscriptBatchJobDTO job = transcriptBatchService.startJob(programId, curriculumId, yearLevel, format);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/batch/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TranscriptBatchJobDTO> getBatch(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(transcriptBatchService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/batch/{jobId}/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> downloadBatch(@PathVariable String jobId) {
+        try {
+            Path archive = transcriptBatchService.getArchive(jobId);
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archive.getFileName() + "\"")
+                .body(new FileSystemResource(archive));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
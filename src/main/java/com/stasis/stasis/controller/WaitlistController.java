@@ -0,0 +1,89 @@
+package com.stasis.stasis.controller;
+
+import com.stasis.stasis.model.WaitlistEntry;
+import com.stasis.stasis.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/waitlist")
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    /**
+     * Join the waitlist of a full schedule. Accepts: studentId, scheduleId
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('STUDENT') and @securityService.isCurrentUser(#payload['studentId']))")
+    public ResponseEntity<?> joinWaitlist(@RequestBody Map<String, Object> payload) {
+        try {
+            Long studentId = Long.valueOf(payload.get("studentId").toString());
+            Long scheduleId = Long.valueOf(payload.get("scheduleId").toString());
+            WaitlistEntry entry = waitlistService.join(studentId, scheduleId);
+            return ResponseEntity.ok(toResponse(entry));
+        } catch (RuntimeException e) {
+            String msg = e.getMessage() != null ? e.getMessage() : "Could not join waitlist";
+            if (msg.contains("already enrolled")) {
+                return ResponseEntity.status(409).body(Map.of("error", msg));
+            }
+            return ResponseEntity.badRequest().body(Map.of("error", msg));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('STUDENT') and @securityService.ownsWaitlistEntry(#id))")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable Long id) {
+        try {
+            waitlistService.cancel(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/student/{studentId}")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('STUDENT') and @securityService.isCurrentUser(#studentId))")
+    public ResponseEntity<List<Map<String, Object>>> getStudentWaitlist(@PathVariable Long studentId) {
+        List<Map<String, Object>> entries = waitlistService.getEntriesForStudent(studentId).stream()
+            .map(this::toResponse)
+            .toList();
+        return ResponseEntity.ok(entries);
+    }
+
+    @GetMapping("/schedule/{scheduleId}")
+    @PreAuthorize("hasAnyRole('FACULTY', 'ADMIN')")
+    public ResponseEntity<List<WaitlistEntry>> getScheduleWaitlist(@PathVariable Long scheduleId) {
+        return ResponseEntity.ok(waitlistService.getQueue(scheduleId));
+    }
+
+    /**
+     * Run a promotion pass for a schedule right away, e.g. after seats were added manually.
+     */
+    @PostMapping("/schedule/{scheduleId}/promote")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> promote(@PathVariable Long scheduleId) {
+        int promoted = waitlistService.promote(scheduleId);
+        return ResponseEntity.ok(Map.of("scheduleId", scheduleId, "promoted", promoted));
+    }
+
+    private Map<String, Object> toResponse(WaitlistEntry entry) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("waitlistEntryId", entry.getWaitlistEntryID());
+        response.put("studentId", entry.getStudentId());
+        response.put("scheduleId", entry.getScheduleId());
+        response.put("sectionId", entry.getSectionId());
+        response.put("status", entry.getStatus());
+        response.put("message", entry.getMessage());
+        response.put("requestedAt", entry.getRequestedAt());
+        response.put("position", waitlistService.getPosition(entry));
+        return response;
+    }
+}
@@ -0,0 +1,20 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One (student, section/schedule) pair of a bulk enrollment request.
+ * When scheduleId is set the enrollment is course-specific, otherwise it covers the whole section.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentItemDTO {
+    private Long studentId;
+    private Long sectionId;
+    private Long scheduleId;
+}
@@ -0,0 +1,20 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for enrolling many students in many sections/schedules in one call
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentRequestDTO {
+    private String status;
+    private List<BulkEnrollmentItemDTO> enrollments;
+}
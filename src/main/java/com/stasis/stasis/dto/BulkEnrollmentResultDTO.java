@@ -0,0 +1,41 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO reporting the outcome of every row of a bulk enrollment request
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentResultDTO {
+
+    public static final String ENROLLED = "ENROLLED";
+    public static final String SKIPPED = "SKIPPED";
+    public static final String FAILED = "FAILED";
+
+    private int requested;
+    private int enrolled;
+    private int skipped;
+    private int failed;
+    private List<RowResult> rows;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private int row;
+        private Long studentId;
+        private Long sectionId;
+        private Long scheduleId;
+        private String result;
+        private String message;
+    }
+}
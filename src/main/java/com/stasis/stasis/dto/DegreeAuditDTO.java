@@ -0,0 +1,62 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO comparing a student's graded history with their curriculum, grouped by year level and semester
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DegreeAuditDTO {
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String REMAINING = "REMAINING";
+
+    private Long studentId;
+    private String studentName;
+    private Long curriculumId;
+    private String curriculumName;
+    private int totalRequirements;
+    private int completed;
+    private int inProgress;
+    private int remaining;
+    private int completedCredits;
+    private int remainingCredits;
+    private double percentComplete;
+    private List<Term> terms;
+    private LocalDateTime generatedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Term {
+        private int yearLevel;
+        private String semester;
+        private List<Requirement> requirements;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Requirement {
+        private Long courseId;
+        private String courseCode;
+        private String courseDescription;
+        private int credits;
+        private String status;
+        // Best grade on record for the course, if any
+        private BigDecimal grade;
+    }
+}
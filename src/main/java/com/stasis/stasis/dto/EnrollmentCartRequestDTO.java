@@ -0,0 +1,21 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a student's proposed set of schedules to enroll in together
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentCartRequestDTO {
+    private Long studentId;
+    private List<Long> scheduleIds;
+    private String status;
+}
@@ -0,0 +1,37 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO reporting whether every schedule of an enrollment cart can be enrolled (and why not),
+ * and for a committed cart the enrollments that were created
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentCartResultDTO {
+    private Long studentId;
+    private boolean valid;
+    private boolean committed;
+    private int totalCredits;
+    private List<Item> items;
+    private List<Long> enrolledCourseIds;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long scheduleId;
+        private Long courseId;
+        private String courseCode;
+        private boolean ok;
+        private List<String> problems;
+    }
+}
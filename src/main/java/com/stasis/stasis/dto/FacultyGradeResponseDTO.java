@@ -21,4 +21,6 @@ public class FacultyGradeResponseDTO {
     // Statistics
     private Integer enrolledStudentsCount;
     private Integer studentsWithGrades;
+    private Double averageGrade;
+    private Integer passedCount;
 }
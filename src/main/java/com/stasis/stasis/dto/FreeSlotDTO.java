@@ -0,0 +1,22 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * DTO for a free interval shared by a room, faculty member and/or section on one day
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeSlotDTO {
+    private String day;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private int minutes;
+}
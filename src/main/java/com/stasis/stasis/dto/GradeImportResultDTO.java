@@ -0,0 +1,41 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO reporting the outcome of every row of a section grade import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeImportResultDTO {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String FAILED = "FAILED";
+
+    private Long sectionId;
+    private int received;
+    private int created;
+    private int updated;
+    private int failed;
+    private List<RowResult> rows;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private int row;
+        private Long enrolledCourseId;
+        private Long studentId;
+        private String result;
+        private String message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.stasis.stasis.dto;
+
+import com.stasis.stasis.model.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * Identity of a logged-in user resolved once at login and kept with the session's authentication
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrincipalContext implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long userId;
+    private String username;
+    private UserRole role;
+    private Long studentId;
+    private Long facultyId;
+    private Set<Long> taughtSectionIds;
+    // Invalidation epoch the context was built at
+    private long builtAt;
+}
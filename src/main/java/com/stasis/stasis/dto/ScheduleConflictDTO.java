@@ -0,0 +1,36 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * DTO listing what a proposed schedule collides with
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleConflictDTO {
+
+    // Position of the schedule in a batch check
+    private int index;
+    private String day;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String room;
+
+    // IDs of existing schedules in the same room, taught by the same faculty member, or in the same section
+    private List<Long> roomConflicts;
+    private List<Long> facultyConflicts;
+    private List<Long> sectionConflicts;
+
+    // Indexes of earlier schedules of the same batch that overlap this one
+    private List<Integer> batchConflicts;
+
+    private boolean conflicting;
+}
@@ -0,0 +1,41 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * DTO describing which sections to timetable and the week to fit them into
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableRequestDTO {
+
+    // Either explicit sections, or every section of a semester and year
+    private List<Long> sectionIds;
+    private String semester;
+    private Integer year;
+
+    // Rooms to use; defaults to every room that already has a schedule
+    private List<String> rooms;
+
+    // Teaching days and hours; default Monday to Friday, 07:30 to 19:30, in 30-minute slots
+    private List<String> days;
+    private LocalTime dayStart;
+    private LocalTime dayEnd;
+    private Integer slotMinutes;
+
+    // A course meets this many times a week, at the same time, for its credit hours in total
+    private Integer meetingsPerWeek;
+
+    private String status;
+
+    // Save the generated schedules instead of only proposing them
+    private boolean commit;
+}
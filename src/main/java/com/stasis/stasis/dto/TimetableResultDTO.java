@@ -0,0 +1,57 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * DTO with a generated timetable: the placed schedules and the courses that did not fit
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableResultDTO {
+
+    private int sections;
+    private int requested;
+    private int placed;
+    private int unplaced;
+    private int attempts;
+    private long elapsedMillis;
+    private boolean committed;
+    private List<Placement> schedules;
+    private List<Unplaced> unplacedCourses;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Placement {
+        // Set once the schedule has been saved
+        private Long scheduleId;
+        private Long sectionId;
+        private Long courseId;
+        private String courseCode;
+        private Long facultyId;
+        private String day;
+        private LocalTime startTime;
+        private LocalTime endTime;
+        private String room;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Unplaced {
+        private Long sectionId;
+        private Long courseId;
+        private String courseCode;
+        private String reason;
+    }
+}
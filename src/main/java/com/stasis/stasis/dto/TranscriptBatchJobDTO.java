@@ -0,0 +1,42 @@
+package com.stasis.stasis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO reporting the progress of a batch transcript job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranscriptBatchJobDTO {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private String jobId;
+    private String status;
+
+    // Cohort the job covers
+    private Long programId;
+    private Long curriculumId;
+    private Integer yearLevel;
+    private String format;
+
+    private int totalStudents;
+    private int processedStudents;
+    private int failedStudents;
+    private boolean archiveReady;
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,31 @@
+package com.stasis.stasis.dto;
+
+import com.stasis.stasis.model.TranscriptEntry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of a student's transcript, ordered by academic year, semester and course code
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranscriptPageDTO {
+    private Long studentId;
+    private int page;
+    private int size;
+    private long totalRows;
+    private int totalPages;
+
+    // From the student's academic record
+    private Double cumulativeGA;
+    private Integer earnedCredits;
+    private String academicStanding;
+
+    private List<TranscriptEntry> rows;
+}
@@ -1,5 +1,6 @@
 package com.stasis.stasis.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -10,6 +11,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 
 @Entity
 @Data
@@ -28,4 +31,9 @@ public class AcademicRecord{
     private Double GA;
     private int totalCredits;
     private String academicStanding;
+
+    // Running sums behind GA: sum of gradeValue * credits, and the credits carrying a grade
+    @Column(precision = 14, scale = 2)
+    private BigDecimal weightedGradeSum;
+    private Integer gradedCredits;
 }
\ No newline at end of file
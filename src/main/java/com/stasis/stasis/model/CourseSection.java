@@ -42,6 +42,9 @@ public class CourseSection {
     private String semester;
     private int year;
     
+    // Default seat limit for every schedule in this section (null means unlimited)
+    private Integer capacity;
+    
     // Multiple schedules, each potentially with different courses
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "course_section_id")
@@ -0,0 +1,47 @@
+package com.stasis.stasis.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "idempotency_record",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_idempotency_principal_endpoint_key",
+           columnNames = {"principal", "endpoint", "idempotency_key"}),
+       indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idempotencyRecordID;
+
+    // Username of the caller; keys are only unique per caller
+    @Column(name = "principal", length = 100)
+    private String principal;
+
+    @Column(name = "endpoint", nullable = false, length = 100)
+    private String endpoint;
+
+    @Column(name = "idempotency_key", nullable = false, length = 255)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, so a key reused for a different request can be rejected
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    // Null while the first request is still being processed
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
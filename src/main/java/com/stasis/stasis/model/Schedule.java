@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.time.LocalTime;
@@ -15,7 +16,8 @@ import java.time.LocalTime;
 @AllArgsConstructor
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
-@Table(name = "schedule") // Explicitly specify table name
+@Table(name = "schedule", // Explicitly specify table name
+       indexes = @Index(name = "idx_schedule_course_section", columnList = "course_section_id"))
 public class Schedule {
 
     @Id
@@ -38,10 +40,21 @@ public class Schedule {
     @Column(name = "room")
     private String room;
     
+    // Maximum number of students for this schedule; when null the section capacity applies
+    @Column(name = "capacity")
+    private Integer capacity;
+    
+    // Seats held by enrollments; only ever changed by the conditional updates in ScheduleRepository
+    @JsonIgnore
+    @Column(name = "seats_taken", insertable = false, updatable = false)
+    private Integer seatsTaken;
+    
     // Add course reference for one-to-one course-schedule relationship
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "course_id", nullable = true)
     private Course course;
     
-    // Foreign key will be managed by CourseSection
+    // Foreign key will be managed by CourseSection; read-only here so a schedule can find its section directly
+    @Column(name = "course_section_id", insertable = false, updatable = false)
+    private Long courseSectionId;
 }
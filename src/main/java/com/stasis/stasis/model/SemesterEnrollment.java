@@ -12,6 +12,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @AllArgsConstructor
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Table(uniqueConstraints = @UniqueConstraint(
+    name = "uk_semester_enrollment_student_term",
+    columnNames = {"studentID", "semester", "academicYear"}))
 public class SemesterEnrollment {
 
     @Id
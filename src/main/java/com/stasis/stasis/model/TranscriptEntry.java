@@ -0,0 +1,80 @@
+package com.stasis.stasis.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One transcript line: a course a student took in a term, with its credits and grade.
+ *
+ * This is a read model derived from EnrolledCourse, SemesterEnrollment, Schedule, Course and Grade;
+ * TranscriptService rewrites a student's rows whenever their enrollments or grades change.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "transcript_entry",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_transcript_enrollment_course",
+           columnNames = {"enrolled_course_id", "course_id"}),
+       indexes = @Index(name = "idx_transcript_student_term",
+                        columnList = "student_id, academic_year, semester, course_code"))
+public class TranscriptEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long transcriptEntryID;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "enrolled_course_id", nullable = false)
+    private Long enrolledCourseId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "course_code")
+    private String courseCode;
+
+    @Column(name = "course_description")
+    private String courseDescription;
+
+    private Integer credits;
+
+    @Column(name = "academic_year")
+    private String academicYear;
+
+    private String semester;
+
+    @Column(name = "section_name")
+    private String sectionName;
+
+    private String status;
+
+    @Column(name = "grade_value", precision = 5, scale = 2)
+    private BigDecimal gradeValue;
+
+    @Column(name = "midterm_grade")
+    private Double midtermGrade;
+
+    @Column(name = "final_grade")
+    private Double finalGrade;
+
+    @Column(name = "overall_grade")
+    private Double overallGrade;
+
+    private String remark;
+
+    @Column(name = "grade_date")
+    private LocalDate gradeDate;
+
+    // When the student's rows were last rebuilt; all rows of a student share it
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
@@ -1,5 +1,6 @@
 package com.stasis.stasis.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
@@ -9,6 +10,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(uniqueConstraints = {
+    @UniqueConstraint(name = "uk_users_username", columnNames = "username")
+})
 public class Users {
 
     @Id
@@ -34,4 +38,10 @@ public class Users {
 
     @OneToOne(optional = true)
     private Faculty faculty;
+
+    // Student account owner; lazy so logins and user listings do not load the student graph
+    @OneToOne(optional = true, fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id")
+    @JsonIgnore
+    private Student student;
 }
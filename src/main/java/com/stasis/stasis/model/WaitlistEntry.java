@@ -0,0 +1,49 @@
+package com.stasis.stasis.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Table(name = "waitlist_entry",
+       indexes = @Index(name = "idx_waitlist_schedule_status", columnList = "schedule_id, status"))
+public class WaitlistEntry {
+
+    public static final String WAITING = "WAITING";
+    public static final String PROMOTED = "PROMOTED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long waitlistEntryID;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    // The schedule (course) within a section the student is waiting for
+    @Column(name = "schedule_id", nullable = false)
+    private Long scheduleId;
+
+    @Column(name = "section_id")
+    private Long sectionId;
+
+    // Year level when the request was made; higher year levels are promoted first
+    private Integer yearLevel;
+
+    private LocalDateTime requestedAt;
+
+    private String status;
+
+    // Outcome of the last promotion attempt
+    private String message;
+
+    private LocalDateTime resolvedAt;
+}
@@ -3,11 +3,25 @@ package com.stasis.stasis.repository;
 import com.stasis.stasis.model.AcademicRecord;
 import com.stasis.stasis.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AcademicRecordRepository extends JpaRepository<AcademicRecord, Long> {
     Optional<AcademicRecord> findByStudent(Student student);
+
+    Optional<AcademicRecord> findByStudent_Id(Long studentId);
+
+    @Query("SELECT ar.student.id FROM AcademicRecord ar WHERE ar.student IS NOT NULL ORDER BY ar.student.id")
+    List<Long> findAllStudentIds();
+
+    // (studentId, GA, totalCredits, academicStanding) of the students' records
+    @Query("SELECT ar.student.id, ar.GA, ar.totalCredits, ar.academicStanding FROM AcademicRecord ar " +
+           "WHERE ar.student.id IN :studentIds")
+    List<Object[]> findSummariesByStudentIds(@Param("studentIds") Collection<Long> studentIds);
 }
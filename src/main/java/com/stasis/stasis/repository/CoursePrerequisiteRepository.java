@@ -3,6 +3,8 @@ package com.stasis.stasis.repository;
 import com.stasis.stasis.model.CoursePrerequisite;
 import com.stasis.stasis.model.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -10,4 +12,13 @@ import java.util.List;
 public interface CoursePrerequisiteRepository extends JpaRepository<CoursePrerequisite, Long> {
     List<CoursePrerequisite> findByCourse(Course course);
     List<CoursePrerequisite> findByPrerequisiteCourse(Course prerequisiteCourse);
-}
\ No newline at end of file
+
+    // (courseId, prerequisiteCourseId) of every prerequisite edge
+    @Query("SELECT cp.course.id, cp.prerequisiteCourse.id FROM CoursePrerequisite cp " +
+           "WHERE cp.course IS NOT NULL AND cp.prerequisiteCourse IS NOT NULL")
+    List<Object[]> findAllEdges();
+
+    @Query("SELECT cp.prerequisiteCourse.id FROM CoursePrerequisite cp " +
+           "WHERE cp.course.id = :courseId AND cp.prerequisiteCourse IS NOT NULL")
+    List<Long> findPrerequisiteIdsByCourseId(@Param("courseId") Long courseId);
+}
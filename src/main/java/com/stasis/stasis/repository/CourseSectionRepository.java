@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -65,4 +67,42 @@ public interface CourseSectionRepository extends JpaRepository<CourseSection, Lo
            "LEFT JOIN FETCH cs.schedules s " +
            "LEFT JOIN FETCH s.course c")
     List<CourseSection> findAllWithSchedulesAndCourses();
+
+    // (scheduleId, sectionId, courseId, credits) for the given schedules
+    @Query("SELECT s.scheduleID, cs.sectionID, c.id, c.credits FROM CourseSection cs " +
+           "JOIN cs.schedules s " +
+           "LEFT JOIN s.course c " +
+           "WHERE s.scheduleID IN :scheduleIds")
+    List<Object[]> findScheduleCoursesByScheduleIds(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // (scheduleId, sectionId, courseId, credits) for every schedule of the given sections
+    @Query("SELECT s.scheduleID, cs.sectionID, c.id, c.credits FROM CourseSection cs " +
+           "JOIN cs.schedules s " +
+           "LEFT JOIN s.course c " +
+           "WHERE cs.sectionID IN :sectionIds")
+    List<Object[]> findScheduleCoursesBySectionIds(@Param("sectionIds") Collection<Long> sectionIds);
+
+    @Query("SELECT cs.sectionID FROM CourseSection cs WHERE cs.faculty.facultyID = :facultyId")
+    List<Long> findIdsByFacultyId(@Param("facultyId") Long facultyId);
+
+    @Query("SELECT cs.sectionID FROM CourseSection cs WHERE cs.sectionID IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // (sectionId, sectionName, courseCode, courseDescription, enrolled, graded, average grade, passed) for a faculty's sections;
+    // the course is the one on the section's lowest-numbered schedule that has a course
+    @Query("SELECT cs.sectionID, cs.sectionName, c.courseCode, c.courseDescription, " +
+           "COUNT(ec.enrolledCourseID), COUNT(g.gradeID), AVG(g.gradeValue), " +
+           "SUM(CASE WHEN g.gradeValue >= :passingGrade THEN 1 ELSE 0 END) " +
+           "FROM CourseSection cs " +
+           "JOIN cs.program p " +
+           "LEFT JOIN Schedule fs ON fs.scheduleID = (SELECT MIN(sch.scheduleID) FROM Schedule sch " +
+           "WHERE sch.courseSectionId = cs.sectionID AND sch.course IS NOT NULL) " +
+           "LEFT JOIN fs.course c " +
+           "LEFT JOIN EnrolledCourse ec ON ec.section = cs " +
+           "LEFT JOIN ec.grade g " +
+           "WHERE cs.faculty.facultyID = :facultyId " +
+           "GROUP BY cs.sectionID, cs.sectionName, c.courseCode, c.courseDescription " +
+           "ORDER BY cs.sectionID")
+    List<Object[]> findGradeSummariesByFacultyId(@Param("facultyId") Long facultyId,
+                                                 @Param("passingGrade") BigDecimal passingGrade);
 }
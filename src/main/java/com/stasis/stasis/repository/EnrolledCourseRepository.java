@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -91,4 +93,134 @@ public interface EnrolledCourseRepository extends JpaRepository<EnrolledCourse,
            "LEFT JOIN FETCH ec.grade g " +
            "WHERE sch.course.id = :courseId")
     List<EnrolledCourse> findByCourseId(@Param("courseId") Long courseId);
+
+    // (studentId, sectionId, enrollment scheduleId, covered scheduleId, courseId) for every schedule an enrollment covers
+    @Query("SELECT st.id, s.sectionID, ec.scheduleId, sch.scheduleID, c.id FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "JOIN se.student st " +
+           "JOIN ec.section s " +
+           "LEFT JOIN s.schedules sch " +
+           "LEFT JOIN sch.course c " +
+           "WHERE st.id IN :studentIds " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    List<Object[]> findCoveredSchedulesByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    // (enrolledCourseId, sectionId, enrollment scheduleId, section scheduleId, courseId) for every schedule of every section a student is enrolled in
+    @Query("SELECT ec.enrolledCourseID, s.sectionID, ec.scheduleId, sch.scheduleID, c.id FROM EnrolledCourse ec " +
+           "JOIN ec.section s " +
+           "LEFT JOIN s.schedules sch " +
+           "LEFT JOIN sch.course c " +
+           "WHERE ec.semesterEnrollment.student.id = :studentId")
+    List<Object[]> findIndexRowsByStudentId(@Param("studentId") Long studentId);
+
+    // (scheduleId, day, startTime, endTime) of every schedule a student's enrollments cover in one term
+    @Query("SELECT sch.scheduleID, sch.day, sch.startTime, sch.endTime FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "WHERE se.student.id = :studentId AND se.semester = :semester AND se.academicYear = :academicYear " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    List<Object[]> findScheduleTimesByStudentAndTerm(@Param("studentId") Long studentId,
+                                                     @Param("semester") String semester,
+                                                     @Param("academicYear") String academicYear);
+
+    // IDs of the courses a student has a passing grade in, from the schedules each enrollment covers
+    @Query("SELECT DISTINCT sch.course.id FROM EnrolledCourse ec " +
+           "JOIN ec.grade g " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "WHERE ec.semesterEnrollment.student.id = :studentId AND g.gradeValue >= :passingGrade " +
+           "AND sch.course IS NOT NULL " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    List<Long> findPassedCourseIdsByStudentId(@Param("studentId") Long studentId,
+                                              @Param("passingGrade") BigDecimal passingGrade);
+
+    // (studentId, courseId) of every course the given students have a passing grade in
+    @Query("SELECT DISTINCT ec.semesterEnrollment.student.id, sch.course.id FROM EnrolledCourse ec " +
+           "JOIN ec.grade g " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "WHERE ec.semesterEnrollment.student.id IN :studentIds AND g.gradeValue >= :passingGrade " +
+           "AND sch.course IS NOT NULL " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    List<Object[]> findPassedCourseIdsByStudentIds(@Param("studentIds") Collection<Long> studentIds,
+                                                   @Param("passingGrade") BigDecimal passingGrade);
+
+    // (enrolledCourseId, studentId, sectionId) of the enrollment a grade belongs to
+    @Query("SELECT ec.enrolledCourseID, ec.semesterEnrollment.student.id, s.sectionID FROM EnrolledCourse ec " +
+           "LEFT JOIN ec.section s WHERE ec.grade.gradeID = :gradeId")
+    List<Object[]> findEnrollmentAndStudentByGradeId(@Param("gradeId") Long gradeId);
+
+    // (studentId, courseId, gradeValue) for every course an enrollment of these students covers; gradeValue is null while ungraded
+    @Query("SELECT se.student.id, sch.course.id, g.gradeValue FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "LEFT JOIN ec.grade g " +
+           "WHERE se.student.id IN :studentIds AND sch.course IS NOT NULL " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    List<Object[]> findCourseOutcomesByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    // (enrolledCourseId, studentId, scheduleId, gradeId) of every enrollment in a section; gradeId is null while ungraded
+    @Query("SELECT ec.enrolledCourseID, se.student.id, ec.scheduleId, g.gradeID FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "LEFT JOIN ec.grade g " +
+           "WHERE ec.section.sectionID = :sectionId")
+    List<Object[]> findGradeRowsBySectionId(@Param("sectionId") Long sectionId);
+
+    // Credits an enrollment is worth: the course of its schedule, or every course of the section
+    @Query("SELECT COALESCE(SUM(c.credits), 0) FROM EnrolledCourse ec " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "JOIN sch.course c " +
+           "WHERE ec.enrolledCourseID = :enrolledCourseId " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    Long findCreditsByEnrolledCourseId(@Param("enrolledCourseId") Long enrolledCourseId);
+
+    // (studentId, sum of gradeValue * credits, graded credits, passed credits) over every graded enrollment of the students
+    @Query("SELECT se.student.id, SUM(g.gradeValue * c.credits), SUM(c.credits), " +
+           "SUM(CASE WHEN g.gradeValue >= :passingGrade THEN c.credits ELSE 0 END) FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "JOIN ec.grade g " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "JOIN sch.course c " +
+           "WHERE se.student.id IN :studentIds AND g.gradeValue IS NOT NULL " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID) " +
+           "GROUP BY se.student.id")
+    List<Object[]> findGradeTotalsByStudentIds(@Param("studentIds") Collection<Long> studentIds,
+                                               @Param("passingGrade") BigDecimal passingGrade);
+
+    // The same totals for one student, leaving one enrollment out
+    @Query("SELECT se.student.id, SUM(g.gradeValue * c.credits), SUM(c.credits), " +
+           "SUM(CASE WHEN g.gradeValue >= :passingGrade THEN c.credits ELSE 0 END) FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "JOIN ec.grade g " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "JOIN sch.course c " +
+           "WHERE se.student.id = :studentId AND ec.enrolledCourseID <> :enrolledCourseId AND g.gradeValue IS NOT NULL " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID) " +
+           "GROUP BY se.student.id")
+    List<Object[]> findGradeTotalsByStudentIdExcluding(@Param("studentId") Long studentId,
+                                                       @Param("enrolledCourseId") Long enrolledCourseId,
+                                                       @Param("passingGrade") BigDecimal passingGrade);
+
+    // Transcript lines of the students: (studentId, enrolledCourseId, academicYear, semester, sectionName, status,
+    // courseId, courseCode, courseDescription, credits, gradeValue, midtermGrade, finalGrade, overallGrade, remark, gradeDate)
+    @Query("SELECT se.student.id, ec.enrolledCourseID, se.academicYear, se.semester, s.sectionName, ec.status, " +
+           "c.id, c.courseCode, c.courseDescription, c.credits, " +
+           "g.gradeValue, g.midtermGrade, g.finalGrade, g.overallGrade, g.remark, g.gradeDate FROM EnrolledCourse ec " +
+           "JOIN ec.semesterEnrollment se " +
+           "JOIN ec.section s " +
+           "JOIN s.schedules sch " +
+           "JOIN sch.course c " +
+           "LEFT JOIN ec.grade g " +
+           "WHERE se.student.id IN :studentIds " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = sch.scheduleID)")
+    List<Object[]> findTranscriptRowsByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    // Section of each enrollment, null for enrollments without one
+    @Query("SELECT s.sectionID FROM EnrolledCourse ec LEFT JOIN ec.section s WHERE ec.enrolledCourseID IN :enrollmentIds")
+    List<Long> findSectionIdsByEnrollmentIds(@Param("enrollmentIds") Collection<Long> enrollmentIds);
 }
@@ -2,10 +2,13 @@ package com.stasis.stasis.repository;
 
 import com.stasis.stasis.model.Schedule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,4 +34,64 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
     @Query("SELECT s FROM Schedule s WHERE " +
            "s.startTime >= ?1 AND s.endTime <= ?2")
     List<Schedule> findSchedulesByTimeRange(LocalTime startTime, LocalTime endTime);
-}
\ No newline at end of file
+
+    // (scheduleId, room, day, startTime, endTime, sectionId, facultyId) of every schedule
+    @Query("SELECT s.scheduleID, s.room, s.day, s.startTime, s.endTime, cs.sectionID, f.facultyID FROM Schedule s " +
+           "LEFT JOIN CourseSection cs ON cs.sectionID = s.courseSectionId " +
+           "LEFT JOIN cs.faculty f")
+    List<Object[]> findConflictRows();
+
+    @Query("SELECT s.scheduleID, s.room, s.day, s.startTime, s.endTime, cs.sectionID, f.facultyID FROM Schedule s " +
+           "JOIN CourseSection cs ON cs.sectionID = s.courseSectionId " +
+           "LEFT JOIN cs.faculty f " +
+           "WHERE cs.sectionID IN :sectionIds")
+    List<Object[]> findConflictRowsBySectionIds(@Param("sectionIds") Collection<Long> sectionIds);
+
+    @Query("SELECT s.scheduleID, s.room, s.day, s.startTime, s.endTime, cs.sectionID, f.facultyID FROM Schedule s " +
+           "LEFT JOIN CourseSection cs ON cs.sectionID = s.courseSectionId " +
+           "LEFT JOIN cs.faculty f " +
+           "WHERE s.scheduleID IN :scheduleIds")
+    List<Object[]> findConflictRowsByScheduleIds(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // Schedule capacity, or else the capacity of its section; null or negative means unlimited
+    String EFFECTIVE_CAPACITY =
+           "COALESCE(s.capacity, (SELECT cs.capacity FROM CourseSection cs WHERE cs.sectionID = s.courseSectionId))";
+
+    // Take one seat if the schedule has room. Updates nothing when it is full, and the row lock
+    // makes concurrent takers on any node queue behind each other until commit.
+    @Modifying
+    @Query("UPDATE Schedule s SET s.seatsTaken = COALESCE(s.seatsTaken, 0) + 1 " +
+           "WHERE s.scheduleID = :scheduleId " +
+           "AND (" + EFFECTIVE_CAPACITY + " IS NULL OR " + EFFECTIVE_CAPACITY + " < 0 " +
+           "OR COALESCE(s.seatsTaken, 0) < " + EFFECTIVE_CAPACITY + ")")
+    int takeSeat(@Param("scheduleId") Long scheduleId);
+
+    @Modifying
+    @Query("UPDATE Schedule s SET s.seatsTaken = CASE WHEN COALESCE(s.seatsTaken, 0) > 0 THEN s.seatsTaken - 1 ELSE 0 END " +
+           "WHERE s.scheduleID = :scheduleId")
+    int releaseSeat(@Param("scheduleId") Long scheduleId);
+
+    // Lock the given schedule rows in ID order, ahead of taking seats in them in any order
+    @Query(value = "SELECT schedule_id FROM schedule WHERE schedule_id IN (:scheduleIds) ORDER BY schedule_id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockForSeats(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    @Query("SELECT s.scheduleID FROM Schedule s ORDER BY s.scheduleID")
+    List<Long> findAllIdsOrdered();
+
+    // Seats taken: enrollments bound to the schedule plus section-wide enrollments of its section.
+    // Lock the rows with lockForSeats first so no seat is taken or released half-way.
+    @Modifying
+    @Query("UPDATE Schedule s SET s.seatsTaken = " +
+           "(SELECT COUNT(ec) FROM EnrolledCourse ec WHERE ec.scheduleId = s.scheduleID) + " +
+           "(SELECT COUNT(ec) FROM EnrolledCourse ec WHERE ec.scheduleId IS NULL AND ec.section.sectionID = s.courseSectionId) " +
+           "WHERE s.scheduleID IN :scheduleIds")
+    int recountSeats(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // (scheduleId, effective capacity, seats taken) of the given schedules
+    @Query("SELECT s.scheduleID, " + EFFECTIVE_CAPACITY + ", s.seatsTaken FROM Schedule s WHERE s.scheduleID IN :scheduleIds")
+    List<Object[]> findSeatRows(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    @Query("SELECT s.scheduleID, " + EFFECTIVE_CAPACITY + ", s.seatsTaken FROM Schedule s WHERE s.scheduleID = :scheduleId")
+    List<Object[]> findSeatRow(@Param("scheduleId") Long scheduleId);
+}
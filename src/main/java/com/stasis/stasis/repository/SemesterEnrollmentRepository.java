@@ -2,9 +2,12 @@ package com.stasis.stasis.repository;
 
 import com.stasis.stasis.model.SemesterEnrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,9 +27,46 @@ public interface SemesterEnrollmentRepository extends JpaRepository<SemesterEnro
     
     List<SemesterEnrollment> findBySemesterAndAcademicYear(String semester, String academicYear);
     
+    // (studentId, semesterEnrollmentID) for the given students in one term
+    @Query("SELECT se.student.id, se.semesterEnrollmentID FROM SemesterEnrollment se " +
+           "WHERE se.student.id IN :studentIds AND se.semester = :semester AND se.academicYear = :academicYear")
+    List<Object[]> findEnrollmentIdsForTerm(@Param("studentIds") Collection<Long> studentIds,
+                                            @Param("semester") String semester,
+                                            @Param("academicYear") String academicYear);
+    
     List<SemesterEnrollment> findByAcademicYear(String academicYear);
 
     @Query("SELECT se FROM SemesterEnrollment se WHERE se.status = 'ACTIVE'")
     List<SemesterEnrollment> findActiveEnrollments();
-}
 
+    // Sum of the course credits of every schedule the enrollments of se cover
+    String CREDIT_SUM = "COALESCE((" +
+           "SELECT SUM(c.credits) FROM EnrolledCourse ec, CourseSection cs " +
+           "JOIN cs.schedules s " +
+           "JOIN s.course c " +
+           "WHERE ec.semesterEnrollment = se AND ec.section = cs " +
+           "AND (ec.scheduleId IS NULL OR ec.scheduleId = s.scheduleID)), 0)";
+
+    // Recompute total credits from the course credits of every schedule each enrollment covers
+    @Modifying
+    @Query("UPDATE SemesterEnrollment se SET se.totalCredits = " + CREDIT_SUM + " " +
+           "WHERE se.semesterEnrollmentID IN :ids")
+    int recomputeTotalCredits(@Param("ids") Collection<Long> semesterEnrollmentIds);
+
+    // Fix every semester enrollment whose stored total has drifted; returns the number corrected
+    @Modifying
+    @Query("UPDATE SemesterEnrollment se SET se.totalCredits = " + CREDIT_SUM + " " +
+           "WHERE se.totalCredits <> " + CREDIT_SUM)
+    int reconcileTotalCredits();
+
+    // Add a credit delta in place. With maxCredits > 0 an increase that would go over the limit
+    // updates nothing, so callers can reject the enrollment without reading the total first.
+    @Modifying
+    @Query("UPDATE SemesterEnrollment se SET se.totalCredits = " +
+           "CASE WHEN se.totalCredits + :delta < 0 THEN 0 ELSE se.totalCredits + :delta END " +
+           "WHERE se.semesterEnrollmentID = :id " +
+           "AND (:maxCredits <= 0 OR :delta <= 0 OR se.totalCredits + :delta <= :maxCredits)")
+    int applyCreditDelta(@Param("id") Long semesterEnrollmentId,
+                         @Param("delta") int delta,
+                         @Param("maxCredits") int maxCredits);
+}
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +18,23 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     
     @Query("SELECT COUNT(s) FROM Student s WHERE s.curriculum.curriculumID = :curriculumId")
     Long countStudentsByCurriculumId(@Param("curriculumId") Long curriculumId);
+
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id FROM Student s ORDER BY s.id")
+    List<Long> findAllIds();
+
+    @Query("SELECT s FROM Student s WHERE s.program.programID = :programId")
+    List<Student> findByProgramId(@Param("programId") Long programId);
+
+    // (id, firstName, lastName, yearLevel) of the students of a program or curriculum, optionally one year level
+    @Query("SELECT s.id, s.firstName, s.lastName, s.year_level FROM Student s " +
+           "WHERE (:programId IS NULL OR s.program.programID = :programId) " +
+           "AND (:curriculumId IS NULL OR s.curriculum.curriculumID = :curriculumId) " +
+           "AND (:yearLevel IS NULL OR s.year_level = :yearLevel) " +
+           "ORDER BY s.lastName, s.firstName, s.id")
+    List<Object[]> findCohort(@Param("programId") Long programId,
+                              @Param("curriculumId") Long curriculumId,
+                              @Param("yearLevel") Integer yearLevel);
 }
@@ -0,0 +1,23 @@
+package com.stasis.stasis.repository;
+
+import com.stasis.stasis.model.TranscriptEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TranscriptEntryRepository extends JpaRepository<TranscriptEntry, Long> {
+
+    List<TranscriptEntry> findByStudentIdOrderByAcademicYearAscSemesterAscCourseCodeAsc(Long studentId, Pageable pageable);
+
+    List<TranscriptEntry> findByStudentIdInOrderByStudentIdAscAcademicYearAscSemesterAscCourseCodeAsc(Collection<Long> studentIds);
+
+    // (row count, last refresh) of a student's transcript; together they version it
+    @Query("SELECT COUNT(t), MAX(t.refreshedAt) FROM TranscriptEntry t WHERE t.studentId = :studentId")
+    List<Object[]> findVersionByStudentId(@Param("studentId") Long studentId);
+}
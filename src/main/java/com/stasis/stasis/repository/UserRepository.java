@@ -3,8 +3,15 @@ package com.stasis.stasis.repository;
 import com.stasis.stasis.model.Users;
 import com.stasis.stasis.model.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +21,25 @@ public interface UserRepository extends JpaRepository<Users, Long> {
     boolean existsByUsername(String username);
     List<Users> findByUsernameStartingWith(String prefix);
     Optional<Users> findByFirstNameAndLastNameAndRole(String firstName, String lastName, UserRole role);
+    Optional<Users> findByStudent_Id(Long studentId);
+    Optional<Users> findByFaculty_FacultyID(Long facultyId);
+
+    // (studentId, username) of the accounts linked to the given students
+    @Query("SELECT u.student.id, u.username FROM Users u WHERE u.student.id IN :studentIds")
+    List<Object[]> findUsernamesByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    // (facultyId, username) of the accounts linked to the given faculty members
+    @Query("SELECT u.faculty.facultyID, u.username FROM Users u WHERE u.faculty.facultyID IN :facultyIds")
+    List<Object[]> findUsernamesByFacultyIds(@Param("facultyIds") Collection<Long> facultyIds);
+
+    // Single-column writes, so a login never writes back a stale copy of the rest of the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE Users u SET u.lastLogin = :lastLogin WHERE u.userID = :userId")
+    int updateLastLogin(@Param("userId") Long userId, @Param("lastLogin") LocalDateTime lastLogin);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Users u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
 }
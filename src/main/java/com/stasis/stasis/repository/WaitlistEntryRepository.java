@@ -0,0 +1,38 @@
+package com.stasis.stasis.repository;
+
+import com.stasis.stasis.model.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Queue order: highest year level first, then request time
+    String QUEUE_ORDER = " ORDER BY COALESCE(w.yearLevel, 0) DESC, w.requestedAt, w.waitlistEntryID";
+
+    List<WaitlistEntry> findByStatus(String status);
+
+    List<WaitlistEntry> findByStudentIdOrderByRequestedAtDesc(Long studentId);
+
+    Optional<WaitlistEntry> findByStudentIdAndScheduleIdAndStatus(Long studentId, Long scheduleId, String status);
+
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.scheduleId = :scheduleId AND w.status = :status" + QUEUE_ORDER)
+    List<WaitlistEntry> findQueue(@Param("scheduleId") Long scheduleId, @Param("status") String status);
+
+    // Locks the queue heads it returns, so a concurrent cancel waits and then sees them resolved
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.scheduleId = :scheduleId AND w.status = :status" + QUEUE_ORDER)
+    List<WaitlistEntry> lockQueueHeads(@Param("scheduleId") Long scheduleId, @Param("status") String status, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.waitlistEntryID = :id")
+    Optional<WaitlistEntry> lockById(@Param("id") Long id);
+}
@@ -3,18 +3,63 @@ package com.stasis.stasis.service;
 import com.stasis.stasis.model.AcademicRecord;
 import com.stasis.stasis.model.Student;
 import com.stasis.stasis.repository.AcademicRecordRepository;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Keeps each student's AcademicRecord (GA, earned credits, standing) current as grades are written.
+ *
+ * The record stores the running credit-weighted sum of grade values and the graded credits, so a
+ * grade write only applies the difference between the old and the new value, under a row lock on
+ * the record, in the writer's transaction. Bulk writes recompute the affected students from one
+ * aggregate query instead, and a nightly job reconciles every record in parallel chunks.
+ */
 @Service
 public class AcademicRecordService {
 
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String UPDATE_TOTALS_SQL =
+        "UPDATE academic_record SET weighted_grade_sum = ?, graded_credits = ?, total_credits = ?, ga = ?, " +
+        "academic_standing = ? WHERE student_id = ?";
+
     @Autowired
     private AcademicRecordRepository academicRecordRepository;
 
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Each chunk holds one database connection while it runs, so keep this below the pool size
+    @Value("${stasis.academic-records.reconcile-threads:4}")
+    private int reconcileThreads;
+
     public List<AcademicRecord> getAllRecords() {
         return academicRecordRepository.findAll();
     }
@@ -27,6 +72,10 @@ public class AcademicRecordService {
         return academicRecordRepository.findByStudent(student);
     }
 
+    public Optional<AcademicRecord> getRecordByStudentId(Long studentId) {
+        return academicRecordRepository.findByStudent_Id(studentId);
+    }
+
     public AcademicRecord createRecord(AcademicRecord record) {
         return academicRecordRepository.save(record);
     }
@@ -51,4 +100,203 @@ public class AcademicRecordService {
         Optional<AcademicRecord> record = academicRecordRepository.findByStudent(student);
         record.ifPresent(academicRecordRepository::delete);
     }
+
+    /**
+     * Apply the change of one enrollment's grade value to the student's record. Must run before
+     * the enrollment itself is deleted, since its credits are read from it.
+     */
+    @Transactional
+    public void applyGradeChange(Long studentId, Long enrolledCourseId, BigDecimal oldValue, BigDecimal newValue) {
+        if (studentId == null || enrolledCourseId == null || sameValue(oldValue, newValue)) {
+            return;
+        }
+        Long credits = enrolledCourseRepository.findCreditsByEnrolledCourseId(enrolledCourseId);
+        if (credits == null || credits == 0) {
+            return;
+        }
+        Map<Long, Totals> locked = lockTotals(List.of(studentId));
+        if (!locked.containsKey(studentId)) {
+            return;
+        }
+        Totals current = locked.get(studentId);
+        if (current == null) {
+            // Record written before the running sums existed. Callers apply the change to the
+            // enrollment before or after this call, so build the sums without it and add the new value
+            List<Object[]> rows = enrolledCourseRepository.findGradeTotalsByStudentIdExcluding(
+                studentId, enrolledCourseId, GradeService.PASSING_GRADE);
+            Totals others = rows.isEmpty() ? Totals.ZERO : toTotals(rows.get(0));
+            writeTotals(Map.of(studentId, others.plus(newValue, credits.intValue())));
+            return;
+        }
+        writeTotals(Map.of(studentId, current.minus(oldValue, credits.intValue()).plus(newValue, credits.intValue())));
+    }
+
+    /**
+     * Fill in the running sums of records written before they existed, so grade writes only ever
+     * apply deltas. Runs once per record; later starts find nothing to do.
+     */
+    @PostConstruct
+    public void backfillTotals() {
+        List<Long> studentIds = jdbcTemplate.queryForList(
+            "SELECT student_id FROM academic_record WHERE weighted_grade_sum IS NULL AND student_id IS NOT NULL", Long.class);
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < studentIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = studentIds.subList(from, Math.min(from + CHUNK_SIZE, studentIds.size()));
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Map<Long, Totals> locked = lockTotals(chunk);
+                writeTotals(loadTotals(locked.keySet()));
+            });
+        }
+        System.out.println("AcademicRecordService: backfilled running sums of " + studentIds.size() + " academic records");
+    }
+
+    /**
+     * Recompute the records of these students from their graded enrollments.
+     */
+    @Transactional
+    public void recomputeStudents(Collection<Long> studentIds) {
+        List<Long> ids = studentIds.stream().filter(id -> id != null).distinct().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, Totals> locked = lockTotals(ids);
+        Map<Long, Totals> actual = loadTotals(locked.keySet());
+        writeTotals(actual);
+    }
+
+    /**
+     * Recompute every record from the grade rows and fix the ones that drifted; returns how many
+     * were wrong. Chunks of students run in parallel, each in its own transaction.
+     */
+    @Scheduled(cron = "${stasis.academic-records.reconcile-cron:0 0 3 * * *}")
+    public int reconcile() {
+        List<Long> studentIds = academicRecordRepository.findAllStudentIds();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, reconcileThreads));
+        try {
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            for (int from = 0; from < studentIds.size(); from += CHUNK_SIZE) {
+                List<Long> chunk = studentIds.subList(from, Math.min(from + CHUNK_SIZE, studentIds.size()));
+                chunks.add(CompletableFuture.supplyAsync(() ->
+                    new TransactionTemplate(transactionManager).execute(status -> reconcileChunk(chunk)), executor));
+            }
+            int corrected = chunks.stream().mapToInt(CompletableFuture::join).sum();
+            System.out.println("AcademicRecordService: corrected " + corrected + " of " + studentIds.size() + " academic records");
+            return corrected;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int reconcileChunk(List<Long> studentIds) {
+        // Locking first means a concurrent grade write either lands before the aggregate is read or
+        // applies its delta on top of the corrected totals afterwards
+        Map<Long, Totals> stored = lockTotals(studentIds);
+        Map<Long, Totals> actual = loadTotals(stored.keySet());
+        Map<Long, Totals> drifted = new HashMap<>();
+        actual.forEach((studentId, totals) -> {
+            if (!totals.equals(stored.get(studentId))) {
+                drifted.put(studentId, totals);
+            }
+        });
+        writeTotals(drifted);
+        return drifted.size();
+    }
+
+    /**
+     * Lock the records of these students and read their stored sums; a student whose record has
+     * no sums yet maps to null, a student without a record is left out.
+     */
+    private Map<Long, Totals> lockTotals(List<Long> studentIds) {
+        String placeholders = String.join(", ", Collections.nCopies(studentIds.size(), "?"));
+        Map<Long, Totals> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT student_id, weighted_grade_sum, graded_credits, total_credits FROM academic_record " +
+                           "WHERE student_id IN (" + placeholders + ") FOR UPDATE",
+            rs -> {
+                BigDecimal weightedSum = rs.getBigDecimal(2);
+                int gradedCredits = rs.getInt(3);
+                boolean known = weightedSum != null && !rs.wasNull();
+                totals.put(rs.getLong(1), known ? new Totals(weightedSum, gradedCredits, rs.getInt(4)) : null);
+            },
+            studentIds.toArray());
+        return totals;
+    }
+
+    private Map<Long, Totals> loadTotals(Collection<Long> studentIds) {
+        Map<Long, Totals> totals = new HashMap<>();
+        if (studentIds.isEmpty()) {
+            return totals;
+        }
+        studentIds.forEach(id -> totals.put(id, Totals.ZERO));
+        for (Object[] row : enrolledCourseRepository.findGradeTotalsByStudentIds(studentIds, GradeService.PASSING_GRADE)) {
+            totals.put((Long) row[0], toTotals(row));
+        }
+        return totals;
+    }
+
+    // (studentId, weighted sum, graded credits, passed credits)
+    private static Totals toTotals(Object[] row) {
+        return new Totals((BigDecimal) row[1], ((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+    }
+
+    private void writeTotals(Map<Long, Totals> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Totals>> rows = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_TOTALS_SQL, rows, CHUNK_SIZE, (ps, row) -> {
+            Totals value = row.getValue();
+            ps.setBigDecimal(1, value.weightedSum());
+            ps.setInt(2, value.gradedCredits());
+            ps.setInt(3, value.earnedCredits());
+            ps.setDouble(4, value.average());
+            ps.setString(5, value.standing());
+            ps.setLong(6, row.getKey());
+        });
+    }
+
+    private static boolean sameValue(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * Credit-weighted sums of a student's graded enrollments.
+     */
+    private record Totals(BigDecimal weightedSum, int gradedCredits, int earnedCredits) {
+        private static final Totals ZERO = new Totals(BigDecimal.ZERO, 0, 0);
+
+        private Totals {
+            weightedSum = (weightedSum != null ? weightedSum : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        private Totals plus(BigDecimal gradeValue, int credits) {
+            if (gradeValue == null) {
+                return this;
+            }
+            return new Totals(weightedSum.add(gradeValue.multiply(BigDecimal.valueOf(credits))), gradedCredits + credits,
+                              earnedCredits + (isPassing(gradeValue) ? credits : 0));
+        }
+
+        private Totals minus(BigDecimal gradeValue, int credits) {
+            if (gradeValue == null) {
+                return this;
+            }
+            return new Totals(weightedSum.subtract(gradeValue.multiply(BigDecimal.valueOf(credits))), gradedCredits - credits,
+                              earnedCredits - (isPassing(gradeValue) ? credits : 0));
+        }
+
+        private double average() {
+            return gradedCredits <= 0 ? 0.0 :
+                   weightedSum.divide(BigDecimal.valueOf(gradedCredits), 2, RoundingMode.HALF_UP).doubleValue();
+        }
+
+        private String standing() {
+            return gradedCredits > 0 && !isPassing(BigDecimal.valueOf(average())) ? "Probation" : "Good";
+        }
+
+        private static boolean isPassing(BigDecimal gradeValue) {
+            return gradeValue.compareTo(GradeService.PASSING_GRADE) >= 0;
+        }
+    }
 }
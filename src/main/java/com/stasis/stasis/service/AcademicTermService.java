@@ -0,0 +1,265 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.model.SemesterEnrollment;
+import com.stasis.stasis.model.Student;
+import com.stasis.stasis.repository.SemesterEnrollmentRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the current academic term and each student's semester enrollment for it.
+ *
+ * The term comes from {@code stasis.term.academic-year} / {@code stasis.term.semester}. Lookups go
+ * through the unique (student, semester, academic year) key and the resulting IDs are cached per
+ * student; evictions reach the other nodes through {@link CacheInvalidationService}. Missing rows are created with INSERT ... ON CONFLICT DO NOTHING so concurrent first
+ * enrollments of the same student end up sharing one row.
+ *
+ * ddl-auto cannot add the unique key to a table that already holds duplicates. Startup only
+ * reports whether the key is missing and how many duplicates stand in its way; an admin merges them
+ * into the oldest row of their key and adds the constraint with {@link #mergeDuplicates()}. Until
+ * then rows are created with a NOT EXISTS guard instead, which is not race-free.
+ *
+ * Only rows created here get a status; an existing row is returned as it is, so a dropped or
+ * inactive term enrollment stays that way.
+ */
+@Service
+public class AcademicTermService {
+
+    private static final String INSERT_IF_ABSENT_SQL =
+        "INSERT INTO semester_enrollment (studentid, semester, academic_year, status, date_enrolled, total_credits) " +
+        "VALUES (?, ?, ?, 'ACTIVE', ?, 0) " +
+        "ON CONFLICT (studentid, semester, academic_year) DO NOTHING";
+
+    private static final String INSERT_IF_NOT_EXISTS_SQL =
+        "INSERT INTO semester_enrollment (studentid, semester, academic_year, status, date_enrolled, total_credits) " +
+        "SELECT ?, ?, ?, 'ACTIVE', ?, 0 WHERE NOT EXISTS (" +
+        "SELECT 1 FROM semester_enrollment WHERE studentid = ? AND semester = ? AND academic_year = ?)";
+
+    private static final String UNIQUE_KEY = "uk_semester_enrollment_student_term";
+
+    // Every row that shares its key with an older row, paired with the oldest row of the key
+    private static final String DUPLICATES_SQL =
+        "SELECT id, keep_id FROM (SELECT semester_enrollmentid AS id, " +
+        "MIN(semester_enrollmentid) OVER (PARTITION BY studentid, semester, academic_year) AS keep_id " +
+        "FROM semester_enrollment WHERE semester IS NOT NULL AND academic_year IS NOT NULL) keyed " +
+        "WHERE id <> keep_id";
+
+    private static final int BATCH_SIZE = 500;
+
+    /** Channel of {@link CacheInvalidationService}, keyed "s" + student ID or "e" + semester enrollment ID. */
+    public static final String CACHE = "term-enrollments";
+
+    @Autowired
+    private SemesterEnrollmentRepository semesterEnrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Value("${stasis.term.academic-year:2024-2025}")
+    private String currentAcademicYear;
+
+    @Value("${stasis.term.semester:1}")
+    private String currentSemester;
+
+    // studentId -> current-term semesterEnrollmentID
+    private final Map<Long, Long> currentEnrollmentIds = new ConcurrentHashMap<>();
+
+    private volatile boolean uniqueKeyPresent;
+
+    /**
+     * Warn when the unique key is missing; fixing it is left to {@link #mergeDuplicates()}.
+     */
+    @PostConstruct
+    public void checkUniqueKey() {
+        cacheInvalidationService.register(CACHE, key -> {
+            if (CacheInvalidationService.ALL.equals(key)) {
+                currentEnrollmentIds.clear();
+            } else if (key.startsWith("s")) {
+                currentEnrollmentIds.remove(Long.valueOf(key.substring(1)));
+            } else {
+                Long semesterEnrollmentId = Long.valueOf(key.substring(1));
+                currentEnrollmentIds.values().removeIf(semesterEnrollmentId::equals);
+            }
+        });
+        uniqueKeyPresent = hasUniqueKey();
+        if (uniqueKeyPresent) {
+            return;
+        }
+        Integer duplicates = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + DUPLICATES_SQL + ") d", Integer.class);
+        System.err.println("AcademicTermService: " + UNIQUE_KEY + " is missing and " + duplicates + " duplicate semester " +
+                           "enrollments stand in its way; creating semester enrollments without it until an admin runs " +
+                           "POST /api/semester-enrollments/merge-duplicates");
+    }
+
+    /**
+     * One-off migration: merge duplicate semester enrollments into the oldest row of their key,
+     * moving their enrolled courses along, and add the unique key they prevented.
+     */
+    public Map<String, Object> mergeDuplicates() {
+        if (hasUniqueKey()) {
+            uniqueKeyPresent = true;
+            return Map.of("mergedEnrollments", 0, "movedCourses", 0, "uniqueKey", UNIQUE_KEY);
+        }
+        Map<String, Object> result = new TransactionTemplate(transactionManager).execute(status -> {
+            // Keeps new duplicates from being inserted between the merge and the ALTER
+            jdbcTemplate.execute("LOCK TABLE semester_enrollment IN SHARE ROW EXCLUSIVE MODE");
+            List<Long> keptIds = jdbcTemplate.queryForList("SELECT DISTINCT keep_id FROM (" + DUPLICATES_SQL + ") d", Long.class);
+            int moved = jdbcTemplate.update("UPDATE enrolled_course ec SET semester_enrollmentid = d.keep_id " +
+                "FROM (" + DUPLICATES_SQL + ") d WHERE ec.semester_enrollmentid = d.id");
+            int merged = jdbcTemplate.update("DELETE FROM semester_enrollment se " +
+                "USING (" + DUPLICATES_SQL + ") d WHERE se.semester_enrollmentid = d.id");
+            if (!keptIds.isEmpty()) {
+                semesterEnrollmentRepository.recomputeTotalCredits(keptIds);
+            }
+            jdbcTemplate.execute("ALTER TABLE semester_enrollment ADD CONSTRAINT " + UNIQUE_KEY +
+                " UNIQUE (studentid, semester, academic_year)");
+            cacheInvalidationService.publish(CACHE, CacheInvalidationService.ALL);
+            return Map.<String, Object>of("mergedEnrollments", merged, "movedCourses", moved, "uniqueKey", UNIQUE_KEY);
+        });
+        uniqueKeyPresent = true;
+        currentEnrollmentIds.clear();
+        System.out.println("AcademicTermService: merged " + result.get("mergedEnrollments") + " duplicate semester enrollments (" +
+                           result.get("movedCourses") + " enrolled courses moved) and added " + UNIQUE_KEY);
+        return result;
+    }
+
+    public String getCurrentAcademicYear() {
+        return currentAcademicYear;
+    }
+
+    public String getCurrentSemester() {
+        return currentSemester;
+    }
+
+    /**
+     * Find the student's semester enrollment for the current term, creating it if needed.
+     */
+    @Transactional
+    public SemesterEnrollment findOrCreateCurrentEnrollment(Student student) {
+        Long cachedId = currentEnrollmentIds.get(student.getId());
+        if (cachedId != null) {
+            Optional<SemesterEnrollment> cached = semesterEnrollmentRepository.findById(cachedId);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            currentEnrollmentIds.remove(student.getId(), cachedId);
+        }
+
+        Optional<SemesterEnrollment> existing = findCurrent(student.getId());
+        if (existing.isEmpty()) {
+            insertIfAbsent(List.of(student.getId()), Date.valueOf(LocalDate.now()));
+            existing = findCurrent(student.getId());
+            System.out.println("Created semester enrollment for student " + student.getId() +
+                               " in " + currentAcademicYear + " semester " + currentSemester);
+        }
+
+        SemesterEnrollment enrollment = existing
+            .orElseThrow(() -> new RuntimeException("Could not create semester enrollment for student " + student.getId()));
+        currentEnrollmentIds.put(student.getId(), enrollment.getSemesterEnrollmentID());
+        return enrollment;
+    }
+
+    /**
+     * Current-term semester enrollment IDs for many students, creating the missing rows in one batch.
+     */
+    @Transactional
+    public Map<Long, Long> resolveCurrentEnrollmentIds(Collection<Long> studentIds) {
+        Map<Long, Long> ids = new HashMap<>();
+        List<Long> uncached = new ArrayList<>();
+        for (Long studentId : studentIds) {
+            Long cachedId = currentEnrollmentIds.get(studentId);
+            if (cachedId != null) {
+                ids.put(studentId, cachedId);
+            } else {
+                uncached.add(studentId);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return ids;
+        }
+
+        Map<Long, Long> found = findCurrentIds(uncached);
+        List<Long> missing = uncached.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            insertIfAbsent(missing, Date.valueOf(LocalDate.now()));
+            found.putAll(findCurrentIds(missing));
+        }
+
+        currentEnrollmentIds.putAll(found);
+        ids.putAll(found);
+        return ids;
+    }
+
+    /**
+     * Forget cached enrollment IDs, e.g. after a semester enrollment or student is deleted.
+     */
+    public void evictStudent(Long studentId) {
+        cacheInvalidationService.publish(CACHE, "s" + studentId);
+        currentEnrollmentIds.remove(studentId);
+    }
+
+    public void evictEnrollment(Long semesterEnrollmentId) {
+        cacheInvalidationService.publish(CACHE, "e" + semesterEnrollmentId);
+        currentEnrollmentIds.values().removeIf(semesterEnrollmentId::equals);
+    }
+
+    private void insertIfAbsent(List<Long> studentIds, Date today) {
+        if (!uniqueKeyPresent) {
+            // The key may have been added since, by an admin on this or another node
+            uniqueKeyPresent = hasUniqueKey();
+        }
+        boolean onConflict = uniqueKeyPresent;
+        jdbcTemplate.batchUpdate(onConflict ? INSERT_IF_ABSENT_SQL : INSERT_IF_NOT_EXISTS_SQL, studentIds, BATCH_SIZE, (ps, studentId) -> {
+            ps.setLong(1, studentId);
+            ps.setString(2, currentSemester);
+            ps.setString(3, currentAcademicYear);
+            ps.setDate(4, today);
+            if (!onConflict) {
+                ps.setLong(5, studentId);
+                ps.setString(6, currentSemester);
+                ps.setString(7, currentAcademicYear);
+            }
+        });
+    }
+
+    private boolean hasUniqueKey() {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, UNIQUE_KEY);
+        return count != null && count > 0;
+    }
+
+    private Optional<SemesterEnrollment> findCurrent(Long studentId) {
+        return semesterEnrollmentRepository.findByStudent_IdAndSemesterAndAcademicYear(
+            studentId, currentSemester, currentAcademicYear);
+    }
+
+    private Map<Long, Long> findCurrentIds(Collection<Long> studentIds) {
+        Map<Long, Long> ids = new HashMap<>();
+        for (Object[] row : semesterEnrollmentRepository.findEnrollmentIdsForTerm(studentIds, currentSemester, currentAcademicYear)) {
+            ids.put((Long) row[0], (Long) row[1]);
+        }
+        return ids;
+    }
+}
@@ -2,23 +2,27 @@ package com.stasis.stasis.service;
 
 import com.stasis.stasis.dto.LoginRequest;
 import com.stasis.stasis.dto.LoginResponse;
+import com.stasis.stasis.dto.PrincipalContext;
 import com.stasis.stasis.model.Users;
 import com.stasis.stasis.model.Student;
 import com.stasis.stasis.model.Faculty;
 import com.stasis.stasis.repository.UserRepository;
 import com.stasis.stasis.repository.StudentRepository;
 import com.stasis.stasis.repository.FacultyRepository;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.List;
 
 @Service
 public class AuthService {
@@ -35,6 +39,9 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private PrincipalContextService principalContextService;
+
     public LoginResponse loginUser(LoginRequest loginRequest) {
         try {
             String requestedUsername = loginRequest.getUsername();
@@ -72,11 +79,18 @@ public class AuthService {
             }
 
             // Authenticate with Spring Security
+            PrincipalContext principalContext;
             try {
                 Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(requestedUsername, requestedPassword)
                 );
                 
+                // Resolve the user's identity once; authorization checks read it from the session
+                principalContext = principalContextService.build(requestedUsername);
+                if (authentication instanceof AbstractAuthenticationToken token) {
+                    token.setDetails(principalContext);
+                }
+                
                 // IMPORTANT: Set the security context BEFORE any other operations
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 
@@ -98,7 +112,7 @@ public class AuthService {
 
             // Update last login timestamp
             user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            userRepository.updateLastLogin(user.getUserID(), user.getLastLogin());
 
             // Build successful response
             LoginResponse.LoginResponseBuilder responseBuilder = LoginResponse.builder()
@@ -114,8 +128,9 @@ public class AuthService {
             // Add role-specific data
             switch (user.getRole()) {
                 case STUDENT:
-                    Optional<Student> studentOpt = studentRepository.findByFirstNameAndLastName(
-                        user.getFirstName(), user.getLastName());
+                    Optional<Student> studentOpt = principalContext.getStudentId() != null
+                        ? studentRepository.findById(principalContext.getStudentId())
+                        : Optional.empty();
                     
                     if (studentOpt.isPresent()) {
                         Student student = studentOpt.get();
@@ -130,11 +145,12 @@ public class AuthService {
                     break;
 
                 case FACULTY:
-                    List<Faculty> facultyList = facultyRepository.findByFirstNameAndLastName(
-                        user.getFirstName(), user.getLastName());
+                    Optional<Faculty> facultyOpt = principalContext.getFacultyId() != null
+                        ? facultyRepository.findById(principalContext.getFacultyId())
+                        : Optional.empty();
                     
-                    if (!facultyList.isEmpty()) {
-                        Faculty faculty = facultyList.get(0); // Get the first match
+                    if (facultyOpt.isPresent()) {
+                        Faculty faculty = facultyOpt.get();
                         responseBuilder
                             .facultyId(faculty.getFacultyID())
                             .position(faculty.getPosition())
@@ -155,6 +171,9 @@ public class AuthService {
             System.out.println("Auth: Successful login for " + requestedUsername + " (" + user.getRole() + ")");
             return responseBuilder.build();
 
+        } catch (PasswordHashingService.BusyException e) {
+            // Answered with 503 so the client retries instead of treating it as a failed login
+            throw e;
         } catch (Exception e) {
             System.err.println("Auth: Unexpected error during login - " + e.getMessage());
             e.printStackTrace();
@@ -165,9 +184,23 @@ public class AuthService {
         }
     }
     
+    /**
+     * Log the current user out: revokes every token issued to the account so far, on every
+     * node, and ends the HTTP session.
+     */
     public LoginResponse logoutUser() {
         try {
+            PrincipalContext context = principalContextService.current();
+            if (context != null) {
+                principalContextService.userChanged(context.getUserId());
+            }
             SecurityContextHolder.clearContext();
+            if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                HttpSession session = attributes.getRequest().getSession(false);
+                if (session != null) {
+                    session.invalidate();
+                }
+            }
             return LoginResponse.builder()
                 .success(true)
                 .message("Logout successful")
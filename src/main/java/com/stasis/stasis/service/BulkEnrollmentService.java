@@ -0,0 +1,323 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.BulkEnrollmentItemDTO;
+import com.stasis.stasis.dto.BulkEnrollmentRequestDTO;
+import com.stasis.stasis.dto.BulkEnrollmentResultDTO;
+import com.stasis.stasis.dto.BulkEnrollmentResultDTO.RowResult;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.repository.CourseSectionRepository;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import com.stasis.stasis.repository.ScheduleRepository;
+import com.stasis.stasis.repository.SemesterEnrollmentRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Enrolls many (student, section/schedule) pairs at once.
+ *
+ * All validation runs against a handful of set-based queries, new rows are written with JDBC
+ * batch inserts and each affected semester enrollment has its credits recomputed once. Rows are
+ * held to the same prerequisite and timetable rules as single enrollments, and a row also
+ * conflicts with the rows accepted before it for the same student.
+ */
+@Service
+public class BulkEnrollmentService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_ENROLLED_COURSE_SQL =
+        "INSERT INTO enrolled_course (semester_enrollmentid, sectionid, status, schedule_id) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseSectionRepository courseSectionRepository;
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private PrerequisiteGraphService prerequisiteGraphService;
+
+    @Autowired
+    private SemesterEnrollmentRepository semesterEnrollmentRepository;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY')")
+    @Transactional
+    public BulkEnrollmentResultDTO enroll(BulkEnrollmentRequestDTO request) {
+        List<BulkEnrollmentItemDTO> items = request.getEnrollments() != null ? request.getEnrollments() : List.of();
+        String status = request.getStatus() != null ? request.getStatus() : "Enrolled";
+        return enrollRows(items, status);
+    }
+
+    /**
+     * Enroll the rows without checking who asks, for callers that decided that already, such as
+     * waitlist promotion.
+     */
+    @Transactional
+    public BulkEnrollmentResultDTO enrollRows(List<BulkEnrollmentItemDTO> items, String status) {
+        System.out.println("=== Bulk enrollment of " + items.size() + " rows ===");
+
+        // --- Collect every ID referenced by the request ---
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> scheduleIds = new HashSet<>();
+        Set<Long> sectionIds = new HashSet<>();
+        for (BulkEnrollmentItemDTO item : items) {
+            if (item == null) continue;
+            if (item.getStudentId() != null) studentIds.add(item.getStudentId());
+            if (item.getScheduleId() != null) {
+                scheduleIds.add(item.getScheduleId());
+            } else if (item.getSectionId() != null) {
+                sectionIds.add(item.getSectionId());
+            }
+        }
+
+        // --- Set-based lookups ---
+        Set<Long> existingStudents = studentIds.isEmpty() ? Set.of()
+            : new HashSet<>(studentRepository.findExistingIds(studentIds));
+        Set<Long> existingSections = sectionIds.isEmpty() ? Set.of()
+            : new HashSet<>(courseSectionRepository.findExistingIds(sectionIds));
+
+        Map<Long, ScheduleCourse> schedulesById = new HashMap<>();
+        if (!scheduleIds.isEmpty()) {
+            for (Object[] row : courseSectionRepository.findScheduleCoursesByScheduleIds(scheduleIds)) {
+                ScheduleCourse scheduleCourse = ScheduleCourse.of(row);
+                schedulesById.put(scheduleCourse.scheduleId(), scheduleCourse);
+            }
+        }
+        Map<Long, List<ScheduleCourse>> schedulesBySection = new HashMap<>();
+        if (!sectionIds.isEmpty()) {
+            for (Object[] row : courseSectionRepository.findScheduleCoursesBySectionIds(sectionIds)) {
+                ScheduleCourse scheduleCourse = ScheduleCourse.of(row);
+                schedulesBySection.computeIfAbsent(scheduleCourse.sectionId(), id -> new ArrayList<>()).add(scheduleCourse);
+            }
+        }
+
+        Map<Long, Coverage> coverageByStudent = new HashMap<>();
+        if (!existingStudents.isEmpty()) {
+            for (Object[] row : enrolledCourseRepository.findCoveredSchedulesByStudentIds(existingStudents)) {
+                Coverage coverage = coverageByStudent.computeIfAbsent((Long) row[0], id -> new Coverage());
+                coverage.sectionIds.add((Long) row[1]);
+                if (row[4] != null) coverage.courseIds.add((Long) row[4]);
+            }
+        }
+
+        // Rows take seats in request order, so lock all of them up front in one consistent order
+        Set<Long> lockedScheduleIds = new HashSet<>(schedulesById.keySet());
+        schedulesBySection.values().forEach(schedules -> schedules.forEach(schedule -> lockedScheduleIds.add(schedule.scheduleId())));
+        seatReservationService.lockSchedules(lockedScheduleIds);
+
+        // Prerequisites of every course each student asks for, checked in one pass
+        Map<Long, Set<Long>> requestedCourseIds = new HashMap<>();
+        for (BulkEnrollmentItemDTO item : items) {
+            if (item == null || !existingStudents.contains(item.getStudentId())) continue;
+            List<ScheduleCourse> requested = item.getScheduleId() != null
+                ? (schedulesById.containsKey(item.getScheduleId()) ? List.of(schedulesById.get(item.getScheduleId())) : List.of())
+                : schedulesBySection.getOrDefault(item.getSectionId(), List.of());
+            requested.stream().map(ScheduleCourse::courseId).filter(Objects::nonNull)
+                .forEach(courseId -> requestedCourseIds.computeIfAbsent(item.getStudentId(), id -> new HashSet<>()).add(courseId));
+        }
+        Map<Long, Map<Long, List<Long>>> missingPrerequisites = prerequisiteGraphService.findMissingPrerequisites(requestedCourseIds);
+
+        Map<Long, Schedule> scheduleTimes = new HashMap<>();
+        scheduleRepository.findAllById(lockedScheduleIds).forEach(schedule -> scheduleTimes.put(schedule.getScheduleID(), schedule));
+        // Each student's current-term timetable, grown by the rows accepted so far
+        Map<Long, WeeklyTimetable> timetables = new HashMap<>();
+
+        // --- Validate every row in memory and hold seats for the accepted ones ---
+        RowResult[] results = new RowResult[items.size()];
+        List<PendingRow> accepted = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkEnrollmentItemDTO item = items.get(i);
+            RowResult.RowResultBuilder result = RowResult.builder().row(i);
+            if (item == null) {
+                results[i] = result.result(BulkEnrollmentResultDTO.FAILED).message("Empty row").build();
+                continue;
+            }
+            result.studentId(item.getStudentId()).sectionId(item.getSectionId()).scheduleId(item.getScheduleId());
+
+            if (item.getStudentId() == null || !existingStudents.contains(item.getStudentId())) {
+                results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                    .message("Student not found with ID: " + item.getStudentId()).build();
+                continue;
+            }
+            Coverage coverage = coverageByStudent.computeIfAbsent(item.getStudentId(), id -> new Coverage());
+
+            Long sectionId;
+            List<Long> seatScheduleIds;
+            List<Long> courseIds;
+            if (item.getScheduleId() != null) {
+                ScheduleCourse schedule = schedulesById.get(item.getScheduleId());
+                if (schedule == null) {
+                    results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                        .message("No section found containing schedule: " + item.getScheduleId()).build();
+                    continue;
+                }
+                if (item.getSectionId() != null && !item.getSectionId().equals(schedule.sectionId())) {
+                    results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                        .message("Schedule " + item.getScheduleId() + " does not belong to section " + item.getSectionId()).build();
+                    continue;
+                }
+                if (schedule.courseId() == null) {
+                    results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                        .message("Schedule " + item.getScheduleId() + " does not have a course assigned").build();
+                    continue;
+                }
+                sectionId = schedule.sectionId();
+                seatScheduleIds = List.of(schedule.scheduleId());
+                courseIds = List.of(schedule.courseId());
+            } else if (item.getSectionId() != null) {
+                if (!existingSections.contains(item.getSectionId())) {
+                    results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                        .message("Course section not found with ID: " + item.getSectionId()).build();
+                    continue;
+                }
+                List<ScheduleCourse> sectionSchedules = schedulesBySection.getOrDefault(item.getSectionId(), List.of());
+                if (coverage.sectionIds.contains(item.getSectionId())) {
+                    results[i] = result.result(BulkEnrollmentResultDTO.SKIPPED)
+                        .message("Student is already enrolled in this course section").build();
+                    continue;
+                }
+                sectionId = item.getSectionId();
+                seatScheduleIds = sectionSchedules.stream().map(ScheduleCourse::scheduleId).toList();
+                courseIds = sectionSchedules.stream().map(ScheduleCourse::courseId).filter(Objects::nonNull).distinct().toList();
+            } else {
+                results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                    .message("Either scheduleId or sectionId must be provided").build();
+                continue;
+            }
+
+            if (courseIds.stream().anyMatch(coverage.courseIds::contains)) {
+                results[i] = result.result(BulkEnrollmentResultDTO.SKIPPED)
+                    .message("Student is already enrolled in this course").build();
+                continue;
+            }
+
+            Map<Long, List<Long>> studentMissing = missingPrerequisites.getOrDefault(item.getStudentId(), Map.of());
+            Long blockedCourseId = courseIds.stream().filter(studentMissing::containsKey).findFirst().orElse(null);
+            if (blockedCourseId != null) {
+                results[i] = result.result(BulkEnrollmentResultDTO.FAILED)
+                    .message("Missing prerequisites for course " + blockedCourseId + ": courses " + studentMissing.get(blockedCourseId)).build();
+                continue;
+            }
+
+            WeeklyTimetable timetable = timetables.computeIfAbsent(item.getStudentId(), studentEnrollmentIndexService::getTimetable);
+            String conflict = null;
+            for (Long scheduleId : seatScheduleIds) {
+                Schedule schedule = scheduleTimes.get(scheduleId);
+                Long conflictingId = schedule != null ? timetable.findOverlap(schedule) : null;
+                if (conflictingId != null) {
+                    conflict = "Time conflict: schedule " + scheduleId + " overlaps schedule " + conflictingId + " in the student's timetable";
+                    break;
+                }
+            }
+            if (conflict != null) {
+                results[i] = result.result(BulkEnrollmentResultDTO.FAILED).message(conflict).build();
+                continue;
+            }
+
+            try {
+                seatReservationService.reserveSeats(seatScheduleIds);
+            } catch (RuntimeException e) {
+                results[i] = result.result(BulkEnrollmentResultDTO.FAILED).message(e.getMessage()).build();
+                continue;
+            }
+
+            // Later rows of the same request must see this enrollment as a duplicate
+            coverage.sectionIds.add(sectionId);
+            coverage.courseIds.addAll(courseIds);
+            for (Long scheduleId : seatScheduleIds) {
+                if (scheduleTimes.containsKey(scheduleId)) {
+                    timetable = timetable.plus(scheduleTimes.get(scheduleId));
+                }
+            }
+            timetables.put(item.getStudentId(), timetable);
+            accepted.add(new PendingRow(item.getStudentId(), sectionId, item.getScheduleId()));
+            results[i] = result.result(BulkEnrollmentResultDTO.ENROLLED).build();
+        }
+
+        // --- Write the accepted rows ---
+        if (!accepted.isEmpty()) {
+            Map<Long, Set<Long>> sectionsByStudent = new LinkedHashMap<>();
+            accepted.forEach(row -> sectionsByStudent.computeIfAbsent(row.studentId(), id -> new HashSet<>()).add(row.sectionId()));
+            Set<Long> enrollingStudents = sectionsByStudent.keySet();
+            Map<Long, Long> semesterEnrollmentIds = academicTermService.resolveCurrentEnrollmentIds(enrollingStudents);
+
+            jdbcTemplate.batchUpdate(INSERT_ENROLLED_COURSE_SQL, accepted, BATCH_SIZE, (ps, row) -> {
+                ps.setLong(1, semesterEnrollmentIds.get(row.studentId()));
+                ps.setLong(2, row.sectionId());
+                ps.setString(3, status);
+                if (row.scheduleId() != null) {
+                    ps.setLong(4, row.scheduleId());
+                } else {
+                    ps.setNull(4, Types.BIGINT);
+                }
+            });
+
+            // One credit recomputation per affected student
+            semesterEnrollmentRepository.recomputeTotalCredits(new HashSet<>(semesterEnrollmentIds.values()));
+            sectionsByStudent.forEach(studentEnrollmentIndexService::evictStudent);
+        }
+
+        List<RowResult> rows = Arrays.asList(results);
+        BulkEnrollmentResultDTO report = BulkEnrollmentResultDTO.builder()
+            .requested(items.size())
+            .enrolled(count(rows, BulkEnrollmentResultDTO.ENROLLED))
+            .skipped(count(rows, BulkEnrollmentResultDTO.SKIPPED))
+            .failed(count(rows, BulkEnrollmentResultDTO.FAILED))
+            .rows(rows)
+            .build();
+        System.out.println("Bulk enrollment finished: " + report.getEnrolled() + " enrolled, " +
+                           report.getSkipped() + " skipped, " + report.getFailed() + " failed");
+        return report;
+    }
+
+    private static int count(List<RowResult> rows, String result) {
+        return (int) rows.stream().filter(row -> result.equals(row.getResult())).count();
+    }
+
+    private record ScheduleCourse(Long scheduleId, Long sectionId, Long courseId, Integer credits) {
+        private static ScheduleCourse of(Object[] row) {
+            return new ScheduleCourse((Long) row[0], (Long) row[1], (Long) row[2], (Integer) row[3]);
+        }
+    }
+
+    private record PendingRow(Long studentId, Long sectionId, Long scheduleId) {
+    }
+
+    private static final class Coverage {
+        private final Set<Long> sectionIds = new HashSet<>();
+        private final Set<Long> courseIds = new HashSet<>();
+    }
+}
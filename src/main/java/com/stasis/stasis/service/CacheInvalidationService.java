@@ -0,0 +1,206 @@
+package com.stasis.stasis.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Carries invalidations of per-node caches to the other nodes.
+ *
+ * A cache evicts its own entries as before and also publishes the cache name and key here. Once
+ * the surrounding transaction commits, the keys are stamped into the cache_invalidation table in
+ * one batch. Every node polls the table and hands each key stamped since its last poll to the
+ * handlers registered for the cache, so other nodes' copies go stale for at most the poll delay.
+ * Stamps are re-read for a while behind the newest one seen, for writes that committed out of
+ * order, and a stamp already applied, including the node's own, is skipped. Stamps of different
+ * nodes are compared directly, which assumes their clocks are kept in sync.
+ */
+@Service
+public class CacheInvalidationService {
+
+    /** Key that stands for every entry of a cache. */
+    public static final String ALL = "*";
+
+    // Stamps are re-read this far behind the newest one seen, for writes that committed out of order
+    private static final long POLL_OVERLAP_MS = 60_000;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS cache_invalidation (cache varchar(40) NOT NULL, cache_key varchar(" + MAX_KEY_LENGTH + ") NOT NULL, " +
+        "invalidated_at bigint NOT NULL, PRIMARY KEY (cache, cache_key))";
+
+    private static final String CREATE_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_cache_invalidation_at ON cache_invalidation (invalidated_at)";
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO cache_invalidation (cache, cache_key, invalidated_at) VALUES (?, ?, ?) ON CONFLICT (cache, cache_key) " +
+        "DO UPDATE SET invalidated_at = GREATEST(cache_invalidation.invalidated_at, EXCLUDED.invalidated_at)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+
+    // Newest stamp applied per cache and key, whether written here or polled
+    private final Map<Target, Long> applied = new ConcurrentHashMap<>();
+
+    private final AtomicLong stamp = new AtomicLong();
+
+    private volatile long newestPolled;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+        // Caches load from the database at startup, so only changes from here on matter
+        newestPolled = System.currentTimeMillis();
+    }
+
+    /**
+     * Have the handler called with every key of the cache another node invalidates.
+     */
+    public void register(String cache, Consumer<String> handler) {
+        handlers.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Tell the other nodes to drop the key once the surrounding transaction commits; nothing is
+     * sent on rollback. Call from the transaction itself, not from a completion callback.
+     */
+    public void publish(String cache, String key) {
+        Target target = new Target(cache, key);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.of(target));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Target> pending = (Set<Target>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Target> targets = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, targets);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationService.this);
+                    write(List.copyOf(targets));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationService.this);
+                }
+            });
+            pending = targets;
+        }
+        pending.add(target);
+    }
+
+    public void publish(String cache, Collection<String> keys) {
+        keys.forEach(key -> publish(cache, key));
+    }
+
+    /**
+     * Apply the keys other nodes stamped since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${stasis.cluster.invalidation-poll-ms:1000}")
+    public void poll() {
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query("SELECT cache, cache_key, invalidated_at FROM cache_invalidation WHERE invalidated_at > ?",
+            rs -> {
+                rows.add(new Object[] {new Target(rs.getString(1), rs.getString(2)), rs.getLong(3)});
+            },
+            newestPolled - POLL_OVERLAP_MS);
+        for (Object[] row : rows) {
+            Target target = (Target) row[0];
+            long at = (Long) row[1];
+            newestPolled = Math.max(newestPolled, at);
+            // Stamps written from here on must sort after this one, even if this node's clock is behind
+            stamp.accumulateAndGet(at, Math::max);
+            Long previous = applied.get(target);
+            if (previous != null && previous >= at) {
+                continue;
+            }
+            applied.merge(target, at, Math::max);
+            for (Consumer<String> handler : handlers.getOrDefault(target.cache(), List.of())) {
+                try {
+                    handler.accept(target.key());
+                } catch (RuntimeException e) {
+                    System.err.println("CacheInvalidationService: could not apply invalidation of " + target.cache() +
+                                       " " + target.key() + " - " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Key naming an ID and a set of related IDs, either of which may be unknown (null). Related IDs
+     * too many to fit are left unknown.
+     */
+    public static String key(Long id, Set<Long> ids) {
+        String prefix = (id != null ? id.toString() : "") + "|";
+        String related = ids == null ? ALL : ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return prefix.length() + related.length() <= MAX_KEY_LENGTH ? prefix + related : prefix + ALL;
+    }
+
+    public static Long idOf(String key) {
+        String id = key.substring(0, key.indexOf('|'));
+        return id.isEmpty() ? null : Long.valueOf(id);
+    }
+
+    public static Set<Long> idsOf(String key) {
+        String related = key.substring(key.indexOf('|') + 1);
+        if (ALL.equals(related)) {
+            return null;
+        }
+        if (related.isEmpty()) {
+            return Set.of();
+        }
+        return Arrays.stream(related.split(",")).map(Long::valueOf).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private void write(List<Target> targets) {
+        long at = stamp.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+        targets.forEach(target -> applied.merge(target, at, Math::max));
+        try {
+            // The change has committed; the stamps go in a transaction of their own
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, targets, BATCH_SIZE, (ps, target) -> {
+                ps.setString(1, target.cache());
+                ps.setString(2, target.key());
+                ps.setLong(3, at);
+            }));
+        } catch (RuntimeException e) {
+            System.err.println("CacheInvalidationService: could not publish " + targets.size() + " invalidations - " + e.getMessage());
+        }
+    }
+
+    private record Target(String cache, String key) {
+    }
+}
@@ -15,6 +15,9 @@ public class CoursePrerequisiteService {
     @Autowired
     private CoursePrerequisiteRepository coursePrerequisiteRepository;
 
+    @Autowired
+    private PrerequisiteGraphService prerequisiteGraphService;
+
     public List<CoursePrerequisite> getAllCoursePrerequisites() {
         return coursePrerequisiteRepository.findAll();
     }
@@ -46,7 +49,9 @@ public class CoursePrerequisiteService {
             throw new RuntimeException("Cannot create prerequisite: would create circular dependency");
         }
         
-        return coursePrerequisiteRepository.save(coursePrerequisite);
+        CoursePrerequisite saved = coursePrerequisiteRepository.save(coursePrerequisite);
+        prerequisiteGraphService.refreshCourse(courseIdOf(saved.getCourse()));
+        return saved;
     }
 
     public CoursePrerequisite updateCoursePrerequisite(Long id, CoursePrerequisite updatedCoursePrerequisite) {
@@ -57,15 +62,23 @@ public class CoursePrerequisiteService {
                     throw new RuntimeException("Cannot update prerequisite: would create circular dependency");
                 }
                 
+                Long previousCourseId = courseIdOf(coursePrerequisite.getCourse());
                 coursePrerequisite.setCourse(updatedCoursePrerequisite.getCourse());
                 coursePrerequisite.setPrerequisiteCourse(updatedCoursePrerequisite.getPrerequisiteCourse());
-                return coursePrerequisiteRepository.save(coursePrerequisite);
+                CoursePrerequisite saved = coursePrerequisiteRepository.save(coursePrerequisite);
+                prerequisiteGraphService.refreshCourse(previousCourseId);
+                prerequisiteGraphService.refreshCourse(courseIdOf(saved.getCourse()));
+                return saved;
             })
             .orElseThrow(() -> new RuntimeException("Course Prerequisite not found with ID " + id));
     }
 
     public void deleteCoursePrerequisite(Long id) {
+        Long courseId = coursePrerequisiteRepository.findById(id)
+            .map(coursePrerequisite -> courseIdOf(coursePrerequisite.getCourse()))
+            .orElse(null);
         coursePrerequisiteRepository.deleteById(id);
+        prerequisiteGraphService.refreshCourse(courseId);
     }
 
     public boolean addPrerequisiteToCourse(Course course, Course prerequisiteCourse) {
@@ -86,13 +99,16 @@ public class CoursePrerequisiteService {
         prerequisites.stream()
             .filter(cp -> cp.getPrerequisiteCourse().equals(prerequisiteCourse))
             .forEach(cp -> coursePrerequisiteRepository.deleteById(cp.getCoursePrerequisiteID()));
+        prerequisiteGraphService.refreshCourse(courseIdOf(course));
     }
 
     private boolean hasCircularDependency(Course course, Course prerequisite) {
-        // Simple check: if prerequisite course has the main course as its prerequisite
-        List<CoursePrerequisite> prereqOfPrereq = coursePrerequisiteRepository.findByCourse(prerequisite);
-        return prereqOfPrereq.stream()
-            .anyMatch(cp -> cp.getPrerequisiteCourse().equals(course));
+        // Any path back from the prerequisite to the course, however long, is a cycle
+        return prerequisiteGraphService.wouldCreateCycle(courseIdOf(course), courseIdOf(prerequisite));
+    }
+
+    private static Long courseIdOf(Course course) {
+        return course != null ? course.getId() : null;
     }
 
     public boolean hasPrerequisites(Course course) {
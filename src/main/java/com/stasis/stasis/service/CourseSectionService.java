@@ -1,6 +1,8 @@
 package com.stasis.stasis.service;
 
+import com.stasis.stasis.dto.ScheduleConflictDTO;
 import com.stasis.stasis.model.CourseSection;
+import com.stasis.stasis.model.Faculty;
 import com.stasis.stasis.model.Schedule;
 import com.stasis.stasis.repository.CourseSectionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +19,15 @@ public class CourseSectionService {
     
     @Autowired
     private ScheduleService scheduleService;
+    
+    @Autowired
+    private SeatReservationService seatReservationService;
+    
+    @Autowired
+    private ScheduleConflictService scheduleConflictService;
+
+    @Autowired
+    private PrincipalContextService principalContextService;
 
     public List<CourseSection> getAllSections() {
         // Use the new method that eagerly loads schedules and courses
@@ -50,6 +61,9 @@ public class CourseSectionService {
     public CourseSection createSection(CourseSection section) {
         List<Schedule> schedules = section.getSchedules();
         if (schedules != null && !schedules.isEmpty()) {
+            // Reject the whole section up front when its schedules collide with anything, or each other
+            rejectConflicts(schedules, null, section.getFaculty(), List.of());
+            
             // Save section first without schedules, then add schedules
             section.setSchedules(null);
             CourseSection savedSection = courseSectionRepository.save(section);
@@ -62,14 +76,18 @@ public class CourseSectionService {
                     savedSchedules.add(savedSchedule);
                 }
                 savedSection.setSchedules(savedSchedules);
-                return courseSectionRepository.save(savedSection);
+                CourseSection result = courseSectionRepository.save(savedSection);
+                principalContextService.sectionsChanged();
+                return result;
             } catch (Exception e) {
                 // If schedule creation fails, delete the section to maintain consistency
                 courseSectionRepository.delete(savedSection);
                 throw new RuntimeException("Failed to create schedules: " + e.getMessage());
             }
         }
-        return courseSectionRepository.save(section);
+        CourseSection savedSection = courseSectionRepository.save(section);
+        principalContextService.sectionsChanged();
+        return savedSection;
     }
 
     public CourseSection updateSection(Long id, CourseSection updatedSection) {
@@ -91,10 +109,23 @@ public class CourseSectionService {
                 if (updatedSection.getProgram() != null) {
                     section.setProgram(updatedSection.getProgram());
                 }
+                if (updatedSection.getCapacity() != null) {
+                    section.setCapacity(updatedSection.getCapacity());
+                    if (section.getSchedules() != null) {
+                        for (Schedule schedule : section.getSchedules()) {
+                            seatReservationService.updateCapacity(schedule.getScheduleID(), schedule.getCapacity(), section.getCapacity());
+                        }
+                    }
+                }
                 
                 // Only update schedules if explicitly provided and non-empty
                 // This prevents accidental deletion of schedules when just updating faculty
                 if (updatedSection.getSchedules() != null && !updatedSection.getSchedules().isEmpty()) {
+                    // The replaced schedules no longer count as conflicts
+                    List<Long> replacedIds = section.getSchedules() == null ? List.of() :
+                        section.getSchedules().stream().map(Schedule::getScheduleID).toList();
+                    rejectConflicts(updatedSection.getSchedules(), id, section.getFaculty(), replacedIds);
+                    
                     // Delete existing schedules only when we have new ones to replace them
                     if (section.getSchedules() != null) {
                         for (Schedule schedule : section.getSchedules()) {
@@ -112,13 +143,30 @@ public class CourseSectionService {
                 }
                 // If schedules is null or empty, don't modify existing schedules
                 
-                return courseSectionRepository.save(section);
+                CourseSection savedSection = courseSectionRepository.save(section);
+                if (updatedSection.getFaculty() != null) {
+                    scheduleConflictService.sectionsChanged(List.of(id));
+                    principalContextService.sectionsChanged();
+                }
+                return savedSection;
             })
             .orElseThrow(() -> new RuntimeException("Section not found with id: " + id));
     }
 
     public void deleteSection(Long id) {
         courseSectionRepository.deleteById(id);
+        scheduleConflictService.sectionsChanged(List.of(id));
+        principalContextService.sectionsChanged();
+    }
+    
+    private void rejectConflicts(List<Schedule> schedules, Long sectionId, Faculty faculty, List<Long> excludeScheduleIds) {
+        Long facultyId = faculty != null ? faculty.getFacultyID() : null;
+        scheduleConflictService.checkBatch(schedules, sectionId, facultyId, excludeScheduleIds).stream()
+            .filter(ScheduleConflictDTO::isConflicting)
+            .findFirst()
+            .ifPresent(conflict -> {
+                throw new RuntimeException("Failed to create schedules: " + ScheduleConflictService.describe(conflict));
+            });
     }
 
     public List<CourseSection> getSectionsBySectionName(String sectionName) {
@@ -0,0 +1,84 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.model.CourseSection;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.repository.SemesterEnrollmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps SemesterEnrollment.totalCredits in step with enrollments.
+ *
+ * Enroll and drop apply the actual Course.credits of what was added or removed as an in-place
+ * delta inside the caller's transaction, which is also where the optional maximum credit load is
+ * enforced. A scheduled reconciliation recomputes every total from the enrollment rows and fixes
+ * any drift.
+ */
+@Service
+public class CreditAccountingService {
+
+    @Autowired
+    private SemesterEnrollmentRepository semesterEnrollmentRepository;
+
+    // Maximum credits per semester enrollment; 0 or less disables the rule
+    @Value("${stasis.enrollment.max-credits:0}")
+    private int maxCredits;
+
+    /**
+     * Credits an enrollment is worth: the course of its schedule, or every course of the section
+     * for section-wide enrollments.
+     */
+    public int creditsFor(CourseSection section, Long scheduleId) {
+        if (section == null || section.getSchedules() == null) {
+            return 0;
+        }
+        return section.getSchedules().stream()
+            .filter(schedule -> scheduleId == null || scheduleId.equals(schedule.getScheduleID()))
+            .map(Schedule::getCourse)
+            .filter(course -> course != null)
+            .mapToInt(course -> course.getCreditUnits())
+            .sum();
+    }
+
+    @Transactional
+    public void addCredits(Long semesterEnrollmentId, int credits) {
+        if (credits == 0) {
+            return;
+        }
+        int updated = semesterEnrollmentRepository.applyCreditDelta(semesterEnrollmentId, credits, maxCredits);
+        if (updated == 0) {
+            if (!semesterEnrollmentRepository.existsById(semesterEnrollmentId)) {
+                throw new RuntimeException("Semester Enrollment not found with ID " + semesterEnrollmentId);
+            }
+            throw new RuntimeException("Enrollment would exceed the maximum load of " + maxCredits + " credits");
+        }
+        System.out.println("Added " + credits + " credits to semester enrollment " + semesterEnrollmentId);
+    }
+
+    @Transactional
+    public void removeCredits(Long semesterEnrollmentId, int credits) {
+        if (credits == 0 || semesterEnrollmentId == null) {
+            return;
+        }
+        semesterEnrollmentRepository.applyCreditDelta(semesterEnrollmentId, -credits, maxCredits);
+        System.out.println("Removed " + credits + " credits from semester enrollment " + semesterEnrollmentId);
+    }
+
+    public int getMaxCredits() {
+        return maxCredits;
+    }
+
+    /**
+     * Recompute every stored total from the enrollment rows; returns how many were wrong.
+     */
+    @Scheduled(cron = "${stasis.credits.reconcile-cron:0 30 2 * * *}")
+    @Transactional
+    public int reconcile() {
+        int corrected = semesterEnrollmentRepository.reconcileTotalCredits();
+        System.out.println("CreditAccountingService: corrected total credits of " + corrected + " semester enrollments");
+        return corrected;
+    }
+}
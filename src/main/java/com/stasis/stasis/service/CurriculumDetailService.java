@@ -14,6 +14,9 @@ public class CurriculumDetailService {
     @Autowired
     private CurriculumDetailRepository curriculumDetailRepository;
 
+    @Autowired
+    private DegreeAuditService degreeAuditService;
+
     public List<CurriculumDetail> getAllCurriculumDetails() {
         return curriculumDetailRepository.findAll();
     }
@@ -23,7 +26,9 @@ public class CurriculumDetailService {
     }
 
     public CurriculumDetail createCurriculumDetail(CurriculumDetail curriculumDetail) {
-        return curriculumDetailRepository.save(curriculumDetail);
+        CurriculumDetail saved = curriculumDetailRepository.save(curriculumDetail);
+        degreeAuditService.evictAll();
+        return saved;
     }
 
     public CurriculumDetail updateCurriculumDetail(Long id, CurriculumDetail curriculumDetailUpdate) {
@@ -33,13 +38,16 @@ public class CurriculumDetailService {
                     detail.setCourse(curriculumDetailUpdate.getCourse());
                     detail.setYearLevel(curriculumDetailUpdate.getYearLevel());
                     detail.setSemester(curriculumDetailUpdate.getSemester());
-                    return curriculumDetailRepository.save(detail);
+                    CurriculumDetail saved = curriculumDetailRepository.save(detail);
+                    degreeAuditService.evictAll();
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("CurriculumDetail not found with id " + id));
     }
 
     public void deleteCurriculumDetail(Long id) {
         curriculumDetailRepository.deleteById(id);
+        degreeAuditService.evictAll();
     }
 
     public List<CurriculumDetail> getDetailsByCurriculum(Long curriculumId) {
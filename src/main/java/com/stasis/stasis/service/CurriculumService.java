@@ -19,6 +19,9 @@ public class CurriculumService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private DegreeAuditService degreeAuditService;
+
 
     public List<Curriculum> getAllCurriculums() {
         return curriculumRepository.findAll();
@@ -57,6 +60,7 @@ public class CurriculumService {
                     curriculum.getCurriculumDetails().addAll(updatedCurriculum.getCurriculumDetails());
                     // Set the curriculum reference in each detail
                     curriculum.getCurriculumDetails().forEach(detail -> detail.setCurriculum(curriculum));
+                    degreeAuditService.evictAll();
                 }
                 return curriculumRepository.save(curriculum);
             })
@@ -65,6 +69,7 @@ public class CurriculumService {
 
     public void deleteCurriculum(Long id) {
         curriculumRepository.deleteById(id);
+        degreeAuditService.evictAll();
     }
 
     public List<Curriculum> getCurriculumsByProgram(Long programId) {
@@ -0,0 +1,312 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.DegreeAuditDTO;
+import com.stasis.stasis.model.Course;
+import com.stasis.stasis.model.CurriculumDetail;
+import com.stasis.stasis.model.Student;
+import com.stasis.stasis.repository.CurriculumDetailRepository;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers "what does this student still need to graduate?" on the server.
+ *
+ * The student's curriculum requirements are matched against the outcome of every course their
+ * enrollments cover, read with one projection query: a passing grade completes a requirement, an
+ * ungraded enrollment makes it in progress, anything else leaves it remaining. Audits are cached
+ * per student until a grade, enrollment or curriculum change evicts them. A whole program can be
+ * audited at once, in chunks of students that run in parallel on a small fixed pool. Evictions
+ * reach the other nodes' caches through {@link CacheInvalidationService}.
+ */
+@Service
+public class DegreeAuditService {
+
+    /** Channel of {@link CacheInvalidationService} for evictions made outside grade and enrollment changes. */
+    public static final String CACHE = "degree-audits";
+
+    private static final int CHUNK_SIZE = 200;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CurriculumDetailRepository curriculumDetailRepository;
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Value("${stasis.audit.cache-ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    // Each chunk holds one database connection while it loads, so keep this below the pool size
+    @Value("${stasis.audit.batch-threads:4}")
+    private int batchThreads;
+
+    private final Map<Long, CachedAudit> cache = new ConcurrentHashMap<>();
+
+    // Bumped on eviction so an audit computed from data read before it is not cached; a student's
+    // eviction only holds back that student's audits, a full eviction holds back everyone's
+    private final AtomicLong allGeneration = new AtomicLong();
+    private final Map<Long, Long> studentGenerations = new ConcurrentHashMap<>();
+
+    private ExecutorService batchExecutor;
+
+    @PostConstruct
+    void init() {
+        batchExecutor = Executors.newFixedThreadPool(Math.max(1, batchThreads));
+        cacheInvalidationService.register(CACHE, key -> {
+            if (CacheInvalidationService.ALL.equals(key)) {
+                dropAll();
+            } else {
+                dropStudent(Long.valueOf(key));
+            }
+        });
+        cacheInvalidationService.register(GradeService.CACHE,
+            key -> onGradeChanged(GradeService.GradeChangedEvent.fromKey(key)));
+        cacheInvalidationService.register(StudentEnrollmentIndexService.CACHE,
+            key -> onEnrollmentsChanged(StudentEnrollmentIndexService.EnrollmentsChangedEvent.fromKey(key)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchExecutor.shutdown();
+    }
+
+    public DegreeAuditDTO audit(Long studentId) {
+        CachedAudit cached = cache.get(studentId);
+        if (cached != null && !cached.isExpired()) {
+            return cached.audit();
+        }
+        long startAll = allGeneration.get();
+        long startStudent = studentGeneration(studentId);
+        Student student = studentRepository.findById(studentId)
+            .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentId));
+        if (student.getCurriculum() == null) {
+            throw new RuntimeException("Student " + studentId + " has no curriculum assigned");
+        }
+        List<CurriculumDetail> requirements = curriculumDetailRepository
+            .findByCurriculumIdOrderByYearAndSemester(student.getCurriculum().getCurriculumID());
+        DegreeAuditDTO audit = buildAudit(student, requirements,
+            loadOutcomes(List.of(studentId)).getOrDefault(studentId, Map.of()));
+        store(audit, startAll, startStudent);
+        return audit;
+    }
+
+    /**
+     * Audit every student of a program that has a curriculum assigned.
+     */
+    public List<DegreeAuditDTO> auditProgram(Long programId) {
+        long startAll = allGeneration.get();
+        List<Student> students = studentRepository.findByProgramId(programId).stream()
+            .filter(student -> student.getCurriculum() != null)
+            .toList();
+
+        // Programs usually share a handful of curricula; load each one once for the whole batch
+        Map<Long, List<CurriculumDetail>> requirementsByCurriculum = new HashMap<>();
+        for (Student student : students) {
+            requirementsByCurriculum.computeIfAbsent(student.getCurriculum().getCurriculumID(),
+                curriculumDetailRepository::findByCurriculumIdOrderByYearAndSemester);
+        }
+
+        List<CompletableFuture<List<DegreeAuditDTO>>> chunks = new ArrayList<>();
+        for (int from = 0; from < students.size(); from += CHUNK_SIZE) {
+            List<Student> chunk = students.subList(from, Math.min(from + CHUNK_SIZE, students.size()));
+            chunks.add(CompletableFuture.supplyAsync(
+                () -> auditChunk(chunk, requirementsByCurriculum, startAll), batchExecutor));
+        }
+
+        List<DegreeAuditDTO> audits = new ArrayList<>(students.size());
+        chunks.forEach(chunk -> audits.addAll(chunk.join()));
+        System.out.println("DegreeAuditService: audited " + audits.size() + " students of program " + programId);
+        return audits;
+    }
+
+    @EventListener
+    public void onGradeChanged(GradeService.GradeChangedEvent event) {
+        dropStudent(event.studentId());
+    }
+
+    @EventListener
+    public void onEnrollmentsChanged(StudentEnrollmentIndexService.EnrollmentsChangedEvent event) {
+        if (event.studentId() == null) {
+            dropAll();
+        } else {
+            dropStudent(event.studentId());
+        }
+    }
+
+    public void evictStudent(Long studentId) {
+        cacheInvalidationService.publish(CACHE, studentId.toString());
+        dropStudent(studentId);
+    }
+
+    /**
+     * Drop every cached audit, e.g. after a curriculum's requirements changed.
+     */
+    public void evictAll() {
+        cacheInvalidationService.publish(CACHE, CacheInvalidationService.ALL);
+        dropAll();
+    }
+
+    // Grade and enrollment changes are published on their own channels, so their listeners only
+    // drop this node's copies
+    private void dropStudent(Long studentId) {
+        studentGenerations.merge(studentId, 1L, Long::sum);
+        cache.remove(studentId);
+    }
+
+    private void dropAll() {
+        allGeneration.incrementAndGet();
+        cache.clear();
+    }
+
+    private List<DegreeAuditDTO> auditChunk(List<Student> students, Map<Long, List<CurriculumDetail>> requirementsByCurriculum,
+                                            long startAll) {
+        Map<Long, Long> startStudents = new HashMap<>();
+        students.forEach(student -> startStudents.put(student.getId(), studentGeneration(student.getId())));
+        Map<Long, Map<Long, CourseOutcome>> outcomes = loadOutcomes(students.stream().map(Student::getId).toList());
+        List<DegreeAuditDTO> audits = new ArrayList<>(students.size());
+        for (Student student : students) {
+            DegreeAuditDTO audit = buildAudit(student,
+                requirementsByCurriculum.get(student.getCurriculum().getCurriculumID()),
+                outcomes.getOrDefault(student.getId(), Map.of()));
+            store(audit, startAll, startStudents.get(student.getId()));
+            audits.add(audit);
+        }
+        return audits;
+    }
+
+    /**
+     * studentId -> courseId -> best grade and whether an ungraded enrollment is open
+     */
+    private Map<Long, Map<Long, CourseOutcome>> loadOutcomes(List<Long> studentIds) {
+        Map<Long, Map<Long, CourseOutcome>> outcomes = new HashMap<>();
+        for (Object[] row : enrolledCourseRepository.findCourseOutcomesByStudentIds(studentIds)) {
+            outcomes.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                .merge((Long) row[1], CourseOutcome.of((BigDecimal) row[2]), CourseOutcome::combine);
+        }
+        return outcomes;
+    }
+
+    private DegreeAuditDTO buildAudit(Student student, List<CurriculumDetail> requirements, Map<Long, CourseOutcome> outcomes) {
+        Map<String, DegreeAuditDTO.Term> terms = new LinkedHashMap<>();
+        int total = 0;
+        int completed = 0;
+        int inProgress = 0;
+        int completedCredits = 0;
+        int remainingCredits = 0;
+
+        for (CurriculumDetail detail : requirements) {
+            Course course = detail.getCourse();
+            if (course == null) {
+                continue;
+            }
+            total++;
+            CourseOutcome outcome = outcomes.get(course.getId());
+            String status;
+            if (outcome != null && outcome.isPassed()) {
+                status = DegreeAuditDTO.COMPLETED;
+                completed++;
+                completedCredits += course.getCreditUnits();
+            } else {
+                status = outcome != null && outcome.ungraded() ? DegreeAuditDTO.IN_PROGRESS : DegreeAuditDTO.REMAINING;
+                if (DegreeAuditDTO.IN_PROGRESS.equals(status)) {
+                    inProgress++;
+                }
+                remainingCredits += course.getCreditUnits();
+            }
+
+            terms.computeIfAbsent(detail.getYearLevel() + "|" + detail.getSemester(), key -> DegreeAuditDTO.Term.builder()
+                    .yearLevel(detail.getYearLevel())
+                    .semester(detail.getSemester())
+                    .requirements(new ArrayList<>())
+                    .build())
+                .getRequirements()
+                .add(DegreeAuditDTO.Requirement.builder()
+                    .courseId(course.getId())
+                    .courseCode(course.getCourseCode())
+                    .courseDescription(course.getCourseDescription())
+                    .credits(course.getCreditUnits())
+                    .status(status)
+                    .grade(outcome != null ? outcome.bestGrade() : null)
+                    .build());
+        }
+
+        return DegreeAuditDTO.builder()
+            .studentId(student.getId())
+            .studentName(student.getFirstName() + " " + student.getLastName())
+            .curriculumId(student.getCurriculum().getCurriculumID())
+            .curriculumName(student.getCurriculum().getCurriculumName())
+            .totalRequirements(total)
+            .completed(completed)
+            .inProgress(inProgress)
+            .remaining(total - completed - inProgress)
+            .completedCredits(completedCredits)
+            .remainingCredits(remainingCredits)
+            .percentComplete(total == 0 ? 0 : Math.round(completed * 1000.0 / total) / 10.0)
+            .terms(new ArrayList<>(terms.values()))
+            .generatedAt(LocalDateTime.now())
+            .build();
+    }
+
+    private long studentGeneration(Long studentId) {
+        return studentGenerations.getOrDefault(studentId, 0L);
+    }
+
+    private void store(DegreeAuditDTO audit, long startAll, long startStudent) {
+        Long studentId = audit.getStudentId();
+        if (allGeneration.get() != startAll || studentGeneration(studentId) != startStudent) {
+            return;
+        }
+        CachedAudit cached = new CachedAudit(audit, LocalDateTime.now().plusMinutes(cacheTtlMinutes));
+        cache.put(studentId, cached);
+        // An eviction that slipped in between the check and the put must still win
+        if (allGeneration.get() != startAll || studentGeneration(studentId) != startStudent) {
+            cache.remove(studentId, cached);
+        }
+    }
+
+    private record CourseOutcome(BigDecimal bestGrade, boolean ungraded) {
+        private static CourseOutcome of(BigDecimal grade) {
+            return new CourseOutcome(grade, grade == null);
+        }
+
+        private CourseOutcome combine(CourseOutcome other) {
+            BigDecimal best = bestGrade == null ? other.bestGrade :
+                              other.bestGrade == null ? bestGrade : bestGrade.max(other.bestGrade);
+            return new CourseOutcome(best, ungraded || other.ungraded);
+        }
+
+        private boolean isPassed() {
+            return bestGrade != null && bestGrade.compareTo(GradeService.PASSING_GRADE) >= 0;
+        }
+    }
+
+    private record CachedAudit(DegreeAuditDTO audit, LocalDateTime expiresAt) {
+        private boolean isExpired() {
+            return LocalDateTime.now().isAfter(expiresAt);
+        }
+    }
+}
@@ -22,9 +22,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,6 +51,24 @@ public class EnrolledCourseService {
     @Autowired
     private ScheduleRepository scheduleRepository;
 
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+
+    @Autowired
+    private CreditAccountingService creditAccountingService;
+
+    @Autowired
+    private PrerequisiteGraphService prerequisiteGraphService;
+
+    @Autowired
+    private GradeService gradeService;
+
     @PreAuthorize("hasRole('ADMIN')")
     public List<EnrolledCourse> getAllEnrolledCourses() {
         return enrolledCourseRepository.findAll();
@@ -89,23 +110,78 @@ public class EnrolledCourseService {
             Grade savedGrade = gradeRepository.save(newGrade);
             enrolledCourse.setGrade(savedGrade);
         }
-        return enrolledCourseRepository.save(enrolledCourse);
+        CourseSection section = loadSection(enrolledCourse.getSection());
+        checkTermTimeConflicts(enrolledCourse.getSemesterEnrollment(), section, enrolledCourse.getScheduleId(), List.of());
+        seatReservationService.reserveSeats(seatScheduleIds(section, enrolledCourse.getScheduleId()));
+        if (enrolledCourse.getSemesterEnrollment() != null && enrolledCourse.getSemesterEnrollment().getSemesterEnrollmentID() != null) {
+            creditAccountingService.addCredits(enrolledCourse.getSemesterEnrollment().getSemesterEnrollmentID(),
+                creditAccountingService.creditsFor(section, enrolledCourse.getScheduleId()));
+        }
+        EnrolledCourse saved = enrolledCourseRepository.save(enrolledCourse);
+        studentEnrollmentIndexService.evictStudent(studentIdOf(saved.getSemesterEnrollment()), sectionIdsOf(saved));
+        if (saved.getGrade() != null) {
+            gradeService.recordGradeChange(studentIdOf(saved.getSemesterEnrollment()), sectionIdOf(saved), saved.getEnrolledCourseID(),
+                null, saved.getGrade().getGradeValue());
+        }
+        return saved;
     }
 
+    @Transactional
     public EnrolledCourse updateEnrolledCourse(Long id, EnrolledCourse updatedEnrolledCourse) {
         return enrolledCourseRepository.findById(id)
             .map(enrolledCourse -> {
+                // Moving the enrollment to another section moves its seats as well
+                CourseSection newSection = loadSection(updatedEnrolledCourse.getSection());
+                Long oldSectionId = enrolledCourse.getSection() != null ? enrolledCourse.getSection().getSectionID() : null;
+                Long newSectionId = newSection != null ? newSection.getSectionID() : null;
+                Long oldSemesterEnrollmentId = enrolledCourse.getSemesterEnrollment() != null ?
+                    enrolledCourse.getSemesterEnrollment().getSemesterEnrollmentID() : null;
+                if (newSectionId != null && !newSectionId.equals(oldSectionId)) {
+                    // The schedules being left cannot conflict with the ones replacing them
+                    checkTermTimeConflicts(updatedEnrolledCourse.getSemesterEnrollment(), newSection, enrolledCourse.getScheduleId(),
+                        seatScheduleIds(enrolledCourse.getSection(), enrolledCourse.getScheduleId()));
+                    seatReservationService.reserveSeats(seatScheduleIds(newSection, enrolledCourse.getScheduleId()));
+                    seatReservationService.releaseSeats(seatScheduleIds(enrolledCourse.getSection(), enrolledCourse.getScheduleId()));
+                }
+                Set<Long> studentIds = new HashSet<>();
+                studentIds.add(studentIdOf(enrolledCourse.getSemesterEnrollment()));
+                studentIds.add(studentIdOf(updatedEnrolledCourse.getSemesterEnrollment()));
+                studentIds.remove(null);
+                Set<Long> sectionIds = new HashSet<>();
+                sectionIds.add(oldSectionId);
+                sectionIds.add(newSectionId);
+                sectionIds.remove(null);
+                studentIds.forEach(studentId -> studentEnrollmentIndexService.evictStudent(studentId, sectionIds));
                 enrolledCourse.setSemesterEnrollment(updatedEnrolledCourse.getSemesterEnrollment());
                 enrolledCourse.setSection(updatedEnrolledCourse.getSection());
                 enrolledCourse.setStatus(updatedEnrolledCourse.getStatus());
                 enrolledCourse.setGrade(updatedEnrolledCourse.getGrade());
-                return enrolledCourseRepository.save(enrolledCourse);
+                EnrolledCourse saved = enrolledCourseRepository.saveAndFlush(enrolledCourse);
+                // Section or semester may have changed, so recompute both totals involved
+                Set<Long> semesterEnrollmentIds = new HashSet<>();
+                if (oldSemesterEnrollmentId != null) semesterEnrollmentIds.add(oldSemesterEnrollmentId);
+                if (saved.getSemesterEnrollment() != null && saved.getSemesterEnrollment().getSemesterEnrollmentID() != null) {
+                    semesterEnrollmentIds.add(saved.getSemesterEnrollment().getSemesterEnrollmentID());
+                }
+                if (!semesterEnrollmentIds.isEmpty()) {
+                    semesterEnrollmentRepository.recomputeTotalCredits(semesterEnrollmentIds);
+                }
+                // Grade, section or student may all have changed, so rebuild both students' records
+                gradeService.recomputeAcademicRecords(studentIds, sectionIds);
+                return saved;
             })
             .orElseThrow(() -> new RuntimeException("Enrolled Course not found with ID " + id));
     }
 
+    @Transactional
     public void deleteEnrolledCourse(Long id) {
-        enrolledCourseRepository.deleteById(id);
+        enrolledCourseRepository.findById(id).ifPresent(enrolledCourse -> {
+            removeGrade(enrolledCourse);
+            enrolledCourseRepository.delete(enrolledCourse);
+            seatReservationService.releaseSeats(seatScheduleIds(enrolledCourse.getSection(), enrolledCourse.getScheduleId()));
+            removeCredits(enrolledCourse);
+            studentEnrollmentIndexService.evictStudent(studentIdOf(enrolledCourse.getSemesterEnrollment()), sectionIdsOf(enrolledCourse));
+        });
     }
 
     public boolean updateEnrollmentStatus(Long enrolledCourseId, String newStatus) {
@@ -135,6 +211,7 @@ public class EnrolledCourseService {
         return enrolledCourseRepository.findBySectionId(sectionId);
     }
     
+    @Transactional
     public EnrolledCourse createEnrollmentForStudent(Long studentId, Long courseSectionId, String status) {
         System.out.println("=== Creating enrollment for student ===");
         System.out.println("Student ID: " + studentId);
@@ -154,28 +231,27 @@ public class EnrolledCourseService {
                 .map(sch -> sch.getCourse().getId())
                 .distinct()
                 .toList() : java.util.Collections.emptyList();
-        // Get all existing enrollments for this student
-        List<EnrolledCourse> existingEnrollments = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
         // Check if student is already enrolled in any section with a schedule for the same course
-        boolean alreadyEnrolledInCourse = existingEnrollments.stream()
-            .anyMatch(enrollment -> enrollment.getSection() != null && enrollment.getSection().getSchedules() != null &&
-                enrollment.getSection().getSchedules().stream()
-                    .anyMatch(sch -> sch.getCourse() != null && sectionCourseIds.contains(sch.getCourse().getId()))
-            );
+        boolean alreadyEnrolledInCourse = studentEnrollmentIndexService.hasCourseInEnrolledSections(studentId, sectionCourseIds);
         if (alreadyEnrolledInCourse) {
             System.out.println("Student is already enrolled in a section for one of these courses: " + sectionCourseIds);
             throw new RuntimeException("Student is already enrolled in this course (via another section)");
         }
         // Check if student is already enrolled in this specific course section
-        boolean alreadyEnrolled = existingEnrollments.stream()
-            .anyMatch(enrollment -> enrollment.getSection().getSectionID().equals(courseSectionId));
+        boolean alreadyEnrolled = studentEnrollmentIndexService.isEnrolledInSection(studentId, courseSectionId);
         if (alreadyEnrolled) {
             System.out.println("Student is already enrolled in course section: " + courseSectionId);
             throw new RuntimeException("Student is already enrolled in this course section");
         }
+        prerequisiteGraphService.requirePrerequisites(studentId, sectionCourseIds);
+        checkTimeConflicts(studentEnrollmentIndexService.getTimetable(studentId), courseSection.getSchedules());
+        // Hold a seat in every schedule of the section before writing the enrollment
+        seatReservationService.reserveSeats(seatScheduleIds(courseSection, null));
         // Find or create a semester enrollment for this student
         SemesterEnrollment semesterEnrollment = findOrCreateCurrentSemesterEnrollment(student);
         System.out.println("Using semester enrollment ID: " + semesterEnrollment.getSemesterEnrollmentID());
+        creditAccountingService.addCredits(semesterEnrollment.getSemesterEnrollmentID(),
+            creditAccountingService.creditsFor(courseSection, null));
         EnrolledCourse enrolledCourse = EnrolledCourse.builder()
             .semesterEnrollment(semesterEnrollment)
             .section(courseSection)
@@ -183,18 +259,128 @@ public class EnrolledCourseService {
             .build();
         EnrolledCourse savedEnrollment = enrolledCourseRepository.save(enrolledCourse);
         System.out.println("Created enrollment with ID: " + savedEnrollment.getEnrolledCourseID());
-        updateSemesterEnrollmentCredits(semesterEnrollment);
-        List<EnrolledCourse> allStudentEnrollments = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
-        System.out.println("Student now enrolled in " + allStudentEnrollments.size() + " courses total");
+        studentEnrollmentIndexService.recordEnrollment(studentId, savedEnrollment.getEnrolledCourseID(), courseSection, null);
         return savedEnrollment;
     }
     
-    private void updateSemesterEnrollmentCredits(SemesterEnrollment semesterEnrollment) {
-        List<EnrolledCourse> enrolledCourses = enrolledCourseRepository.findBySemesterEnrollment(semesterEnrollment);
-        int totalCredits = enrolledCourses.size() * 3; // Assuming 3 credits per course
-        semesterEnrollment.setTotalCredits(totalCredits);
-        semesterEnrollmentRepository.save(semesterEnrollment);
-        System.out.println("Updated semester enrollment credits to: " + totalCredits);
+    /**
+     * Throw if any of the schedules overlaps the timetable; returns the timetable with them added.
+     */
+    private WeeklyTimetable checkTimeConflicts(WeeklyTimetable timetable, Collection<Schedule> schedules) {
+        if (schedules == null) {
+            return timetable;
+        }
+        for (Schedule schedule : schedules) {
+            Long conflictingId = timetable.findOverlap(schedule);
+            if (conflictingId != null) {
+                throw new RuntimeException("Time conflict: schedule " + schedule.getScheduleID() + " (" +
+                    schedule.getDay() + " " + schedule.getStartTime() + "-" + schedule.getEndTime() +
+                    ") overlaps schedule " + conflictingId + " in the student's timetable");
+            }
+        }
+        WeeklyTimetable merged = timetable;
+        for (Schedule schedule : schedules) {
+            merged = merged.plus(schedule);
+        }
+        return merged;
+    }
+
+    /**
+     * Time-conflict check for paths that attach an enrollment to a given semester enrollment.
+     * Only the current term has a timetable, so enrollments filed under other terms are not checked.
+     */
+    private void checkTermTimeConflicts(SemesterEnrollment semesterEnrollment, CourseSection section, Long scheduleId,
+                                        Collection<Long> replacedScheduleIds) {
+        if (section == null || semesterEnrollment == null || semesterEnrollment.getSemesterEnrollmentID() == null) {
+            return;
+        }
+        SemesterEnrollment term = semesterEnrollmentRepository.findById(semesterEnrollment.getSemesterEnrollmentID()).orElse(null);
+        if (term == null || term.getStudent() == null ||
+            !academicTermService.getCurrentSemester().equals(term.getSemester()) ||
+            !academicTermService.getCurrentAcademicYear().equals(term.getAcademicYear())) {
+            return;
+        }
+        WeeklyTimetable timetable = studentEnrollmentIndexService.getTimetable(term.getStudent().getId());
+        for (Long replacedId : replacedScheduleIds) {
+            timetable = timetable.minus(replacedId);
+        }
+        List<Schedule> schedules = section.getSchedules() == null ? List.of() : section.getSchedules().stream()
+            .filter(schedule -> scheduleId == null || scheduleId.equals(schedule.getScheduleID()))
+            .toList();
+        checkTimeConflicts(timetable, schedules);
+    }
+
+    private static List<Long> courseIdsOf(CourseSection section) {
+        if (section == null || section.getSchedules() == null) {
+            return List.of();
+        }
+        return section.getSchedules().stream()
+            .filter(schedule -> schedule.getCourse() != null)
+            .map(schedule -> schedule.getCourse().getId())
+            .distinct()
+            .toList();
+    }
+
+    // Credits are read from the enrollment, so take its grade off the record before deleting it
+    private void removeGrade(EnrolledCourse enrollment) {
+        if (enrollment.getGrade() != null) {
+            gradeService.recordGradeChange(studentIdOf(enrollment.getSemesterEnrollment()), sectionIdOf(enrollment), enrollment.getEnrolledCourseID(),
+                enrollment.getGrade().getGradeValue(), null);
+        }
+    }
+
+    private void removeCredits(EnrolledCourse enrollment) {
+        if (enrollment.getSemesterEnrollment() != null) {
+            creditAccountingService.removeCredits(enrollment.getSemesterEnrollment().getSemesterEnrollmentID(),
+                creditAccountingService.creditsFor(enrollment.getSection(), enrollment.getScheduleId()));
+        }
+    }
+
+    /**
+     * Schedules whose seats an enrollment occupies: its own schedule, or every schedule of the
+     * section for legacy section-wide enrollments.
+     */
+    private List<Long> seatScheduleIds(CourseSection section, Long scheduleId) {
+        if (scheduleId != null) {
+            return List.of(scheduleId);
+        }
+        if (section == null || section.getSchedules() == null) {
+            return List.of();
+        }
+        return section.getSchedules().stream()
+            .map(Schedule::getScheduleID)
+            .toList();
+    }
+
+    private static Long sectionIdOf(EnrolledCourse enrollment) {
+        return enrollment.getSection() != null ? enrollment.getSection().getSectionID() : null;
+    }
+
+    private static List<Long> sectionIdsOf(EnrolledCourse enrollment) {
+        Long sectionId = sectionIdOf(enrollment);
+        return sectionId != null ? List.of(sectionId) : List.of();
+    }
+
+    private Long studentIdOf(SemesterEnrollment semesterEnrollment) {
+        if (semesterEnrollment == null) {
+            return null;
+        }
+        if (semesterEnrollment.getStudent() != null && semesterEnrollment.getStudent().getId() != null) {
+            return semesterEnrollment.getStudent().getId();
+        }
+        if (semesterEnrollment.getSemesterEnrollmentID() == null) {
+            return null;
+        }
+        return semesterEnrollmentRepository.findById(semesterEnrollment.getSemesterEnrollmentID())
+            .map(se -> se.getStudent().getId())
+            .orElse(null);
+    }
+
+    private CourseSection loadSection(CourseSection section) {
+        if (section == null || section.getSectionID() == null) {
+            return null;
+        }
+        return courseSectionRepository.findById(section.getSectionID()).orElse(null);
     }
     
     // Security helper methods
@@ -212,44 +398,19 @@ public class EnrolledCourseService {
         return true; // Simplified for now - implement proper check
     }
     
+    /**
+     * Section that owns a schedule, looked up through the schedule's course_section_id back-reference.
+     */
+    private CourseSection findSectionOfSchedule(Schedule schedule) {
+        if (schedule.getCourseSectionId() == null) {
+            throw new RuntimeException("No section found containing schedule: " + schedule.getScheduleID());
+        }
+        return courseSectionRepository.findById(schedule.getCourseSectionId())
+            .orElseThrow(() -> new RuntimeException("No section found containing schedule: " + schedule.getScheduleID()));
+    }
+
     private SemesterEnrollment findOrCreateCurrentSemesterEnrollment(Student student) {
-        // Get current academic year and semester
-        String currentAcademicYear = "2024-2025"; // You might want to calculate this dynamically
-        String currentSemester = "1"; // You might want to determine this based on current date
-        
-        // First, try to find an existing active semester enrollment for this student in the current semester
-        List<SemesterEnrollment> existingEnrollments = semesterEnrollmentRepository.findAll()
-            .stream()
-            .filter(se -> se.getStudent().getId().equals(student.getId()) && 
-                         "ACTIVE".equals(se.getStatus()) &&
-                         currentAcademicYear.equals(se.getAcademicYear()) &&
-                         currentSemester.equals(se.getSemester()))
-            .collect(Collectors.toList());
-        
-        if (!existingEnrollments.isEmpty()) {
-            // Return the existing enrollment for this semester
-            SemesterEnrollment existing = existingEnrollments.get(0);
-            System.out.println("Found existing semester enrollment: " + existing.getSemesterEnrollmentID() + 
-                             " for academic year: " + existing.getAcademicYear() + 
-                             ", semester: " + existing.getSemester());
-            return existing;
-        }
-        
-        // If no active enrollment exists for this semester, create a new one
-        SemesterEnrollment newSemesterEnrollment = SemesterEnrollment.builder()
-            .student(student)
-            .semester(currentSemester)
-            .academicYear(currentAcademicYear)
-            .status("ACTIVE")
-            .dateEnrolled(LocalDate.now())
-            .totalCredits(0)
-            .build();
-        
-        SemesterEnrollment saved = semesterEnrollmentRepository.save(newSemesterEnrollment);
-        System.out.println("Created new semester enrollment: " + saved.getSemesterEnrollmentID() + 
-                         " for academic year: " + saved.getAcademicYear() + 
-                         ", semester: " + saved.getSemester());
-        return saved;
+        return academicTermService.findOrCreateCurrentEnrollment(student);
     }
 
     @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY')")
@@ -267,6 +428,7 @@ public class EnrolledCourseService {
 
             // Create or update the grade entity with all grade components
             Grade grade = enrolledCourse.getGrade();
+            BigDecimal oldGradeValue = grade != null ? grade.getGradeValue() : null;
             if (grade == null) {
                 System.out.println("Creating new grade...");
                 // Create a unique grade for this enrollment
@@ -304,6 +466,8 @@ public class EnrolledCourseService {
             // Update the enrolled course with the grade
             enrolledCourse.setGrade(grade);
             EnrolledCourse savedEnrollment = enrolledCourseRepository.save(enrolledCourse);
+            gradeService.recordGradeChange(studentIdOf(enrolledCourse.getSemesterEnrollment()), sectionIdOf(enrolledCourse), enrolledCourseId,
+                oldGradeValue, grade.getGradeValue());
             System.out.println("Saved enrolled course successfully");
             
             System.out.println("=== EnrolledCourseService.updateGrades END SUCCESS ===");
@@ -377,6 +541,7 @@ public class EnrolledCourseService {
         }
 
         enrolledCourse.setGrade(grade);
+        gradeService.notifyGradeChanged(studentIdOf(enrolledCourse.getSemesterEnrollment()), sectionIdOf(enrolledCourse));
         return enrolledCourseRepository.save(enrolledCourse);
     }
 
@@ -402,6 +567,7 @@ public class EnrolledCourseService {
         }
 
         enrolledCourse.setGrade(grade);
+        gradeService.notifyGradeChanged(studentIdOf(enrolledCourse.getSemesterEnrollment()), sectionIdOf(enrolledCourse));
         return enrolledCourseRepository.save(enrolledCourse);
     }
 
@@ -412,6 +578,7 @@ public class EnrolledCourseService {
             .orElseThrow(() -> new RuntimeException("Enrolled Course not found with ID " + enrolledCourseId));
 
         Grade grade = enrolledCourse.getGrade();
+        BigDecimal oldGradeValue = grade != null ? grade.getGradeValue() : null;
         if (grade == null) {
             // Create new unique grade for this enrollment
             grade = Grade.builder()
@@ -429,6 +596,8 @@ public class EnrolledCourseService {
         }
 
         enrolledCourse.setGrade(grade);
+        gradeService.recordGradeChange(studentIdOf(enrolledCourse.getSemesterEnrollment()), sectionIdOf(enrolledCourse), enrolledCourseId,
+            oldGradeValue, grade.getGradeValue());
         return enrolledCourseRepository.save(enrolledCourse);
     }
     
@@ -559,41 +728,55 @@ public class EnrolledCourseService {
         // Find or create a semester enrollment for this student
         SemesterEnrollment semesterEnrollment = findOrCreateCurrentSemesterEnrollment(student);
         
-        // Get existing enrollments to check for duplicates
-        List<EnrolledCourse> existingEnrollments = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
-        List<Long> existingSectionIds = existingEnrollments.stream()
-            .map(enrollment -> enrollment.getSection().getSectionID())
-            .collect(Collectors.toList());
+        // Sections added by this request, on top of the ones already in the student's index
+        Set<Long> addedSectionIds = new HashSet<>();
+        
+        // Load all requested sections in one query
+        Map<Long, CourseSection> sectionsById = courseSectionRepository.findAllById(courseSectionIds).stream()
+            .collect(Collectors.toMap(CourseSection::getSectionID, section -> section));
         
-        List<EnrolledCourse> newEnrollments = new ArrayList<>();
+        List<EnrolledCourse> toSave = new ArrayList<>();
+        // Timetable including the sections accepted so far, so they cannot clash with each other either
+        WeeklyTimetable timetable = studentEnrollmentIndexService.getTimetable(studentId);
         
         for (Long courseSectionId : courseSectionIds) {
             // Skip if already enrolled
-            if (existingSectionIds.contains(courseSectionId)) {
+            if (addedSectionIds.contains(courseSectionId) ||
+                studentEnrollmentIndexService.isEnrolledInSection(studentId, courseSectionId)) {
                 System.out.println("Student already enrolled in section " + courseSectionId + ", skipping...");
                 continue;
             }
             
-            // Get the course section
-            CourseSection courseSection = courseSectionRepository.findById(courseSectionId)
-                .orElseThrow(() -> new RuntimeException("Course section not found with ID: " + courseSectionId));
+            CourseSection courseSection = sectionsById.get(courseSectionId);
+            if (courseSection == null) {
+                throw new RuntimeException("Course section not found with ID: " + courseSectionId);
+            }
+            
+            timetable = checkTimeConflicts(timetable, courseSection.getSchedules());
+            seatReservationService.reserveSeats(seatScheduleIds(courseSection, null));
             
-            // Create the enrolled course
-            EnrolledCourse enrolledCourse = EnrolledCourse.builder()
+            toSave.add(EnrolledCourse.builder()
                 .semesterEnrollment(semesterEnrollment)
                 .section(courseSection)
                 .status(status)
-                .build();
-            
-            EnrolledCourse savedEnrollment = enrolledCourseRepository.save(enrolledCourse);
-            newEnrollments.add(savedEnrollment);
-            System.out.println("Created enrollment with ID: " + savedEnrollment.getEnrolledCourseID());
+                .build());
+            addedSectionIds.add(courseSectionId);
         }
         
+        // One graded-history lookup covers the prerequisites of every new section
+        prerequisiteGraphService.requirePrerequisites(studentId, toSave.stream()
+            .flatMap(enrollment -> courseIdsOf(enrollment.getSection()).stream())
+            .toList());
+        
         // Update the total credits in the semester enrollment
-        if (!newEnrollments.isEmpty()) {
-            updateSemesterEnrollmentCredits(semesterEnrollment);
-        }
+        int addedCredits = toSave.stream()
+            .mapToInt(enrollment -> creditAccountingService.creditsFor(enrollment.getSection(), null))
+            .sum();
+        creditAccountingService.addCredits(semesterEnrollment.getSemesterEnrollmentID(), addedCredits);
+        
+        List<EnrolledCourse> newEnrollments = enrolledCourseRepository.saveAll(toSave);
+        newEnrollments.forEach(enrollment -> studentEnrollmentIndexService.recordEnrollment(
+            studentId, enrollment.getEnrolledCourseID(), enrollment.getSection(), null));
         
         System.out.println("Successfully enrolled student in " + newEnrollments.size() + " new courses");
         return newEnrollments;
@@ -619,12 +802,7 @@ public class EnrolledCourseService {
             .orElseThrow(() -> new RuntimeException("Schedule not found with ID: " + scheduleId));
         
         // Find the section containing this schedule
-        List<CourseSection> allSections = courseSectionRepository.findAll();
-        CourseSection targetSection = allSections.stream()
-            .filter(section -> section.getSchedules() != null && 
-                section.getSchedules().stream().anyMatch(sch -> sch.getScheduleID().equals(scheduleId)))
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("No section found containing schedule: " + scheduleId));
+        CourseSection targetSection = findSectionOfSchedule(schedule);
         
         return createEnrollmentForStudentWithSchedule(studentId, targetSection.getSectionID(), scheduleId, status);
     }
@@ -636,13 +814,7 @@ public class EnrolledCourseService {
      */
     public List<Schedule> getAvailableSchedulesForStudent(Long studentId) {
         // Get all enrolled schedules for the student (by course)
-        List<EnrolledCourse> enrolledCourses = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
-        List<Long> enrolledCourseIds = enrolledCourses.stream()
-            .flatMap(ec -> ec.getSection().getSchedules().stream())
-            .filter(sch -> sch.getCourse() != null)
-            .map(sch -> sch.getCourse().getId())
-            .distinct()
-            .toList();
+        Set<Long> enrolledCourseIds = studentEnrollmentIndexService.getSectionCourseIds(studentId);
         // Get all schedules from all sections
         List<Schedule> allSchedules = scheduleRepository.findAll();
         // Filter out schedules for courses the student is already enrolled in
@@ -670,6 +842,7 @@ public class EnrolledCourseService {
     /**
      * Create enrollment for student with specific schedule validation
      */
+    @Transactional
     public EnrolledCourse createEnrollmentForStudentWithSchedule(Long studentId, Long courseSectionId, Long scheduleId, String status) {
         System.out.println("=== Creating enrollment for student with schedule validation ===");
         System.out.println("Student ID: " + studentId);
@@ -697,54 +870,15 @@ public class EnrolledCourseService {
         System.out.println("Target course ID from schedule: " + targetCourseId);
         
         // Validate that the schedule belongs to the section
-        boolean scheduleInSection = courseSection.getSchedules() != null &&
-            courseSection.getSchedules().stream()
-                .anyMatch(sch -> sch.getScheduleID().equals(scheduleId));
+        boolean scheduleInSection = courseSectionId.equals(targetSchedule.getCourseSectionId());
         
         if (!scheduleInSection) {
             throw new RuntimeException("Schedule " + scheduleId + " does not belong to section " + courseSectionId);
         }
         
         // --- ENFORCE: Only one enrollment per course per student ---
-        // Get all existing enrollments for this student
-        List<EnrolledCourse> existingEnrollments = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
-        System.out.println("Found " + existingEnrollments.size() + " existing enrollments for student " + studentId);
-        
-        // Debug: Print all existing enrollments with null-safe checks
-        for (EnrolledCourse ec : existingEnrollments) {
-            System.out.println("Existing enrollment: ID=" + ec.getEnrolledCourseID() + 
-                              ", Section=" + (ec.getSection() != null ? ec.getSection().getSectionID() : "null") +
-                              ", Status=" + ec.getStatus());
-            if (ec.getSection() != null && ec.getSection().getSchedules() != null) {
-                System.out.println("  Section has " + ec.getSection().getSchedules().size() + " schedules");
-                for (Schedule sch : ec.getSection().getSchedules()) {
-                    if (sch != null) {
-                        System.out.println("  Schedule: ID=" + sch.getScheduleID() + 
-                                          ", Course=" + (sch.getCourse() != null ? sch.getCourse().getId() : "null"));
-                    } else {
-                        System.out.println("  Schedule is null!");
-                    }
-                }
-            } else {
-                System.out.println("  Section is null or has no schedules");
-            }
-        }
-        
-        // Check if student is already enrolled in this specific course (any section) with null-safe checks
-        boolean alreadyEnrolledInCourse = false;
-        try {
-            alreadyEnrolledInCourse = existingEnrollments.stream()
-                .filter(enrollment -> enrollment != null && enrollment.getSection() != null && enrollment.getSection().getSchedules() != null)
-                .anyMatch(enrollment -> enrollment.getSection().getSchedules().stream()
-                    .filter(sch -> sch != null && sch.getCourse() != null)
-                    .anyMatch(sch -> sch.getCourse().getId().equals(targetCourseId))
-                );
-        } catch (Exception e) {
-            System.err.println("Error checking existing enrollments: " + e.getMessage());
-            e.printStackTrace();
-            // If there's an error, assume not enrolled and continue
-            alreadyEnrolledInCourse = false;
-        }
+        // Check if student is already enrolled in this specific course (any section)
+        boolean alreadyEnrolledInCourse = studentEnrollmentIndexService.hasCourseInEnrolledSections(studentId, List.of(targetCourseId));
         
         System.out.println("Already enrolled in course " + targetCourseId + "? " + alreadyEnrolledInCourse);
         
@@ -754,8 +888,7 @@ public class EnrolledCourseService {
         }
         
         // Check if student is already enrolled in this specific course section
-        boolean alreadyEnrolled = existingEnrollments.stream()
-            .anyMatch(enrollment -> enrollment.getSection().getSectionID().equals(courseSectionId));
+        boolean alreadyEnrolled = studentEnrollmentIndexService.isEnrolledInSection(studentId, courseSectionId);
         
         System.out.println("Already enrolled in section " + courseSectionId + "? " + alreadyEnrolled);
         
@@ -763,9 +896,15 @@ public class EnrolledCourseService {
             System.out.println("Student is already enrolled in course section: " + courseSectionId);
             throw new RuntimeException("Student is already enrolled in this course section");
         }
+        prerequisiteGraphService.requirePrerequisites(studentId, courseIdsOf(courseSection));
+        checkTimeConflicts(studentEnrollmentIndexService.getTimetable(studentId), courseSection.getSchedules());
+        // This enrollment is section-wide, so it needs a seat in every schedule of the section
+        seatReservationService.reserveSeats(seatScheduleIds(courseSection, null));
         // Find or create a semester enrollment for this student
         SemesterEnrollment semesterEnrollment = findOrCreateCurrentSemesterEnrollment(student);
         System.out.println("Using semester enrollment ID: " + semesterEnrollment.getSemesterEnrollmentID());
+        creditAccountingService.addCredits(semesterEnrollment.getSemesterEnrollmentID(),
+            creditAccountingService.creditsFor(courseSection, null));
         
         EnrolledCourse enrolledCourse = EnrolledCourse.builder()
             .semesterEnrollment(semesterEnrollment)
@@ -776,10 +915,7 @@ public class EnrolledCourseService {
         EnrolledCourse savedEnrollment = enrolledCourseRepository.save(enrolledCourse);
         System.out.println("Created enrollment with ID: " + savedEnrollment.getEnrolledCourseID() + " for course: " + targetCourseId);
         
-        updateSemesterEnrollmentCredits(semesterEnrollment);
-        
-        List<EnrolledCourse> allStudentEnrollments = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
-        System.out.println("Student now enrolled in " + allStudentEnrollments.size() + " courses total");
+        studentEnrollmentIndexService.recordEnrollment(studentId, savedEnrollment.getEnrolledCourseID(), courseSection, null);
         
         return savedEnrollment;
     }
@@ -811,43 +947,29 @@ public class EnrolledCourseService {
         System.out.println("Target course ID: " + targetCourseId);
         
         // Find the course section that contains this schedule
-        List<CourseSection> allSections = courseSectionRepository.findAll();
-        CourseSection courseSection = allSections.stream()
-            .filter(section -> section.getSchedules() != null && 
-                section.getSchedules().stream().anyMatch(sch -> sch.getScheduleID().equals(scheduleId)))
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("No section found containing schedule: " + scheduleId));
+        CourseSection courseSection = findSectionOfSchedule(targetSchedule);
         
         System.out.println("Found section: " + courseSection.getSectionName());
         
-        // Check if student is already enrolled in this SPECIFIC course schedule
-        List<EnrolledCourse> existingEnrollments = enrolledCourseRepository.findByStudentIdWithDetails(studentId);
-        
-        boolean alreadyEnrolledInCourse = existingEnrollments.stream()
-            .anyMatch(enrollment -> {
-                // Check if already enrolled in this specific schedule
-                if (enrollment.getScheduleId() != null && enrollment.getScheduleId().equals(scheduleId)) {
-                    return true;
-                }
-                
-                // For backward compatibility, also check course-level enrollment
-                if (enrollment.getSection() == null || enrollment.getSection().getSchedules() == null) {
-                    return false;
-                }
-                // Check if any schedule in the enrollment's section matches the target course
-                return enrollment.getSection().getSchedules().stream()
-                    .anyMatch(sch -> sch.getCourse() != null && 
-                             sch.getCourse().getId().equals(targetCourseId) &&
-                             enrollment.getScheduleId() == null); // Only check for old enrollments without specific schedule
-            });
+        // Check if student is already enrolled in this SPECIFIC course schedule, or holds an old
+        // section-wide enrollment that covers the same course
+        boolean alreadyEnrolledInCourse = studentEnrollmentIndexService.isEnrolledInSchedule(studentId, scheduleId) ||
+            studentEnrollmentIndexService.hasSectionWideCourse(studentId, targetCourseId);
         
         if (alreadyEnrolledInCourse) {
             throw new RuntimeException("Student is already enrolled in this specific course schedule");
         }
         
+        prerequisiteGraphService.requirePrerequisites(studentId, List.of(targetCourseId));
+        checkTimeConflicts(studentEnrollmentIndexService.getTimetable(studentId), List.of(targetSchedule));
+        
+        // Claim a seat; released automatically if anything below rolls the transaction back
+        seatReservationService.reserveSeats(List.of(scheduleId));
+        
         // Find or create semester enrollment
         SemesterEnrollment semesterEnrollment = findOrCreateCurrentSemesterEnrollment(student);
         System.out.println("Using semester enrollment ID: " + semesterEnrollment.getSemesterEnrollmentID());
+        creditAccountingService.addCredits(semesterEnrollment.getSemesterEnrollmentID(), targetSchedule.getCourse().getCreditUnits());
         
         // Create a new enrollment record for this specific course-schedule combination
         EnrolledCourse enrolledCourse = EnrolledCourse.builder()
@@ -861,7 +983,7 @@ public class EnrolledCourseService {
         System.out.println("Created course-specific enrollment with ID: " + savedEnrollment.getEnrolledCourseID() + 
                           " for course: " + targetCourseId + ", schedule: " + scheduleId);
         
-        updateSemesterEnrollmentCredits(semesterEnrollment);
+        studentEnrollmentIndexService.recordEnrollment(studentId, savedEnrollment.getEnrolledCourseID(), courseSection, scheduleId);
         
         return savedEnrollment;
     }
@@ -881,6 +1003,7 @@ public class EnrolledCourseService {
         }
         
         EnrolledCourse enrollment = enrollmentOpt.get();
+        studentEnrollmentIndexService.evictStudent(studentIdOf(enrollment.getSemesterEnrollment()), sectionIdsOf(enrollment));
         
         // NEW: If enrollment has a specific scheduleId, only delete if it matches
         if (enrollment.getScheduleId() != null) {
@@ -890,7 +1013,10 @@ public class EnrolledCourseService {
                 return false;
             }
             // Delete the specific enrollment
+            removeGrade(enrollment);
             enrolledCourseRepository.deleteById(enrollmentId);
+            seatReservationService.releaseSeats(List.of(enrollment.getScheduleId()));
+            removeCredits(enrollment);
             System.out.println("Deleted specific course enrollment for schedule: " + enrollment.getScheduleId());
             return true;
         }
@@ -898,7 +1024,10 @@ public class EnrolledCourseService {
         // LEGACY: Handle old enrollments without specific schedule IDs
         if (scheduleId == null) {
             // If no specific schedule provided, delete the entire enrollment (old behavior)
+            removeGrade(enrollment);
             enrolledCourseRepository.deleteById(enrollmentId);
+            seatReservationService.releaseSeats(seatScheduleIds(enrollment.getSection(), null));
+            removeCredits(enrollment);
             System.out.println("Deleted entire enrollment record");
             return true;
         }
@@ -917,7 +1046,10 @@ public class EnrolledCourseService {
             }
         }
         
+        removeGrade(enrollment);
         enrolledCourseRepository.deleteById(enrollmentId);
+        seatReservationService.releaseSeats(seatScheduleIds(enrollment.getSection(), null));
+        removeCredits(enrollment);
         System.out.println("Deleted legacy enrollment record (affects all courses in section)");
         return true;
     }
@@ -0,0 +1,204 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.EnrollmentCartResultDTO;
+import com.stasis.stasis.model.CourseSection;
+import com.stasis.stasis.model.EnrolledCourse;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.model.SemesterEnrollment;
+import com.stasis.stasis.model.Student;
+import com.stasis.stasis.repository.CourseSectionRepository;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import com.stasis.stasis.repository.ScheduleRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validates and commits a student's proposed set of schedules ("cart") in one pass.
+ *
+ * Every schedule is checked for duplicates against the student's enrollment index, for passed
+ * prerequisites, for overlaps with the current-term timetable and with earlier schedules of the
+ * same cart, and for a free seat.
+ * Committing a valid cart writes all of its course-specific enrollments in one transaction with a
+ * single credit update, so a cart is either fully enrolled or not at all.
+ */
+@Service
+public class EnrollmentCartService {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private CourseSectionRepository courseSectionRepository;
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private CreditAccountingService creditAccountingService;
+
+    @Autowired
+    private PrerequisiteGraphService prerequisiteGraphService;
+
+    public EnrollmentCartResultDTO validate(Long studentId, List<Long> scheduleIds) {
+        if (studentId == null || !studentRepository.existsById(studentId)) {
+            throw new RuntimeException("Student not found with ID: " + studentId);
+        }
+        List<Long> requested = scheduleIds != null ? scheduleIds : List.of();
+        return validate(studentId, requested, loadSchedules(requested));
+    }
+
+    /**
+     * Enroll the student in every schedule of the cart, or in none of them. An invalid cart is
+     * returned unchanged with committed = false.
+     */
+    @Transactional
+    public EnrollmentCartResultDTO commit(Long studentId, List<Long> scheduleIds, String status) {
+        Student student = studentRepository.findById(studentId)
+            .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentId));
+        if (scheduleIds == null || scheduleIds.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        Map<Long, Schedule> schedulesById = loadSchedules(scheduleIds);
+        EnrollmentCartResultDTO result = validate(studentId, scheduleIds, schedulesById);
+        if (!result.isValid()) {
+            return result;
+        }
+
+        // Validation rejects repeated IDs, so every schedule appears once here
+        List<Long> cartScheduleIds = List.copyOf(new LinkedHashSet<>(scheduleIds));
+        Set<Long> sectionIds = cartScheduleIds.stream()
+            .map(id -> schedulesById.get(id).getCourseSectionId())
+            .collect(Collectors.toSet());
+        Map<Long, CourseSection> sectionsById = courseSectionRepository.findAllById(sectionIds).stream()
+            .collect(Collectors.toMap(CourseSection::getSectionID, section -> section));
+
+        // Seats are all-or-nothing and handed back if anything below rolls the transaction back
+        seatReservationService.reserveSeats(cartScheduleIds);
+        SemesterEnrollment semesterEnrollment = academicTermService.findOrCreateCurrentEnrollment(student);
+        creditAccountingService.addCredits(semesterEnrollment.getSemesterEnrollmentID(), result.getTotalCredits());
+
+        List<EnrolledCourse> toSave = new ArrayList<>();
+        for (Long scheduleId : cartScheduleIds) {
+            toSave.add(EnrolledCourse.builder()
+                .semesterEnrollment(semesterEnrollment)
+                .section(sectionsById.get(schedulesById.get(scheduleId).getCourseSectionId()))
+                .scheduleId(scheduleId)
+                .status(status != null ? status : "Enrolled")
+                .build());
+        }
+        List<EnrolledCourse> saved = enrolledCourseRepository.saveAll(toSave);
+        saved.forEach(enrollment -> studentEnrollmentIndexService.recordEnrollment(
+            studentId, enrollment.getEnrolledCourseID(), enrollment.getSection(), enrollment.getScheduleId()));
+
+        System.out.println("Committed cart of " + saved.size() + " schedules for student " + studentId);
+        result.setCommitted(true);
+        result.setEnrolledCourseIds(saved.stream().map(EnrolledCourse::getEnrolledCourseID).toList());
+        return result;
+    }
+
+    private Map<Long, Schedule> loadSchedules(List<Long> scheduleIds) {
+        Map<Long, Schedule> schedulesById = new HashMap<>();
+        scheduleRepository.findAllById(scheduleIds).forEach(schedule -> schedulesById.put(schedule.getScheduleID(), schedule));
+        return schedulesById;
+    }
+
+    private EnrollmentCartResultDTO validate(Long studentId, List<Long> requested, Map<Long, Schedule> schedulesById) {
+        Map<Long, List<Long>> missingPrerequisites = prerequisiteGraphService.findMissingPrerequisites(studentId,
+            schedulesById.values().stream()
+                .filter(schedule -> schedule.getCourse() != null)
+                .map(schedule -> schedule.getCourse().getId())
+                .toList());
+        WeeklyTimetable timetable = studentEnrollmentIndexService.getTimetable(studentId);
+        WeeklyTimetable cartTimetable = WeeklyTimetable.EMPTY;
+        Set<Long> cartScheduleIds = new HashSet<>();
+        Set<Long> cartCourseIds = new HashSet<>();
+        List<EnrollmentCartResultDTO.Item> items = new ArrayList<>();
+        int totalCredits = 0;
+
+        for (Long scheduleId : requested) {
+            List<String> problems = new ArrayList<>();
+            Schedule schedule = schedulesById.get(scheduleId);
+            if (schedule == null || schedule.getCourse() == null || schedule.getCourseSectionId() == null) {
+                problems.add(schedule == null ? "Schedule not found" :
+                             schedule.getCourse() == null ? "Schedule does not have a course assigned" :
+                             "Schedule does not belong to a section");
+                items.add(item(scheduleId, schedule, problems));
+                continue;
+            }
+            Long courseId = schedule.getCourse().getId();
+
+            if (!cartScheduleIds.add(scheduleId)) {
+                problems.add("Schedule is listed more than once");
+            } else if (!cartCourseIds.add(courseId)) {
+                problems.add("Another schedule in the cart is for the same course");
+            }
+            if (studentEnrollmentIndexService.isEnrolledInSchedule(studentId, scheduleId) ||
+                studentEnrollmentIndexService.hasSectionWideCourse(studentId, courseId)) {
+                problems.add("Student is already enrolled in this course");
+            }
+            if (missingPrerequisites.containsKey(courseId)) {
+                problems.add("Missing prerequisites: courses " + missingPrerequisites.get(courseId));
+            }
+            Long enrolledConflict = timetable.findOverlap(schedule);
+            if (enrolledConflict != null) {
+                problems.add("Time conflict with enrolled schedule " + enrolledConflict);
+            }
+            Long cartConflict = cartTimetable.findOverlap(schedule);
+            if (cartConflict != null) {
+                problems.add("Time conflict with schedule " + cartConflict + " in the cart");
+            }
+            if (!seatReservationService.hasAvailableSeat(scheduleId)) {
+                problems.add("Schedule is full");
+            }
+
+            if (problems.isEmpty()) {
+                cartTimetable = cartTimetable.plus(schedule);
+                totalCredits += schedule.getCourse().getCreditUnits();
+            }
+            items.add(item(scheduleId, schedule, problems));
+        }
+
+        boolean valid = items.stream().allMatch(EnrollmentCartResultDTO.Item::isOk);
+        System.out.println("Validated cart of " + requested.size() + " schedules for student " + studentId + ": " +
+                           (valid ? "ok" : "has problems"));
+        return EnrollmentCartResultDTO.builder()
+            .studentId(studentId)
+            .valid(valid)
+            .totalCredits(totalCredits)
+            .items(items)
+            .build();
+    }
+
+    private static EnrollmentCartResultDTO.Item item(Long scheduleId, Schedule schedule, List<String> problems) {
+        return EnrollmentCartResultDTO.Item.builder()
+            .scheduleId(scheduleId)
+            .courseId(schedule != null && schedule.getCourse() != null ? schedule.getCourse().getId() : null)
+            .courseCode(schedule != null && schedule.getCourse() != null ? schedule.getCourse().getCourseCode() : null)
+            .ok(problems.isEmpty())
+            .problems(problems)
+            .build();
+    }
+}
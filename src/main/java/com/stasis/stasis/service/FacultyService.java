@@ -3,7 +3,6 @@ package com.stasis.stasis.service;
 import com.stasis.stasis.model.Advisor;
 import com.stasis.stasis.model.Faculty;
 import com.stasis.stasis.model.Users;
-import com.stasis.stasis.model.UserRole;
 import com.stasis.stasis.repository.AdvisorRepository;
 import com.stasis.stasis.repository.FacultyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -28,14 +28,15 @@ public class FacultyService {
     @Autowired
     private EmailValidationService emailValidationService;
 
+    @Autowired
+    private PrincipalContextService principalContextService;
+
     public List<Faculty> getAllFaculty() {
         List<Faculty> faculty = facultyRepository.findAll();
-        // Populate username for each faculty member
+        // Populate usernames from the linked accounts in one query
+        Map<Long, String> usernames = userService.getUsernamesByFacultyIds(faculty.stream().map(Faculty::getFacultyID).toList());
         for (Faculty facultyMember : faculty) {
-            Optional<Users> user = userService.getUserByFacultyInfo(facultyMember.getFirstName(), facultyMember.getLastName());
-            if (user.isPresent()) {
-                facultyMember.setUsername(user.get().getUsername());
-            }
+            facultyMember.setUsername(usernames.get(facultyMember.getFacultyID()));
         }
         return faculty;
     }
@@ -45,7 +46,7 @@ public class FacultyService {
         if (facultyOpt.isPresent()) {
             Faculty faculty = facultyOpt.get();
             // Populate username
-            Optional<Users> user = userService.getUserByFacultyInfo(faculty.getFirstName(), faculty.getLastName());
+            Optional<Users> user = userService.getUserForFaculty(faculty);
             if (user.isPresent()) {
                 faculty.setUsername(user.get().getUsername());
             }
@@ -80,12 +81,7 @@ public class FacultyService {
         // Create User account for the faculty with auto-generated credentials
         // Format: [year]-[counter starting from 10000]-[F for faculty]
         // Password: randomly generated 7 character alphanumeric string
-        com.stasis.stasis.dto.UserWithPlainPassword userWithPassword = userService.createUserWithGeneratedCredentialsForDisplay(
-                savedFaculty.getFirstName(),
-                savedFaculty.getLastName(),
-                savedFaculty.getEmail(),
-                UserRole.FACULTY
-        );
+        com.stasis.stasis.dto.UserWithPlainPassword userWithPassword = userService.createUserForFaculty(savedFaculty);
 
         return new FacultyWithCredentials(savedFaculty, userWithPassword.getUser().getUsername(), userWithPassword.getPlainTextPassword());
     }
@@ -105,7 +101,9 @@ public class FacultyService {
                 faculty.setStatus(facultyDetails.getStatus());
                 faculty.setPosition(facultyDetails.getPosition());
                 faculty.setProgram(facultyDetails.getProgram());
-                return facultyRepository.save(faculty);
+                Faculty savedFaculty = facultyRepository.save(faculty);
+                principalContextService.facultyChanged(id);
+                return savedFaculty;
             })
             .orElseThrow(() -> new RuntimeException("Faculty not found with id " + id));
     }
@@ -126,10 +124,11 @@ public class FacultyService {
         advisorRepository.deleteAll(advisorships);
         
         // 2. Delete associated user account
-        userService.deleteUserByFacultyInfo(faculty.getFirstName(), faculty.getLastName());
+        userService.deleteUserForFaculty(faculty);
         
         // 3. Finally delete the faculty
         facultyRepository.deleteById(id);
+        principalContextService.facultyChanged(id);
     }
 
     // Add new service methods for Faculty-specific operations
@@ -0,0 +1,398 @@
+package com.stasis.stasis.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stasis.stasis.dto.GradeImportResultDTO;
+import com.stasis.stasis.dto.GradeImportResultDTO.RowResult;
+import com.stasis.stasis.repository.CourseSectionRepository;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports the grades of a whole section from a CSV or JSON body.
+ *
+ * The section's enrollments are read with one query before the body is parsed, so every row is
+ * validated as it streams in. Valid rows are written with three JDBC batches (update existing
+ * grades, insert new ones, link the new ones to their enrollments); invalid rows are reported
+ * without stopping the import, and the affected students' academic records are recomputed once.
+ * As in the single-enrollment endpoints, a column that is left empty keeps the value already stored.
+ */
+@Service
+public class GradeImportService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_GRADE_SQL =
+        "UPDATE grade SET midterm_grade = COALESCE(?, midterm_grade), final_grade = COALESCE(?, final_grade), " +
+        "overall_grade = COALESCE(?, overall_grade), grade_value = COALESCE(?, grade_value), " +
+        "remark = COALESCE(?, remark), grade_date = ? WHERE gradeid = ?";
+
+    private static final String INSERT_GRADE_SQL =
+        "INSERT INTO grade (midterm_grade, final_grade, overall_grade, grade_value, remark, grade_date) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String LINK_GRADE_SQL =
+        "UPDATE enrolled_course SET gradeid = ? WHERE enrolled_courseid = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CourseSectionRepository courseSectionRepository;
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private GradeService gradeService;
+
+    /**
+     * Import a CSV body. The first line names the columns: enrolledCourseId or studentId (plus
+     * scheduleId when a student has several enrollments in the section), then any of
+     * midtermGrade, finalGrade, overallGrade and remark.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY')")
+    @Transactional
+    public GradeImportResultDTO importCsv(Long sectionId, InputStream body) {
+        SectionImport sectionImport = startImport(sectionId);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IllegalArgumentException("CSV body is empty");
+            }
+            List<String> header = splitCsvLine(stripBom(headerLine)).stream().map(GradeImportService::columnKey).toList();
+            if (!header.contains("enrolledcourseid") && !header.contains("studentid")) {
+                throw new IllegalArgumentException("CSV header must contain an enrolledCourseId or studentId column");
+            }
+
+            int rowNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowNumber++;
+                List<String> cells = splitCsvLine(line);
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < header.size() && i < cells.size(); i++) {
+                    String cell = cells.get(i).trim();
+                    if (!cell.isEmpty()) {
+                        values.put(header.get(i), cell);
+                    }
+                }
+                sectionImport.accept(rowNumber, values);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read CSV body: " + e.getMessage(), e);
+        }
+        return sectionImport.finish();
+    }
+
+    /**
+     * Import a JSON array of objects using the same field names as the CSV columns.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'FACULTY')")
+    @Transactional
+    public GradeImportResultDTO importJson(Long sectionId, InputStream body) {
+        SectionImport sectionImport = startImport(sectionId);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON body must be an array of grade rows");
+            }
+            int rowNumber = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                rowNumber++;
+                JsonNode node = objectMapper.readTree(parser);
+                Map<String, String> values = new HashMap<>();
+                if (node != null && node.isObject()) {
+                    for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        if (!field.getValue().isNull() && !field.getValue().asText().isBlank()) {
+                            values.put(columnKey(field.getKey()), field.getValue().asText().trim());
+                        }
+                    }
+                }
+                sectionImport.accept(rowNumber, values);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read JSON body: " + e.getMessage(), e);
+        }
+        return sectionImport.finish();
+    }
+
+    private SectionImport startImport(Long sectionId) {
+        if (sectionId == null || !courseSectionRepository.existsById(sectionId)) {
+            throw new RuntimeException("Course section not found with ID: " + sectionId);
+        }
+        List<SectionEnrollment> enrollments = enrolledCourseRepository.findGradeRowsBySectionId(sectionId).stream()
+            .map(SectionEnrollment::of)
+            .toList();
+        System.out.println("=== Grade import for section " + sectionId + " (" + enrollments.size() + " enrollments) ===");
+        return new SectionImport(sectionId, enrollments);
+    }
+
+    /**
+     * Validation state of one import; rows are checked as they arrive and written by finish().
+     */
+    private final class SectionImport {
+        private final Long sectionId;
+        private final Map<Long, SectionEnrollment> byEnrollmentId = new HashMap<>();
+        private final Map<Long, List<SectionEnrollment>> byStudentId = new HashMap<>();
+        private final Set<Long> seenEnrollmentIds = new HashSet<>();
+        private final List<RowResult> results = new ArrayList<>();
+        private final List<PendingGrade> updates = new ArrayList<>();
+        private final List<PendingGrade> inserts = new ArrayList<>();
+
+        private SectionImport(Long sectionId, List<SectionEnrollment> enrollments) {
+            this.sectionId = sectionId;
+            for (SectionEnrollment enrollment : enrollments) {
+                byEnrollmentId.put(enrollment.enrolledCourseId(), enrollment);
+                byStudentId.computeIfAbsent(enrollment.studentId(), id -> new ArrayList<>()).add(enrollment);
+            }
+        }
+
+        private void accept(int rowNumber, Map<String, String> values) {
+            RowResult.RowResultBuilder result = RowResult.builder().row(rowNumber);
+            try {
+                Long enrolledCourseId = parseId(values, "enrolledcourseid", "enrolledCourseId");
+                Long studentId = parseId(values, "studentid", "studentId");
+                Long scheduleId = parseId(values, "scheduleid", "scheduleId");
+                result.enrolledCourseId(enrolledCourseId).studentId(studentId);
+
+                SectionEnrollment enrollment = resolve(enrolledCourseId, studentId, scheduleId);
+                result.enrolledCourseId(enrollment.enrolledCourseId()).studentId(enrollment.studentId());
+
+                Double midterm = parseGrade(values, "midtermgrade", "midtermGrade");
+                Double finalGrade = parseGrade(values, "finalgrade", "finalGrade");
+                Double overall = parseGrade(values, "overallgrade", "overallGrade");
+                String remark = values.get("remark");
+                if (midterm == null && finalGrade == null && overall == null && remark == null) {
+                    throw new IllegalArgumentException("Row has no grade values");
+                }
+                if (!seenEnrollmentIds.add(enrollment.enrolledCourseId())) {
+                    throw new IllegalArgumentException("Enrollment " + enrollment.enrolledCourseId() +
+                                                       " appears more than once in the import");
+                }
+
+                PendingGrade pending = new PendingGrade(enrollment, midterm, finalGrade, overall, remark);
+                if (enrollment.gradeId() != null) {
+                    updates.add(pending);
+                    results.add(result.result(GradeImportResultDTO.UPDATED).build());
+                } else {
+                    inserts.add(pending);
+                    results.add(result.result(GradeImportResultDTO.CREATED).build());
+                }
+            } catch (IllegalArgumentException e) {
+                results.add(result.result(GradeImportResultDTO.FAILED).message(e.getMessage()).build());
+            }
+        }
+
+        private SectionEnrollment resolve(Long enrolledCourseId, Long studentId, Long scheduleId) {
+            if (enrolledCourseId != null) {
+                SectionEnrollment enrollment = byEnrollmentId.get(enrolledCourseId);
+                if (enrollment == null) {
+                    throw new IllegalArgumentException("Enrollment " + enrolledCourseId + " is not in section " + sectionId);
+                }
+                if (studentId != null && !studentId.equals(enrollment.studentId())) {
+                    throw new IllegalArgumentException("Enrollment " + enrolledCourseId + " does not belong to student " + studentId);
+                }
+                return enrollment;
+            }
+            if (studentId == null) {
+                throw new IllegalArgumentException("Either enrolledCourseId or studentId must be provided");
+            }
+            List<SectionEnrollment> candidates = byStudentId.getOrDefault(studentId, List.of()).stream()
+                .filter(enrollment -> scheduleId == null || scheduleId.equals(enrollment.scheduleId()))
+                .toList();
+            if (candidates.isEmpty()) {
+                throw new IllegalArgumentException("Student " + studentId + " is not enrolled in section " + sectionId +
+                                                   (scheduleId != null ? " for schedule " + scheduleId : ""));
+            }
+            if (candidates.size() > 1) {
+                throw new IllegalArgumentException("Student " + studentId + " has " + candidates.size() +
+                                                   " enrollments in section " + sectionId + "; give enrolledCourseId or scheduleId");
+            }
+            return candidates.get(0);
+        }
+
+        private GradeImportResultDTO finish() {
+            Date today = Date.valueOf(LocalDate.now());
+
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_GRADE_SQL, updates, BATCH_SIZE, (ps, pending) -> {
+                    setGradeColumns(ps, pending);
+                    ps.setDate(6, today);
+                    ps.setLong(7, pending.enrollment().gradeId());
+                });
+            }
+
+            for (int from = 0; from < inserts.size(); from += BATCH_SIZE) {
+                List<PendingGrade> chunk = inserts.subList(from, Math.min(from + BATCH_SIZE, inserts.size()));
+                GeneratedKeyHolder keys = new GeneratedKeyHolder();
+                jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_GRADE_SQL, new String[] {"gradeid"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setGradeColumns(ps, chunk.get(i));
+                            ps.setDate(6, today);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keys);
+
+                // Keys come back in statement order
+                List<Map<String, Object>> keyList = keys.getKeyList();
+                List<long[]> links = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    long gradeId = ((Number) keyList.get(i).get("gradeid")).longValue();
+                    links.add(new long[] {gradeId, chunk.get(i).enrollment().enrolledCourseId()});
+                }
+                jdbcTemplate.batchUpdate(LINK_GRADE_SQL, links, BATCH_SIZE, (ps, link) -> {
+                    ps.setLong(1, link[0]);
+                    ps.setLong(2, link[1]);
+                });
+            }
+
+            Set<Long> gradedStudents = new LinkedHashSet<>();
+            updates.forEach(pending -> gradedStudents.add(pending.enrollment().studentId()));
+            inserts.forEach(pending -> gradedStudents.add(pending.enrollment().studentId()));
+            gradeService.recomputeAcademicRecords(gradedStudents, List.of(sectionId));
+
+            GradeImportResultDTO report = GradeImportResultDTO.builder()
+                .sectionId(sectionId)
+                .received(results.size())
+                .created(inserts.size())
+                .updated(updates.size())
+                .failed(results.size() - inserts.size() - updates.size())
+                .rows(results)
+                .build();
+            System.out.println("Grade import finished: " + report.getCreated() + " created, " +
+                               report.getUpdated() + " updated, " + report.getFailed() + " failed");
+            return report;
+        }
+    }
+
+    private static void setGradeColumns(PreparedStatement ps, PendingGrade pending) throws SQLException {
+        ps.setObject(1, pending.midterm(), Types.DOUBLE);
+        ps.setObject(2, pending.finalGrade(), Types.DOUBLE);
+        ps.setObject(3, pending.overall(), Types.DOUBLE);
+        // gradeValue mirrors the overall grade, as in EnrolledCourseService.updateGrades
+        ps.setObject(4, pending.overall() != null ? BigDecimal.valueOf(pending.overall()) : null, Types.NUMERIC);
+        ps.setObject(5, pending.remark(), Types.VARCHAR);
+    }
+
+    private static Long parseId(Map<String, String> values, String key, String label) {
+        String value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + label + ": " + value);
+        }
+    }
+
+    private static Double parseGrade(Map<String, String> values, String key, String label) {
+        String value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        double grade;
+        try {
+            grade = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + label + ": " + value);
+        }
+        if (!(grade >= 0 && grade <= 100)) {
+            throw new IllegalArgumentException(label + " must be between 0 and 100, got " + value);
+        }
+        return grade;
+    }
+
+    /**
+     * Column and field names are matched case-insensitively, ignoring spaces, '_' and '-'.
+     */
+    private static String columnKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", "");
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    /**
+     * Split one CSV line; fields may be double-quoted, with "" for a literal quote.
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private record SectionEnrollment(Long enrolledCourseId, Long studentId, Long scheduleId, Long gradeId) {
+        private static SectionEnrollment of(Object[] row) {
+            return new SectionEnrollment((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3]);
+        }
+    }
+
+    private record PendingGrade(SectionEnrollment enrollment, Double midterm, Double finalGrade, Double overall, String remark) {
+    }
+}
@@ -7,22 +7,44 @@ import com.stasis.stasis.model.Student;
 import com.stasis.stasis.repository.GradeRepository;
 import com.stasis.stasis.repository.EnrolledCourseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class GradeService {
 
+    // Lowest grade value that counts as passing a course
+    public static final BigDecimal PASSING_GRADE = new BigDecimal("60.0");
+
+    /** Channel of {@link CacheInvalidationService} that carries {@link GradeChangedEvent}s to other nodes. */
+    public static final String CACHE = "grades";
+
     @Autowired
     private GradeRepository gradeRepository;
 
     @Autowired
     private EnrolledCourseRepository enrolledCourseRepository;
 
+    @Autowired
+    private AcademicRecordService academicRecordService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
     public List<Grade> getAllGrades() {
         return gradeRepository.findAll();
     }
@@ -35,9 +57,13 @@ public class GradeService {
         return gradeRepository.save(grade);
     }
 
+    @Transactional
     public Grade updateGrade(Long id, Grade updatedGrade) {
         return gradeRepository.findById(id)
             .map(grade -> {
+                for (Object[] owner : enrolledCourseRepository.findEnrollmentAndStudentByGradeId(id)) {
+                    recordGradeChange((Long) owner[1], (Long) owner[2], (Long) owner[0], grade.getGradeValue(), updatedGrade.getGradeValue());
+                }
                 grade.setGradeValue(updatedGrade.getGradeValue());
                 grade.setGradeDate(updatedGrade.getGradeDate());
                 grade.setMidtermGrade(updatedGrade.getMidtermGrade());
@@ -49,10 +75,59 @@ public class GradeService {
             .orElseThrow(() -> new RuntimeException("Grade not found with ID " + id));
     }
 
+    @Transactional
     public void deleteGrade(Long id) {
+        gradeRepository.findById(id).ifPresent(grade -> {
+            for (Object[] owner : enrolledCourseRepository.findEnrollmentAndStudentByGradeId(id)) {
+                recordGradeChange((Long) owner[1], (Long) owner[2], (Long) owner[0], grade.getGradeValue(), null);
+            }
+        });
         gradeRepository.deleteById(id);
     }
 
+    /**
+     * Apply a change of one enrollment's grade value to the student's academic record and
+     * announce it. Call before the enrollment is deleted when a grade is removed with it.
+     */
+    public void recordGradeChange(Long studentId, Long sectionId, Long enrolledCourseId, BigDecimal oldValue, BigDecimal newValue) {
+        academicRecordService.applyGradeChange(studentId, enrolledCourseId, oldValue, newValue);
+        notifyGradeChanged(studentId, sectionId);
+    }
+
+    /**
+     * Rebuild the academic records of students whose grades in the given sections were rewritten
+     * in bulk, and announce it.
+     */
+    public void recomputeAcademicRecords(Collection<Long> studentIds, Collection<Long> sectionIds) {
+        academicRecordService.recomputeStudents(studentIds);
+        Set<Long> changedSections = sectionIds.stream().filter(id -> id != null).collect(Collectors.toUnmodifiableSet());
+        studentIds.forEach(studentId -> notifyGradeChanged(studentId, changedSections));
+    }
+
+    /**
+     * Announce a {@link GradeChangedEvent} for the student once the surrounding transaction commits.
+     */
+    public void notifyGradeChanged(Long studentId, Long sectionId) {
+        notifyGradeChanged(studentId, sectionId != null ? Set.of(sectionId) : null);
+    }
+
+    private void notifyGradeChanged(Long studentId, Set<Long> sectionIds) {
+        if (studentId == null) {
+            return;
+        }
+        cacheInvalidationService.publish(CACHE, new GradeChangedEvent(studentId, sectionIds).toKey());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new GradeChangedEvent(studentId, sectionIds));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(new GradeChangedEvent(studentId, sectionIds));
+            }
+        });
+    }
+
     /**
      * Get all grades for a specific enrolled course
      */
@@ -77,9 +152,15 @@ public class GradeService {
     /**
      * Create or update grade for an enrolled course
      */
+    @Transactional
     public Grade createOrUpdateGradeForEnrolledCourse(Long enrolledCourseId, BigDecimal gradeValue) {
         EnrolledCourse enrolledCourse = enrolledCourseRepository.findById(enrolledCourseId)
             .orElseThrow(() -> new RuntimeException("Enrolled Course not found with ID " + enrolledCourseId));
+        if (enrolledCourse.getSemesterEnrollment() != null && enrolledCourse.getSemesterEnrollment().getStudent() != null) {
+            recordGradeChange(enrolledCourse.getSemesterEnrollment().getStudent().getId(),
+                enrolledCourse.getSection() != null ? enrolledCourse.getSection().getSectionID() : null, enrolledCourseId,
+                enrolledCourse.getGrade() != null ? enrolledCourse.getGrade().getGradeValue() : null, gradeValue);
+        }
 
         // Check if grade already exists
         Optional<Grade> existingGrade = Optional.ofNullable(enrolledCourse.getGrade());
@@ -117,7 +198,7 @@ public class GradeService {
         Optional<Grade> grade = Optional.ofNullable(enrolledCourse.getGrade());
         if (grade.isPresent()) {
             BigDecimal gradeValue = grade.get().getGradeValue();
-            return gradeValue != null && gradeValue.compareTo(new BigDecimal("60.0")) >= 0;
+            return gradeValue != null && gradeValue.compareTo(PASSING_GRADE) >= 0;
         }
         return false;
     }
@@ -154,25 +235,13 @@ public class GradeService {
     }
 
     /**
-     * Calculate cumulative average grade for a student
+     * Cumulative credit-weighted average grade for a student, read from their academic record
      */
     public BigDecimal calculateCumulativeAverageGrade(Student student) {
-        List<Grade> allGrades = getGradesByStudent(student);
-        
-        if (allGrades.isEmpty()) {
-            return null;
-        }
-
-        BigDecimal sum = allGrades.stream()
-            .filter(grade -> grade.getGradeValue() != null)
-            .map(Grade::getGradeValue)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-        long count = allGrades.stream()
-            .filter(grade -> grade.getGradeValue() != null)
-            .count();
-
-        return count > 0 ? sum.divide(new BigDecimal(count), 2, RoundingMode.HALF_UP) : null;
+        return academicRecordService.getRecordByStudentId(student.getId())
+            .filter(record -> record.getGradedCredits() != null && record.getGradedCredits() > 0)
+            .map(record -> BigDecimal.valueOf(record.getGA()).setScale(2, RoundingMode.HALF_UP))
+            .orElse(null);
     }
 
     /**
@@ -193,7 +262,7 @@ public class GradeService {
      * Get failing grades (below 60)
      */
     public List<Grade> getFailingGrades() {
-        return gradeRepository.findByGradeValueLessThan(new BigDecimal("60.0"));
+        return gradeRepository.findByGradeValueLessThan(PASSING_GRADE);
     }
 
     /**
@@ -202,4 +271,19 @@ public class GradeService {
     public List<Grade> getHonorGrades() {
         return gradeRepository.findByGradeValueGreaterThanEqual(new BigDecimal("90.0"));
     }
+
+    /**
+     * A grade of one of the student's enrollments was created, changed or removed, in the given
+     * sections when they are known. Other nodes receive it through {@link CacheInvalidationService}
+     * under {@link #CACHE}.
+     */
+    public record GradeChangedEvent(Long studentId, Set<Long> sectionIds) {
+        public String toKey() {
+            return CacheInvalidationService.key(studentId, sectionIds);
+        }
+
+        public static GradeChangedEvent fromKey(String key) {
+            return new GradeChangedEvent(CacheInvalidationService.idOf(key), CacheInvalidationService.idsOf(key));
+        }
+    }
 }
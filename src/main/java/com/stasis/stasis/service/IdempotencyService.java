@@ -0,0 +1,309 @@
+package com.stasis.stasis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stasis.stasis.model.IdempotencyRecord;
+import com.stasis.stasis.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a POST that carries an Idempotency-Key header seen before.
+ *
+ * Keys are scoped to the calling user, so two users picking the same key never see each other's
+ * responses. Recent responses are kept in a bounded, TTL-evicted in-memory map; it only holds
+ * finished responses, which never change once stored, so other nodes have nothing to invalidate
+ * there. The
+ * idempotency_record table is the source of truth across nodes: a request claims its key by
+ * inserting a pending row, which the unique (principal, endpoint, key) constraint lets only one
+ * request do, and fills in the response once done. Only successful responses are kept; a rejected
+ * request releases its key so a retry runs again once the condition has cleared. A claim still
+ * pending after the lease is treated as abandoned and may be taken over.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    private static final String LEGACY_UNIQUE_KEY = "uk_idempotency_endpoint_key";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${stasis.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${stasis.idempotency.max-cached:10000}")
+    private int maxCached;
+
+    @Value("${stasis.idempotency.pending-lease-seconds:120}")
+    private long pendingLeaseSeconds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Map<String, StoredResponse> recent;
+
+    // Requests currently running on this node, so duplicates wait for them instead of racing
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        // Replaced by the per-principal constraint; ddl-auto would leave the old one in place. Only
+        // databases created before the change still have it, so the ALTER runs once
+        Integer legacy = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, LEGACY_UNIQUE_KEY);
+        if (legacy != null && legacy > 0) {
+            jdbcTemplate.execute("ALTER TABLE idempotency_record DROP CONSTRAINT " + LEGACY_UNIQUE_KEY);
+            System.out.println("IdempotencyService: dropped the old " + LEGACY_UNIQUE_KEY + " constraint");
+        }
+        recent = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxCached;
+            }
+        });
+    }
+
+    /**
+     * Run the action once per (endpoint, key) and replay its response for repeated keys.
+     * Without a key the action simply runs.
+     */
+    public ResponseEntity<?> execute(String endpoint, String key, Object requestBody, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String principal = currentPrincipal();
+        String cacheKey = principal + ":" + endpoint + ":" + key;
+        String requestHash = hash(requestBody);
+
+        StoredResponse cached = recent.get(cacheKey);
+        if (cached != null && !cached.isExpired()) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return awaitAndReplay(running, requestHash);
+        }
+
+        try {
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByPrincipalAndEndpointAndIdempotencyKey(principal, endpoint, key);
+            if (existing.isPresent() && isAbandoned(existing.get())) {
+                idempotencyRecordRepository.deletePending(existing.get().getIdempotencyRecordID());
+                existing = Optional.empty();
+            }
+            if (existing.isPresent()) {
+                return replayRecord(existing.get(), cacheKey, requestHash);
+            }
+
+            IdempotencyRecord record;
+            try {
+                record = idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                    .principal(principal)
+                    .endpoint(endpoint)
+                    .idempotencyKey(key)
+                    .requestHash(requestHash)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            } catch (DataIntegrityViolationException e) {
+                // Another node claimed the key between our lookup and insert
+                Optional<IdempotencyRecord> claimed = idempotencyRecordRepository.findByPrincipalAndEndpointAndIdempotencyKey(principal, endpoint, key);
+                return claimed.isPresent() ? replayRecord(claimed.get(), cacheKey, requestHash) : stillProcessing();
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                // Nothing to replay; let a retry run the request again
+                idempotencyRecordRepository.delete(record);
+                throw e;
+            }
+
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                // Not replayed later; only duplicates already waiting on this request share it
+                idempotencyRecordRepository.delete(record);
+                mine.complete(new StoredResponse(response.getStatusCode().value(), toJsonOrNull(response.getBody()),
+                                                 requestHash, expiry()));
+                return response;
+            }
+
+            try {
+                StoredResponse stored = new StoredResponse(response.getStatusCode().value(), toJson(response.getBody()),
+                                                           requestHash, expiry());
+                record.setStatusCode(stored.statusCode());
+                record.setResponseBody(stored.body());
+                idempotencyRecordRepository.save(record);
+                recent.put(cacheKey, stored);
+                mine.complete(stored);
+            } catch (RuntimeException e) {
+                // The action has already happened, so answer it; a retry runs again and meets its effects
+                System.err.println("IdempotencyService: could not store response for " + endpoint + " - " + e.getMessage());
+                releaseQuietly(record);
+            }
+            return response;
+        } finally {
+            if (!mine.isDone()) {
+                mine.complete(null);
+            }
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    /**
+     * Remove records older than the TTL.
+     */
+    @Scheduled(fixedDelayString = "${stasis.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int removed = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(ttlMinutes));
+        synchronized (recent) {
+            recent.values().removeIf(StoredResponse::isExpired);
+        }
+        if (removed > 0) {
+            System.out.println("IdempotencyService: purged " + removed + " expired idempotency records");
+        }
+    }
+
+    private boolean isAbandoned(IdempotencyRecord record) {
+        return record.getStatusCode() == null
+            && record.getCreatedAt().isBefore(LocalDateTime.now().minusSeconds(pendingLeaseSeconds));
+    }
+
+    private void releaseQuietly(IdempotencyRecord record) {
+        try {
+            idempotencyRecordRepository.deletePending(record.getIdempotencyRecordID());
+        } catch (RuntimeException e) {
+            // Left for the pending lease to expire
+        }
+    }
+
+    private static String currentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || auth instanceof AnonymousAuthenticationToken ? "anonymous" : auth.getName();
+    }
+
+    private ResponseEntity<?> awaitAndReplay(CompletableFuture<StoredResponse> running, String requestHash) {
+        try {
+            StoredResponse stored = running.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+            return stored != null ? replay(stored, requestHash) : stillProcessing();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return stillProcessing();
+        } catch (ExecutionException | TimeoutException e) {
+            return stillProcessing();
+        }
+    }
+
+    private ResponseEntity<?> replayRecord(IdempotencyRecord record, String cacheKey, String requestHash) {
+        if (record.getStatusCode() == null) {
+            if (requestHash != null && !requestHash.equals(record.getRequestHash())) {
+                return keyReused();
+            }
+            return stillProcessing();
+        }
+        StoredResponse stored = new StoredResponse(record.getStatusCode(), record.getResponseBody(),
+                                                   record.getRequestHash(), expiry());
+        recent.put(cacheKey, stored);
+        return replay(stored, requestHash);
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (requestHash != null && stored.requestHash() != null && !requestHash.equals(stored.requestHash())) {
+            return keyReused();
+        }
+        return ResponseEntity.status(stored.statusCode())
+            .header(REPLAYED_HEADER, "true")
+            .body(fromJson(stored.body()));
+    }
+
+    private static ResponseEntity<?> stillProcessing() {
+        return ResponseEntity.status(409)
+            .body(Map.of("error", "A request with this Idempotency-Key is still being processed"));
+    }
+
+    private static ResponseEntity<?> keyReused() {
+        return ResponseEntity.unprocessableEntity()
+            .body(Map.of("error", "Idempotency-Key was already used for a different request"));
+    }
+
+    private LocalDateTime expiry() {
+        return LocalDateTime.now().plusMinutes(ttlMinutes);
+    }
+
+    private String toJson(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not store response for idempotent replay: " + e.getMessage());
+        }
+    }
+
+    private String toJsonOrNull(Object body) {
+        try {
+            return toJson(body);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private JsonNode fromJson(String body) {
+        try {
+            return body == null ? null : objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not read stored idempotent response: " + e.getMessage());
+        }
+    }
+
+    private String hash(Object requestBody) {
+        if (requestBody == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsString(requestBody).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private record StoredResponse(int statusCode, String body, String requestHash, LocalDateTime expiresAt) {
+        private boolean isExpired() {
+            return LocalDateTime.now().isAfter(expiresAt);
+        }
+    }
+}
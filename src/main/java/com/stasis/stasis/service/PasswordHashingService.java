@@ -0,0 +1,222 @@
+package com.stasis.stasis.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs every BCrypt hash and check on a fixed pool of its own.
+ *
+ * A login burst is limited to one hash per pool thread at a time instead of one per request
+ * thread, and once the bounded queue is full further work is refused with a {@link BusyException}
+ * that controllers answer with 503 and Retry-After, rather than letting requests pile up behind
+ * the CPU. Bulk account creation hashes in small chunks, with only a share of the pool's threads
+ * busy with or queued for it at any time, so logins keep getting threads while a bulk job runs.
+ * Nobody waits on a hash longer than the await timeout.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final int BULK_CHUNK_SIZE = 8;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stasis.passwords.bcrypt-cost:10}")
+    private int bcryptCost;
+
+    @Value("${stasis.passwords.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${stasis.passwords.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${stasis.passwords.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    @Value("${stasis.passwords.bulk-threads:0}")
+    private int bulkThreads;
+
+    @Value("${stasis.passwords.await-timeout-seconds:30}")
+    private long awaitTimeoutSeconds;
+
+    private BCryptPasswordEncoder bcrypt;
+
+    private ThreadPoolExecutor pool;
+
+    // Bulk chunks running or queued, across every bulk job
+    private Semaphore bulkPermits;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        bcrypt = new BCryptPasswordEncoder(bcryptCost);
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)));
+        bulkPermits = new Semaphore(bulkThreads > 0 ? Math.min(bulkThreads, threads) : Math.max(1, threads / 2));
+        Gauge.builder("stasis.passwords.queue-depth", pool, p -> p.getQueue().size()).register(meterRegistry);
+        Gauge.builder("stasis.passwords.active", pool, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        rejectedCounter = meterRegistry.counter("stasis.passwords.rejected");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(submit(() -> bcrypt.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> bcrypt.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Whether a stored hash was made with a lower cost than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hash many passwords across the bulk share of the pool; results are in input order.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        if (rawPasswords.isEmpty()) {
+            return List.of();
+        }
+        String[] encoded = new String[rawPasswords.size()];
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < rawPasswords.size(); from += BULK_CHUNK_SIZE) {
+                int start = from;
+                List<String> chunk = rawPasswords.subList(from, Math.min(from + BULK_CHUNK_SIZE, rawPasswords.size()));
+                // Waits here for an earlier chunk to finish rather than filling the queue ahead of logins
+                acquireBulkPermit();
+                futures.add(execute(new FutureTask<Void>(() -> {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        encoded[start + i] = bcrypt.encode(chunk.get(i));
+                    }
+                    return null;
+                }) {
+                    // Runs on completion and on cancellation, queued or not
+                    @Override
+                    protected void done() {
+                        bulkPermits.release();
+                    }
+                }));
+            }
+            futures.forEach(this::await);
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return List.of(encoded);
+    }
+
+    /**
+     * Password encoder for Spring Security and account creation that hashes on this pool.
+     */
+    public PasswordEncoder passwordEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return PasswordHashingService.this.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return PasswordHashingService.this.matches(rawPassword, encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return needsRehash(encodedPassword);
+            }
+        };
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        return execute(new FutureTask<>(task));
+    }
+
+    private <T> Future<T> execute(FutureTask<T> task) {
+        try {
+            pool.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            // Completes the task, so anything tied to its completion still happens
+            task.cancel(false);
+            rejectedCounter.increment();
+            throw new BusyException(retryAfterSeconds);
+        }
+    }
+
+    private void acquireBulkPermit() {
+        try {
+            if (!bulkPermits.tryAcquire(awaitTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new BusyException(retryAfterSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to hash passwords", e);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(awaitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new BusyException(retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Password hashing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * The hashing queue is full; the caller should retry after the given delay.
+     */
+    public static class BusyException extends RuntimeException {
+        private final int retryAfterSeconds;
+
+        public BusyException(int retryAfterSeconds) {
+            super("Password hashing is at capacity, retry in " + retryAfterSeconds + " seconds");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.model.Course;
+import com.stasis.stasis.repository.CoursePrerequisiteRepository;
+import com.stasis.stasis.repository.CourseRepository;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory prerequisite graph built from the CoursePrerequisite rows.
+ *
+ * Courses are numbered densely and every course keeps two bitsets: its direct prerequisites and the
+ * transitive closure of them. A new edge would close a cycle exactly when the prerequisite already
+ * (transitively) requires the course, which is a single bit test. When a course's prerequisites
+ * change only the closures of that course and the courses requiring it are recomputed, and the
+ * result is published as a new immutable snapshot so readers never lock. Other nodes reload the
+ * course when the change reaches them through {@link CacheInvalidationService}.
+ */
+@Service
+@Order(4)
+public class PrerequisiteGraphService implements CommandLineRunner {
+
+    /** Channel of {@link CacheInvalidationService} keyed by the course whose prerequisites changed. */
+    public static final String CACHE = "prerequisites";
+
+    @Autowired
+    private CoursePrerequisiteRepository coursePrerequisiteRepository;
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    private volatile Graph graph = Graph.EMPTY;
+
+    @PostConstruct
+    void init() {
+        cacheInvalidationService.register(CACHE, key -> reloadCourse(Long.valueOf(key)));
+    }
+
+    @Override
+    public void run(String... args) {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the whole graph from the database.
+     */
+    public synchronized void rebuild() {
+        graph = Graph.build(coursePrerequisiteRepository.findAllEdges());
+        System.out.println("PrerequisiteGraphService: loaded prerequisites of " + graph.courseIds.length + " courses");
+    }
+
+    /**
+     * Reload one course's direct prerequisites once the surrounding transaction commits.
+     */
+    public void refreshCourse(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        cacheInvalidationService.publish(CACHE, courseId.toString());
+        afterCommit(() -> reloadCourse(courseId));
+    }
+
+    private synchronized void reloadCourse(Long courseId) {
+        graph = graph.withPrerequisites(courseId, coursePrerequisiteRepository.findPrerequisiteIdsByCourseId(courseId));
+    }
+
+    /**
+     * Whether making prerequisiteId a prerequisite of courseId would create a cycle.
+     */
+    public boolean wouldCreateCycle(Long courseId, Long prerequisiteId) {
+        return courseId != null && (courseId.equals(prerequisiteId) || graph.requires(prerequisiteId, courseId));
+    }
+
+    public Set<Long> getDirectPrerequisites(Long courseId) {
+        return graph.direct(courseId);
+    }
+
+    /**
+     * Every course that must come before this one, directly or transitively.
+     */
+    public Set<Long> getAllPrerequisites(Long courseId) {
+        return graph.closure(courseId);
+    }
+
+    public Set<Long> getPassedCourseIds(Long studentId) {
+        return new HashSet<>(enrolledCourseRepository.findPassedCourseIdsByStudentId(studentId, GradeService.PASSING_GRADE));
+    }
+
+    /**
+     * Direct prerequisites of each course the student has not passed yet; courses with nothing
+     * missing are left out. The graded history is only read when a course has prerequisites.
+     */
+    public Map<Long, List<Long>> findMissingPrerequisites(Long studentId, Collection<Long> courseIds) {
+        Graph current = graph;
+        if (courseIds.stream().allMatch(courseId -> current.direct(courseId).isEmpty())) {
+            return Map.of();
+        }
+        return missingFor(current, courseIds, getPassedCourseIds(studentId));
+    }
+
+    /**
+     * {@link #findMissingPrerequisites(Long, Collection)} for many students at once, reading the
+     * graded history of every student that needs it in one query. Students with nothing missing
+     * are left out.
+     */
+    public Map<Long, Map<Long, List<Long>>> findMissingPrerequisites(Map<Long, ? extends Collection<Long>> courseIdsByStudent) {
+        Graph current = graph;
+        Set<Long> studentIds = courseIdsByStudent.entrySet().stream()
+            .filter(entry -> entry.getValue().stream().anyMatch(courseId -> !current.direct(courseId).isEmpty()))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+        if (studentIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Set<Long>> passedByStudent = new HashMap<>();
+        for (Object[] row : enrolledCourseRepository.findPassedCourseIdsByStudentIds(studentIds, GradeService.PASSING_GRADE)) {
+            passedByStudent.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        Map<Long, Map<Long, List<Long>>> missing = new HashMap<>();
+        for (Long studentId : studentIds) {
+            Map<Long, List<Long>> studentMissing = missingFor(current, courseIdsByStudent.get(studentId),
+                passedByStudent.getOrDefault(studentId, Set.of()));
+            if (!studentMissing.isEmpty()) {
+                missing.put(studentId, studentMissing);
+            }
+        }
+        return missing;
+    }
+
+    private static Map<Long, List<Long>> missingFor(Graph graph, Collection<Long> courseIds, Set<Long> passed) {
+        Map<Long, List<Long>> missing = new LinkedHashMap<>();
+        for (Long courseId : new LinkedHashSet<>(courseIds)) {
+            List<Long> notPassed = graph.direct(courseId).stream()
+                .filter(prerequisiteId -> !passed.contains(prerequisiteId))
+                .sorted()
+                .toList();
+            if (!notPassed.isEmpty()) {
+                missing.put(courseId, notPassed);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Throw unless the student has passed every direct prerequisite of the courses.
+     */
+    public void requirePrerequisites(Long studentId, Collection<Long> courseIds) {
+        Map<Long, List<Long>> missing = findMissingPrerequisites(studentId, courseIds);
+        if (missing.isEmpty()) {
+            return;
+        }
+        Set<Long> referenced = new HashSet<>(missing.keySet());
+        missing.values().forEach(referenced::addAll);
+        Map<Long, String> codes = courseRepository.findAllById(referenced).stream()
+            .collect(Collectors.toMap(Course::getId, Course::getCourseCode));
+        Map.Entry<Long, List<Long>> first = missing.entrySet().iterator().next();
+        throw new RuntimeException("Prerequisites not met for course " + codes.getOrDefault(first.getKey(), String.valueOf(first.getKey())) +
+            ": missing " + first.getValue().stream()
+                .map(id -> codes.getOrDefault(id, String.valueOf(id)))
+                .collect(Collectors.joining(", ")));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Immutable snapshot; bitsets are never modified once published.
+     */
+    private static final class Graph {
+        private static final Graph EMPTY = new Graph(Map.of(), new long[0], new BitSet[0], new BitSet[0]);
+
+        private final Map<Long, Integer> indexes;
+        private final long[] courseIds;
+        private final BitSet[] direct;
+        private final BitSet[] closure;
+
+        private Graph(Map<Long, Integer> indexes, long[] courseIds, BitSet[] direct, BitSet[] closure) {
+            this.indexes = indexes;
+            this.courseIds = courseIds;
+            this.direct = direct;
+            this.closure = closure;
+        }
+
+        private boolean requires(Long courseId, Long prerequisiteId) {
+            Integer course = indexes.get(courseId);
+            Integer prerequisite = indexes.get(prerequisiteId);
+            return course != null && prerequisite != null && closure[course].get(prerequisite);
+        }
+
+        private Set<Long> direct(Long courseId) {
+            Integer course = indexes.get(courseId);
+            return course == null ? Set.of() : toIds(direct[course]);
+        }
+
+        private Set<Long> closure(Long courseId) {
+            Integer course = indexes.get(courseId);
+            return course == null ? Set.of() : toIds(closure[course]);
+        }
+
+        private Set<Long> toIds(BitSet bits) {
+            Set<Long> ids = new LinkedHashSet<>();
+            bits.stream().forEach(i -> ids.add(courseIds[i]));
+            return ids;
+        }
+
+        private Graph withPrerequisites(Long courseId, Collection<Long> prerequisiteIds) {
+            Map<Long, Integer> newIndexes = new HashMap<>(indexes);
+            List<Long> added = new ArrayList<>();
+            for (Long id : concat(courseId, prerequisiteIds)) {
+                if (!newIndexes.containsKey(id)) {
+                    newIndexes.put(id, courseIds.length + added.size());
+                    added.add(id);
+                }
+            }
+            int size = courseIds.length + added.size();
+            long[] newCourseIds = Arrays.copyOf(courseIds, size);
+            BitSet[] newDirect = Arrays.copyOf(direct, size);
+            BitSet[] newClosure = Arrays.copyOf(closure, size);
+            for (int i = courseIds.length; i < size; i++) {
+                newCourseIds[i] = added.get(i - courseIds.length);
+                newDirect[i] = new BitSet();
+                newClosure[i] = new BitSet();
+            }
+
+            int course = newIndexes.get(courseId);
+            BitSet prerequisites = new BitSet();
+            prerequisiteIds.forEach(id -> prerequisites.set(newIndexes.get(id)));
+            newDirect[course] = prerequisites;
+
+            // Only the course itself and the courses that (transitively) require it can change
+            BitSet affected = new BitSet();
+            affected.set(course);
+            for (int i = 0; i < closure.length; i++) {
+                if (closure[i].get(course)) {
+                    affected.set(i);
+                }
+            }
+            recompute(newDirect, newClosure, affected);
+            return new Graph(newIndexes, newCourseIds, newDirect, newClosure);
+        }
+
+        private static Graph build(List<Object[]> edges) {
+            Map<Long, Integer> indexes = new HashMap<>();
+            List<Long> ids = new ArrayList<>();
+            for (Object[] edge : edges) {
+                for (Object id : edge) {
+                    if (indexes.putIfAbsent((Long) id, ids.size()) == null) {
+                        ids.add((Long) id);
+                    }
+                }
+            }
+            int size = ids.size();
+            BitSet[] direct = new BitSet[size];
+            BitSet[] closure = new BitSet[size];
+            for (int i = 0; i < size; i++) {
+                direct[i] = new BitSet();
+                closure[i] = new BitSet();
+            }
+            for (Object[] edge : edges) {
+                direct[indexes.get((Long) edge[0])].set(indexes.get((Long) edge[1]));
+            }
+            BitSet all = new BitSet();
+            all.set(0, size);
+            recompute(direct, closure, all);
+            return new Graph(indexes, ids.stream().mapToLong(Long::longValue).toArray(), direct, closure);
+        }
+
+        /**
+         * Replace closure[i] for every affected course; unaffected closures are reused as-is.
+         */
+        private static void recompute(BitSet[] direct, BitSet[] closure, BitSet affected) {
+            BitSet done = new BitSet();
+            BitSet visiting = new BitSet();
+            for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+                closureOf(i, direct, closure, affected, done, visiting);
+            }
+        }
+
+        private static BitSet closureOf(int course, BitSet[] direct, BitSet[] closure,
+                                        BitSet affected, BitSet done, BitSet visiting) {
+            if (!affected.get(course) || done.get(course)) {
+                return closure[course];
+            }
+            if (visiting.get(course)) {
+                // Cycle in rows saved before cycle checks existed; stop walking it
+                System.out.println("PrerequisiteGraphService: ignoring a prerequisite cycle in the stored data");
+                return new BitSet();
+            }
+            visiting.set(course);
+            BitSet result = new BitSet();
+            for (int p = direct[course].nextSetBit(0); p >= 0; p = direct[course].nextSetBit(p + 1)) {
+                result.set(p);
+                result.or(closureOf(p, direct, closure, affected, done, visiting));
+            }
+            visiting.clear(course);
+            done.set(course);
+            closure[course] = result;
+            return result;
+        }
+
+        private static List<Long> concat(Long courseId, Collection<Long> prerequisiteIds) {
+            List<Long> ids = new ArrayList<>(prerequisiteIds.size() + 1);
+            ids.add(courseId);
+            ids.addAll(prerequisiteIds);
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.PrincipalContext;
+import com.stasis.stasis.model.Faculty;
+import com.stasis.stasis.model.Student;
+import com.stasis.stasis.model.Users;
+import com.stasis.stasis.repository.CourseSectionRepository;
+import com.stasis.stasis.repository.FacultyRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import com.stasis.stasis.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves who the logged-in user is (user, student and faculty IDs, taught sections) once at
+ * login and keeps the result as the details of the session's authentication, so authorization
+ * checks need no queries.
+ *
+ * Changes to an account, a student, a faculty member or section assignments bump an invalidation
+ * epoch after their transaction commits; a context built before the epoch of anything it depends
+ * on is rebuilt on its next use and written back to the session. Epochs never run behind the
+ * wall clock in milliseconds, so a signed token's issue time can stand in for its build epoch.
+ * A token's role comes from the token itself, so a token whose account changed or logged out
+ * after it was issued is revoked rather than rebuilt.
+ *
+ * Every bump is also written to the principal_invalidation table, which each node polls, so a
+ * context in a shared session or token goes stale on every node within the poll delay. Epochs of
+ * different nodes are compared directly, which assumes their clocks are kept in sync.
+ */
+@Service
+public class PrincipalContextService {
+
+    // Key of the epoch at which any section last changed faculty member; affects every taught-section set
+    private static final String SECTIONS_KEY = "C";
+
+    // Stamps are re-read this far behind the newest one seen, for writes that committed out of order
+    private static final long POLL_OVERLAP_MS = 60_000;
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS principal_invalidation (target varchar(40) PRIMARY KEY, invalidated_at bigint NOT NULL)";
+
+    private static final String CREATE_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_principal_invalidation_at ON principal_invalidation (invalidated_at)";
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO principal_invalidation (target, invalidated_at) VALUES (?, ?) ON CONFLICT (target) " +
+        "DO UPDATE SET invalidated_at = GREATEST(principal_invalidation.invalidated_at, EXCLUDED.invalidated_at)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private CourseSectionRepository courseSectionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong epoch = new AtomicLong(System.currentTimeMillis());
+
+    // Epoch at which each user, student or faculty member, or the sections, last changed on any node
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+    private volatile long newestPolled;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+        pollInvalidations();
+    }
+
+    /**
+     * Pick up the stamps other nodes wrote since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${stasis.auth.invalidation-poll-ms:1000}")
+    public void pollInvalidations() {
+        jdbcTemplate.query("SELECT target, invalidated_at FROM principal_invalidation WHERE invalidated_at > ?",
+            rs -> {
+                long at = rs.getLong(2);
+                invalidatedAt.merge(rs.getString(1), at, Math::max);
+                // Contexts built from here on saw the change, even if this node's clock is behind
+                epoch.accumulateAndGet(at, Math::max);
+                newestPolled = Math.max(newestPolled, at);
+            },
+            newestPolled - POLL_OVERLAP_MS);
+    }
+
+    /**
+     * Context of the current request's user, or null when nobody is logged in.
+     */
+    public PrincipalContext current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (auth.getDetails() instanceof PrincipalContext context && !isStale(context)) {
+            return context;
+        }
+        PrincipalContext rebuilt = build(auth.getName());
+        if (rebuilt != null && auth instanceof AbstractAuthenticationToken token) {
+            token.setDetails(rebuilt);
+            saveToSession();
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Sections taught by the context's faculty member; token contexts resolve them on first use.
+     */
+    public Set<Long> taughtSectionIds(PrincipalContext context) {
+        if (context.getFacultyId() == null) {
+            return Set.of();
+        }
+        if (context.getTaughtSectionIds() == null) {
+            context.setTaughtSectionIds(Set.copyOf(courseSectionRepository.findIdsByFacultyId(context.getFacultyId())));
+        }
+        return context.getTaughtSectionIds();
+    }
+
+    /**
+     * Resolve the context of an account, or null when it no longer exists.
+     */
+    public PrincipalContext build(String username) {
+        long builtAt = epoch.get();
+        Users user = userRepository.findByUsername(username);
+        if (user == null) {
+            return null;
+        }
+        Long studentId = null;
+        Long facultyId = null;
+        Set<Long> taughtSectionIds = Set.of();
+        switch (user.getRole()) {
+            case STUDENT:
+                studentId = studentIdOf(user);
+                break;
+            case FACULTY:
+                facultyId = facultyIdOf(user);
+                if (facultyId != null) {
+                    taughtSectionIds = Set.copyOf(courseSectionRepository.findIdsByFacultyId(facultyId));
+                }
+                break;
+            default:
+                break;
+        }
+        return PrincipalContext.builder()
+            .userId(user.getUserID())
+            .username(user.getUsername())
+            .role(user.getRole())
+            .studentId(studentId)
+            .facultyId(facultyId)
+            .taughtSectionIds(taughtSectionIds)
+            .builtAt(builtAt)
+            .build();
+    }
+
+    /**
+     * Whether the context's account changed or logged out after the context was built.
+     */
+    public boolean isRevoked(PrincipalContext context) {
+        return invalidatedSince("U" + context.getUserId(), context.getBuiltAt());
+    }
+
+    public void userChanged(Long userId) {
+        invalidate("U" + userId);
+    }
+
+    public void studentChanged(Long studentId) {
+        invalidate("S" + studentId);
+    }
+
+    public void facultyChanged(Long facultyId) {
+        invalidate("F" + facultyId);
+    }
+
+    /**
+     * A section was created, deleted or given another faculty member.
+     */
+    public void sectionsChanged() {
+        invalidate(SECTIONS_KEY);
+    }
+
+    private boolean isStale(PrincipalContext context) {
+        long builtAt = context.getBuiltAt();
+        return invalidatedSince("U" + context.getUserId(), builtAt)
+            || (context.getStudentId() != null && invalidatedSince("S" + context.getStudentId(), builtAt))
+            || (context.getFacultyId() != null && (invalidatedSince("F" + context.getFacultyId(), builtAt)
+                || invalidatedSince(SECTIONS_KEY, builtAt)));
+    }
+
+    private boolean invalidatedSince(String key, long builtAt) {
+        Long changedAt = invalidatedAt.get(key);
+        return changedAt != null && changedAt > builtAt;
+    }
+
+    private void invalidate(String key) {
+        afterCommit(() -> {
+            long at = nextEpoch();
+            invalidatedAt.merge(key, at, Math::max);
+            publish(key, at);
+        });
+    }
+
+    private void publish(String key, long at) {
+        try {
+            // The change has committed; the stamp goes in a transaction of its own
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transaction.executeWithoutResult(status -> jdbcTemplate.update(UPSERT_SQL, key, at));
+        } catch (RuntimeException e) {
+            System.err.println("PrincipalContextService: could not publish invalidation of " + key + " - " + e.getMessage());
+        }
+    }
+
+    private long nextEpoch() {
+        return epoch.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+    }
+
+    /**
+     * Student ID of a student account: its link, or a name match for accounts not yet linked.
+     */
+    private Long studentIdOf(Users user) {
+        // Reading the ID of the lazy student reference does not load the student
+        if (user.getStudent() != null) {
+            return user.getStudent().getId();
+        }
+        return studentRepository.findByFirstNameAndLastName(user.getFirstName(), user.getLastName())
+            .map(Student::getId)
+            .orElse(null);
+    }
+
+    /**
+     * Faculty ID of a faculty account: its link, or a name match for accounts not yet linked.
+     */
+    private Long facultyIdOf(Users user) {
+        if (user.getFaculty() != null) {
+            return user.getFaculty().getFacultyID();
+        }
+        return facultyRepository.findByFirstNameAndLastName(user.getFirstName(), user.getLastName()).stream()
+            .findFirst()
+            .map(Faculty::getFacultyID)
+            .orElse(null);
+    }
+
+    // Re-set the attribute so session stores that only persist changed attributes write the rebuilt context
+    private static void saveToSession() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpSession session = attributes.getRequest().getSession(false);
+            if (session != null && session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) != null) {
+                session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, SecurityContextHolder.getContext());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,376 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.FreeSlotDTO;
+import com.stasis.stasis.dto.ScheduleConflictDTO;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.repository.ScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether a schedule collides with another one in the same room, taught by the same
+ * faculty member, or in the same section.
+ *
+ * Every schedule is kept in memory in three indexes of immutable weekly timetables, keyed by room,
+ * faculty member and section, so a check is a few binary searches per day instead of a query.
+ * The indexes are loaded at startup and updated when a schedule or section write commits; other
+ * nodes re-read the changed schedules or sections from the database when the change reaches them
+ * through {@link CacheInvalidationService}. Schedules without a room are not checked for room
+ * conflicts.
+ */
+@Service
+@Order(6)
+public class ScheduleConflictService implements CommandLineRunner {
+
+    /** Channels of {@link CacheInvalidationService} keyed by schedule ID and by section ID. */
+    public static final String SCHEDULE_CACHE = "conflict-schedules";
+    public static final String SECTION_CACHE = "conflict-sections";
+
+    private static final int FREE_SLOT_MINUTES = 5;
+
+    private static final int SLOTS_PER_DAY = 24 * 60 / FREE_SLOT_MINUTES;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    private final Map<String, WeeklyTimetable> byRoom = new ConcurrentHashMap<>();
+
+    private final Map<Long, WeeklyTimetable> byFaculty = new ConcurrentHashMap<>();
+
+    private final Map<Long, WeeklyTimetable> bySection = new ConcurrentHashMap<>();
+
+    // Readers go lock-free; writers replace timetables one at a time
+    private final Object writeLock = new Object();
+
+    @PostConstruct
+    void init() {
+        cacheInvalidationService.register(SCHEDULE_CACHE, key -> refreshSchedules(Set.of(Long.valueOf(key))));
+        cacheInvalidationService.register(SECTION_CACHE, key -> refreshSections(Set.of(Long.valueOf(key))));
+    }
+
+    @Override
+    public void run(String... args) {
+        reload();
+    }
+
+    /**
+     * Rebuild every index from the schedule table.
+     */
+    public void reload() {
+        List<Object[]> rows = scheduleRepository.findConflictRows();
+        synchronized (writeLock) {
+            slots.clear();
+            byRoom.clear();
+            byFaculty.clear();
+            bySection.clear();
+            rows.forEach(row -> add(Slot.of(row)));
+        }
+        System.out.println("ScheduleConflictService: indexed " + rows.size() + " schedules");
+    }
+
+    public ScheduleConflictDTO check(Schedule schedule, Long sectionId, Long facultyId, Collection<Long> excludeScheduleIds) {
+        return checkBatch(List.of(schedule), sectionId, facultyId, excludeScheduleIds).get(0);
+    }
+
+    /**
+     * Check new schedules of one section against the existing ones and against each other.
+     * When no faculty member is given, the one already teaching the section is assumed.
+     */
+    public List<ScheduleConflictDTO> checkBatch(List<Schedule> schedules, Long sectionId, Long facultyId,
+                                                Collection<Long> excludeScheduleIds) {
+        Long faculty = facultyId != null ? facultyId : facultyOf(sectionId);
+        Set<Long> excluded = new HashSet<>(excludeScheduleIds);
+
+        // Earlier schedules of the batch, by their index; all share the section and faculty member
+        WeeklyTimetable batch = WeeklyTimetable.EMPTY;
+        Map<String, WeeklyTimetable> batchByRoom = new HashMap<>();
+
+        List<ScheduleConflictDTO> results = new ArrayList<>(schedules.size());
+        for (int index = 0; index < schedules.size(); index++) {
+            Schedule schedule = schedules.get(index);
+            String room = roomKey(schedule.getRoom());
+
+            List<Long> roomConflicts = room != null ? overlaps(byRoom.get(room), schedule, excluded) : List.of();
+            List<Long> facultyConflicts = faculty != null ? overlaps(byFaculty.get(faculty), schedule, excluded) : List.of();
+            List<Long> sectionConflicts = sectionId != null ? overlaps(bySection.get(sectionId), schedule, excluded) : List.of();
+
+            WeeklyTimetable batchScope = sectionId != null || faculty != null ? batch : room != null ? batchByRoom.get(room) : null;
+            List<Integer> batchConflicts = overlaps(batchScope, schedule, Set.of()).stream().map(Long::intValue).sorted().toList();
+
+            Schedule indexed = copy(schedule, (long) index);
+            batch = batch.plus(indexed);
+            if (room != null) {
+                batchByRoom.put(room, batchByRoom.getOrDefault(room, WeeklyTimetable.EMPTY).plus(indexed));
+            }
+
+            results.add(ScheduleConflictDTO.builder()
+                .index(index)
+                .day(schedule.getDay())
+                .startTime(schedule.getStartTime())
+                .endTime(schedule.getEndTime())
+                .room(schedule.getRoom())
+                .roomConflicts(roomConflicts)
+                .facultyConflicts(facultyConflicts)
+                .sectionConflicts(sectionConflicts)
+                .batchConflicts(batchConflicts)
+                .conflicting(!roomConflicts.isEmpty() || !facultyConflicts.isEmpty() ||
+                             !sectionConflicts.isEmpty() || !batchConflicts.isEmpty())
+                .build());
+        }
+        return results;
+    }
+
+    /**
+     * Every interval of at least minMinutes between from and to on the given days during which the
+     * room, faculty member and section (whichever are given) are all free.
+     *
+     * Each day's occupancy of the three is ORed into one bitset of 5-minute slots, so free
+     * intervals are the runs of clear bits; times not on a 5-minute boundary count as busy.
+     */
+    public List<FreeSlotDTO> findFreeSlots(String room, Long facultyId, Long sectionId, String days,
+                                           LocalTime from, LocalTime to, int minMinutes) {
+        String roomKey = roomKey(room);
+        if (roomKey == null && facultyId == null && sectionId == null) {
+            throw new IllegalArgumentException("A room, facultyId or sectionId is required");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        List<WeeklyTimetable> timetables = new ArrayList<>();
+        if (roomKey != null) {
+            timetables.add(byRoom.getOrDefault(roomKey, WeeklyTimetable.EMPTY));
+        }
+        if (facultyId != null) {
+            timetables.add(byFaculty.getOrDefault(facultyId, WeeklyTimetable.EMPTY));
+        }
+        if (sectionId != null) {
+            timetables.add(bySection.getOrDefault(sectionId, WeeklyTimetable.EMPTY));
+        }
+
+        int firstSlot = (ScheduleDays.minuteOfDay(from) + FREE_SLOT_MINUTES - 1) / FREE_SLOT_MINUTES;
+        int endSlot = ScheduleDays.minuteOfDay(to) / FREE_SLOT_MINUTES;
+        int minSlots = Math.max(1, (minMinutes + FREE_SLOT_MINUTES - 1) / FREE_SLOT_MINUTES);
+
+        List<FreeSlotDTO> freeSlots = new ArrayList<>();
+        for (int day : ScheduleDays.parse(days)) {
+            BitSet busy = new BitSet(SLOTS_PER_DAY);
+            timetables.forEach(timetable -> timetable.markOccupied(day, busy, FREE_SLOT_MINUTES));
+            int slot = busy.nextClearBit(firstSlot);
+            while (slot < endSlot) {
+                int next = busy.nextSetBit(slot);
+                int end = next < 0 ? endSlot : Math.min(next, endSlot);
+                if (end - slot >= minSlots) {
+                    freeSlots.add(FreeSlotDTO.builder()
+                        .day(ScheduleDays.name(day))
+                        .startTime(LocalTime.MIDNIGHT.plusMinutes((long) slot * FREE_SLOT_MINUTES))
+                        .endTime(LocalTime.MIDNIGHT.plusMinutes((long) end * FREE_SLOT_MINUTES))
+                        .minutes((end - slot) * FREE_SLOT_MINUTES)
+                        .build());
+                }
+                slot = busy.nextClearBit(end);
+            }
+        }
+        return freeSlots;
+    }
+
+    /**
+     * Human-readable reason a schedule was rejected.
+     */
+    public static String describe(ScheduleConflictDTO conflict) {
+        List<String> reasons = new ArrayList<>();
+        if (!conflict.getRoomConflicts().isEmpty()) {
+            reasons.add("room " + conflict.getRoom() + " is taken by schedule " + conflict.getRoomConflicts());
+        }
+        if (!conflict.getFacultyConflicts().isEmpty()) {
+            reasons.add("faculty member already teaches schedule " + conflict.getFacultyConflicts());
+        }
+        if (!conflict.getSectionConflicts().isEmpty()) {
+            reasons.add("section already meets in schedule " + conflict.getSectionConflicts());
+        }
+        if (!conflict.getBatchConflicts().isEmpty()) {
+            reasons.add("overlaps schedule #" + conflict.getBatchConflicts() + " of the same request");
+        }
+        return "Schedule conflict detected on " + conflict.getDay() + " " + conflict.getStartTime() + "-" +
+            conflict.getEndTime() + ": " + String.join("; ", reasons);
+    }
+
+    /**
+     * Index a created or updated schedule once the surrounding transaction commits.
+     */
+    public void scheduleSaved(Schedule schedule, Long sectionId, Long facultyId) {
+        Slot slot = new Slot(copy(schedule, schedule.getScheduleID()), roomKey(schedule.getRoom()), sectionId, facultyId);
+        if (slot.schedule().getScheduleID() != null) {
+            cacheInvalidationService.publish(SCHEDULE_CACHE, slot.schedule().getScheduleID().toString());
+        }
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                remove(slot.schedule().getScheduleID());
+                add(slot);
+            }
+        });
+    }
+
+    public void scheduleDeleted(Long scheduleId) {
+        cacheInvalidationService.publish(SCHEDULE_CACHE, scheduleId.toString());
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                remove(scheduleId);
+            }
+        });
+    }
+
+    /**
+     * Re-read the schedules of sections whose faculty member changed or that were deleted.
+     */
+    public void sectionsChanged(Collection<Long> sectionIds) {
+        Set<Long> ids = Set.copyOf(sectionIds);
+        cacheInvalidationService.publish(SECTION_CACHE, ids.stream().map(String::valueOf).toList());
+        afterCommit(() -> refreshSections(ids));
+    }
+
+    private void refreshSections(Set<Long> sectionIds) {
+        List<Object[]> rows = scheduleRepository.findConflictRowsBySectionIds(sectionIds);
+        synchronized (writeLock) {
+            slots.values().stream()
+                .filter(slot -> slot.sectionId() != null && sectionIds.contains(slot.sectionId()))
+                .map(slot -> slot.schedule().getScheduleID())
+                .toList()
+                .forEach(this::remove);
+            rows.forEach(row -> {
+                Slot slot = Slot.of(row);
+                remove(slot.schedule().getScheduleID());
+                add(slot);
+            });
+        }
+    }
+
+    // Schedules no longer in the table are dropped
+    private void refreshSchedules(Set<Long> scheduleIds) {
+        List<Object[]> rows = scheduleRepository.findConflictRowsByScheduleIds(scheduleIds);
+        synchronized (writeLock) {
+            scheduleIds.forEach(this::remove);
+            rows.forEach(row -> add(Slot.of(row)));
+        }
+    }
+
+    private Long facultyOf(Long sectionId) {
+        if (sectionId == null) {
+            return null;
+        }
+        return slots.values().stream()
+            .filter(slot -> sectionId.equals(slot.sectionId()) && slot.facultyId() != null)
+            .map(Slot::facultyId)
+            .findFirst()
+            .orElse(null);
+    }
+
+    private void add(Slot slot) {
+        if (slot.schedule().getScheduleID() == null) {
+            return;
+        }
+        slots.put(slot.schedule().getScheduleID(), slot);
+        if (slot.room() != null) {
+            byRoom.compute(slot.room(), (key, timetable) -> plus(timetable, slot.schedule()));
+        }
+        if (slot.facultyId() != null) {
+            byFaculty.compute(slot.facultyId(), (key, timetable) -> plus(timetable, slot.schedule()));
+        }
+        if (slot.sectionId() != null) {
+            bySection.compute(slot.sectionId(), (key, timetable) -> plus(timetable, slot.schedule()));
+        }
+    }
+
+    private void remove(Long scheduleId) {
+        Slot slot = slots.remove(scheduleId);
+        if (slot == null) {
+            return;
+        }
+        if (slot.room() != null) {
+            byRoom.computeIfPresent(slot.room(), (key, timetable) -> without(timetable, scheduleId));
+        }
+        if (slot.facultyId() != null) {
+            byFaculty.computeIfPresent(slot.facultyId(), (key, timetable) -> without(timetable, scheduleId));
+        }
+        if (slot.sectionId() != null) {
+            bySection.computeIfPresent(slot.sectionId(), (key, timetable) -> without(timetable, scheduleId));
+        }
+    }
+
+    private static WeeklyTimetable plus(WeeklyTimetable timetable, Schedule schedule) {
+        return (timetable != null ? timetable : WeeklyTimetable.EMPTY).plus(schedule);
+    }
+
+    private static WeeklyTimetable without(WeeklyTimetable timetable, Long scheduleId) {
+        WeeklyTimetable remaining = timetable.minus(scheduleId);
+        return remaining.isEmpty() ? null : remaining;
+    }
+
+    private static List<Long> overlaps(WeeklyTimetable timetable, Schedule schedule, Set<Long> excluded) {
+        if (timetable == null) {
+            return List.of();
+        }
+        return timetable.findOverlaps(schedule).stream().filter(id -> !excluded.contains(id)).toList();
+    }
+
+    private static Schedule copy(Schedule schedule, Long scheduleId) {
+        return Schedule.builder()
+            .scheduleID(scheduleId)
+            .day(schedule.getDay())
+            .startTime(schedule.getStartTime())
+            .endTime(schedule.getEndTime())
+            .room(schedule.getRoom())
+            .build();
+    }
+
+    private static String roomKey(String room) {
+        return room == null || room.isBlank() ? null : room.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Slot(Schedule schedule, String room, Long sectionId, Long facultyId) {
+        private static Slot of(Object[] row) {
+            Schedule schedule = Schedule.builder()
+                .scheduleID((Long) row[0])
+                .room((String) row[1])
+                .day((String) row[2])
+                .startTime((LocalTime) row[3])
+                .endTime((LocalTime) row[4])
+                .build();
+            return new Slot(schedule, roomKey(schedule.getRoom()), (Long) row[5], (Long) row[6]);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.stasis.stasis.service;
+
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Parses the free-text Schedule.day column into week-day indexes (0 = Monday .. 6 = Sunday).
+ *
+ * Accepts full or abbreviated names ("Monday", "Mon"), lists ("Monday, Wednesday", "Mon/Wed")
+ * and compact codes ("MWF", "TTh"). Unrecognised text yields no days.
+ */
+final class ScheduleDays {
+
+    static final int DAYS_PER_WEEK = 7;
+
+    private static final String[] NAMES = {
+        "monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"
+    };
+
+    private ScheduleDays() {
+    }
+
+    static int[] parse(String day) {
+        if (day == null || day.isBlank()) {
+            return new int[0];
+        }
+        boolean[] days = new boolean[DAYS_PER_WEEK];
+        for (String token : day.toLowerCase(Locale.ROOT).split("[\\s,/;&+-]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int named = byName(token);
+            if (named >= 0) {
+                days[named] = true;
+            } else {
+                parseCompact(token, days);
+            }
+        }
+        return IntStream.range(0, DAYS_PER_WEEK).filter(i -> days[i]).toArray();
+    }
+
+    static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    static String name(int dayIndex) {
+        String name = NAMES[dayIndex];
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static int byName(String token) {
+        if (token.length() < 2) {
+            return -1;
+        }
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].startsWith(token)) {
+                return i;
+            }
+        }
+        // "thur", "thurs", "tues" and similar spellings
+        if (token.startsWith("thu")) return 3;
+        if (token.startsWith("tue")) return 1;
+        return -1;
+    }
+
+    private static void parseCompact(String token, boolean[] result) {
+        boolean[] days = new boolean[DAYS_PER_WEEK];
+        int i = 0;
+        while (i < token.length()) {
+            String rest = token.substring(i);
+            if (rest.startsWith("th")) {
+                days[3] = true;
+                i += 2;
+            } else if (rest.startsWith("tu")) {
+                days[1] = true;
+                i += 2;
+            } else if (rest.startsWith("sa")) {
+                days[5] = true;
+                i += 2;
+            } else if (rest.startsWith("su")) {
+                days[6] = true;
+                i += 2;
+            } else {
+                switch (rest.charAt(0)) {
+                    case 'm' -> days[0] = true;
+                    case 't' -> days[1] = true;
+                    case 'w' -> days[2] = true;
+                    case 'r' -> days[3] = true;
+                    case 'f' -> days[4] = true;
+                    case 's' -> days[5] = true;
+                    case 'u' -> days[6] = true;
+                    default -> {
+                        // Not a day code; ignore the whole token
+                        return;
+                    }
+                }
+                i++;
+            }
+        }
+        for (int d = 0; d < DAYS_PER_WEEK; d++) {
+            result[d] |= days[d];
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.stasis.stasis.service;
 
+import com.stasis.stasis.dto.FreeSlotDTO;
+import com.stasis.stasis.dto.ScheduleConflictDTO;
 import com.stasis.stasis.model.Schedule;
 import com.stasis.stasis.model.CourseSection;
 import com.stasis.stasis.model.Course;
@@ -11,8 +13,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ScheduleService {
@@ -26,6 +30,15 @@ public class ScheduleService {
     @Autowired
     private CourseRepository courseRepository;
     
+    @Autowired
+    private SeatReservationService seatReservationService;
+    
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+    
+    @Autowired
+    private ScheduleConflictService scheduleConflictService;
+    
     @Transactional(readOnly = true)
     public List<Schedule> getAllSchedules() {
         return scheduleRepository.findAll();
@@ -41,36 +54,32 @@ public class ScheduleService {
         // Validate schedule data
         validateScheduleData(schedule);
         
-        // Check for schedule conflicts globally
-        List<Schedule> conflicts = findConflictingSchedules(
-            schedule.getDay(), 
-            schedule.getStartTime(), 
-            schedule.getEndTime()
-        );
-        
-        if (!conflicts.isEmpty()) {
-            throw new RuntimeException("Schedule conflict detected: Time slot already occupied");
+        CourseSection section = null;
+        if (courseSectionId != null) {
+            section = courseSectionRepository.findById(courseSectionId)
+                .orElseThrow(() -> new IllegalArgumentException("Course section not found with id: " + courseSectionId));
         }
+        Long facultyId = facultyIdOf(section);
         
-        // If course is assigned, check for course-schedule conflicts within the same section
-        if (schedule.getCourse() != null && courseSectionId != null) {
-            validateCourseScheduleAssignment(schedule, courseSectionId, null);
+        // Check for room, faculty and section conflicts
+        ScheduleConflictDTO conflict = scheduleConflictService.check(schedule, courseSectionId, facultyId, List.of());
+        if (conflict.isConflicting()) {
+            throw new RuntimeException(ScheduleConflictService.describe(conflict));
         }
         
         Schedule savedSchedule = scheduleRepository.save(schedule);
         
         // Update the CourseSection with the new schedule
-        if (courseSectionId != null) {
-            CourseSection section = courseSectionRepository.findById(courseSectionId)
-                .orElseThrow(() -> new IllegalArgumentException("Course section not found with id: " + courseSectionId));
-            
+        if (section != null) {
             // Add schedule to the section's schedules list
             if (section.getSchedules() == null) {
                 section.setSchedules(new java.util.ArrayList<>());
             }
             section.getSchedules().add(savedSchedule);
             courseSectionRepository.save(section);
+            studentEnrollmentIndexService.evictSections(List.of(section.getSectionID()));
         }
+        scheduleConflictService.scheduleSaved(savedSchedule, courseSectionId, facultyId);
         
         return savedSchedule;
     }
@@ -110,44 +119,8 @@ public class ScheduleService {
         }
     }
     
-    private void validateCourseScheduleAssignment(Schedule schedule, Long courseSectionId, Long excludeScheduleId) {
-        if (schedule.getCourse() == null) return;
-        
-        // Find all schedules for the same course in the same section
-        CourseSection section = courseSectionRepository.findById(courseSectionId)
-            .orElseThrow(() -> new IllegalArgumentException("Course section not found"));
-            
-        if (section.getSchedules() != null) {
-            for (Schedule existingSchedule : section.getSchedules()) {
-                // Skip the schedule being updated
-                if (excludeScheduleId != null && existingSchedule.getScheduleID().equals(excludeScheduleId)) {
-                    continue;
-                }
-                
-                // Check if same course has conflicting schedule
-                if (existingSchedule.getCourse() != null && 
-                    existingSchedule.getCourse().getId().equals(schedule.getCourse().getId()) &&
-                    existingSchedule.getDay().equals(schedule.getDay())) {
-                    
-                    // Check for time overlap
-                    if (schedulesOverlap(existingSchedule, schedule)) {
-                        throw new RuntimeException(
-                            "Course schedule conflict: Course " + schedule.getCourse().getCourseCode() + 
-                            " already has a conflicting schedule in this section"
-                        );
-                    }
-                }
-            }
-        }
-    }
-    
-    private boolean schedulesOverlap(Schedule schedule1, Schedule schedule2) {
-        LocalTime start1 = schedule1.getStartTime();
-        LocalTime end1 = schedule1.getEndTime();
-        LocalTime start2 = schedule2.getStartTime();
-        LocalTime end2 = schedule2.getEndTime();
-        
-        return (start1.isBefore(end2) && end1.isAfter(start2));
+    private static Long facultyIdOf(CourseSection section) {
+        return section != null && section.getFaculty() != null ? section.getFaculty().getFacultyID() : null;
     }
     
     @Transactional
@@ -158,23 +131,12 @@ public class ScheduleService {
         // Validate schedule data
         validateScheduleData(scheduleDetails);
         
-        // Check for schedule conflicts globally (excluding current schedule)
-        List<Schedule> conflicts = findConflictingSchedules(
-            scheduleDetails.getDay(), 
-            scheduleDetails.getStartTime(), 
-            scheduleDetails.getEndTime()
-        ).stream()
-        .filter(conflictSchedule -> !conflictSchedule.getScheduleID().equals(id))
-        .toList();
-        
-        if (!conflicts.isEmpty()) {
-            throw new RuntimeException("Schedule conflict detected: Time slot already occupied");
-        }
-        
-        // Find the section this schedule belongs to
+        // Check for room, faculty and section conflicts (excluding current schedule)
         CourseSection section = courseSectionRepository.findBySchedule_ScheduleID(id);
-        if (section != null && scheduleDetails.getCourse() != null) {
-            validateCourseScheduleAssignment(scheduleDetails, section.getSectionID(), id);
+        Long sectionId = section != null ? section.getSectionID() : null;
+        ScheduleConflictDTO conflict = scheduleConflictService.check(scheduleDetails, sectionId, facultyIdOf(section), List.of(id));
+        if (conflict.isConflicting()) {
+            throw new RuntimeException(ScheduleConflictService.describe(conflict));
         }
         
         // Update basic properties
@@ -184,8 +146,14 @@ public class ScheduleService {
         schedule.setRoom(scheduleDetails.getRoom());
         schedule.setStatus(scheduleDetails.getStatus());
         schedule.setCourse(scheduleDetails.getCourse());
+        schedule.setCapacity(scheduleDetails.getCapacity());
         
-        return scheduleRepository.save(schedule);
+        seatReservationService.updateCapacity(id, schedule.getCapacity(), section != null ? section.getCapacity() : null);
+        evictEnrolledStudents(section);
+        
+        Schedule savedSchedule = scheduleRepository.save(schedule);
+        scheduleConflictService.scheduleSaved(savedSchedule, sectionId, facultyIdOf(section));
+        return savedSchedule;
     }
     
     @Transactional
@@ -210,6 +178,18 @@ public class ScheduleService {
         }
         // Now safe to delete
         scheduleRepository.deleteById(id);
+        seatReservationService.forgetSchedule(id);
+        scheduleConflictService.scheduleDeleted(id);
+        evictEnrolledStudents(section);
+    }
+
+    // A schedule outside any section cannot be narrowed down to the students it affects
+    private void evictEnrolledStudents(CourseSection section) {
+        if (section != null) {
+            studentEnrollmentIndexService.evictSections(List.of(section.getSectionID()));
+        } else {
+            studentEnrollmentIndexService.evictAll();
+        }
     }
     
     public List<Schedule> getSchedulesByStatus(String status) {
@@ -242,16 +222,37 @@ public class ScheduleService {
         return scheduleRepository.findSchedulesByTimeRange(startTime, endTime);
     }
     
-    public List<Schedule> checkConflicts(String day, LocalTime startTime, LocalTime endTime, Long excludeScheduleId) {
-        List<Schedule> conflicts = findConflictingSchedules(day, startTime, endTime);
-        
-        // Exclude the schedule being updated
-        if (excludeScheduleId != null) {
-            conflicts = conflicts.stream()
-                .filter(schedule -> !schedule.getScheduleID().equals(excludeScheduleId))
+    /**
+     * Existing schedules a proposed time slot would collide with. Without a room, section or faculty
+     * member nothing can collide, so the plain time overlap on that day is returned as before.
+     */
+    public List<Schedule> checkConflicts(String day, LocalTime startTime, LocalTime endTime, String room,
+                                         Long sectionId, Long facultyId, Long excludeScheduleId) {
+        if (room == null && sectionId == null && facultyId == null) {
+            return findConflictingSchedules(day, startTime, endTime).stream()
+                .filter(schedule -> excludeScheduleId == null || !schedule.getScheduleID().equals(excludeScheduleId))
                 .toList();
         }
-        
-        return conflicts;
+        Schedule candidate = Schedule.builder().day(day).startTime(startTime).endTime(endTime).room(room).build();
+        ScheduleConflictDTO conflict = scheduleConflictService.check(candidate, sectionId, facultyId,
+            excludeScheduleId != null ? List.of(excludeScheduleId) : List.of());
+        Set<Long> conflictIds = new LinkedHashSet<>(conflict.getRoomConflicts());
+        conflictIds.addAll(conflict.getFacultyConflicts());
+        conflictIds.addAll(conflict.getSectionConflicts());
+        return scheduleRepository.findAllById(conflictIds);
+    }
+    
+    public List<FreeSlotDTO> findFreeSlots(String room, Long facultyId, Long sectionId, String days,
+                                           LocalTime from, LocalTime to, int minMinutes) {
+        return scheduleConflictService.findFreeSlots(room, facultyId, sectionId, days, from, to, minMinutes);
+    }
+    
+    /**
+     * Validate new schedules of a section against the existing ones and against each other.
+     */
+    public List<ScheduleConflictDTO> checkConflicts(List<Schedule> schedules, Long sectionId, Long facultyId,
+                                                    List<Long> excludeScheduleIds) {
+        return scheduleConflictService.checkBatch(schedules, sectionId, facultyId,
+            excludeScheduleIds != null ? excludeScheduleIds : List.of());
     }
 }
\ No newline at end of file
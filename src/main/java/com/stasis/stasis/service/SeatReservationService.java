@@ -0,0 +1,280 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seat accounting per schedule.
+ *
+ * Seats are not taken lock-free. Each schedule row keeps a {@code seats_taken} count that is
+ * raised with a conditional UPDATE inside the enrolling transaction and lowered inside the
+ * dropping one; the UPDATE holds the row lock until commit, so enrollments in the same schedule
+ * queue behind each other, a rollback gives the seat back and no node can oversell. The in-memory
+ * counters are only a cache of the committed counts in front of that UPDATE, used as a fast first
+ * check; a counter that says full is confirmed against the database before anyone is turned away.
+ * Counters are not kept in step across nodes: another node's changes only make them wrong in ways
+ * those two checks catch, and the availability report reads the database. Counts are recomputed from EnrolledCourseRepository at startup and on demand, a chunk of
+ * schedules at a time.
+ */
+@Service
+@Order(2)
+public class SeatReservationService implements CommandLineRunner {
+
+    public static final int UNLIMITED = -1;
+
+    // Schedule rows locked by one recount transaction
+    private static final int RECOUNT_CHUNK_SIZE = 200;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Only schedules that exist are cached; deleted schedules are forgotten
+    private final Map<Long, SeatCounter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void run(String... args) {
+        reconcile();
+    }
+
+    /**
+     * Take one seat in each schedule, all or nothing, within the caller's transaction. Throws
+     * {@link SeatsFullException} for the first schedule without room.
+     */
+    public void reserveSeats(Collection<Long> scheduleIds) {
+        List<Long> ids = scheduleIds.stream().distinct().sorted().toList();
+        for (Long scheduleId : ids) {
+            if (!hasAvailableSeat(scheduleId)) {
+                throw new SeatsFullException(scheduleId);
+            }
+        }
+
+        // ID order keeps concurrent multi-schedule enrollments from locking rows in opposite orders
+        List<Long> taken = new ArrayList<>();
+        for (Long scheduleId : ids) {
+            if (scheduleRepository.takeSeat(scheduleId) == 0) {
+                // Bulk enrollment carries on with its other rows, so hand back what this call took
+                taken.forEach(scheduleRepository::releaseSeat);
+                throw new SeatsFullException(scheduleId);
+            }
+            taken.add(scheduleId);
+        }
+        afterCommit(() -> taken.forEach(id -> adjust(id, 1)));
+    }
+
+    /**
+     * Lock the seat rows of every schedule a transaction is about to take seats in, for callers
+     * that take them over many calls in no particular order.
+     */
+    public void lockSchedules(Collection<Long> scheduleIds) {
+        if (!scheduleIds.isEmpty()) {
+            scheduleRepository.lockForSeats(scheduleIds);
+        }
+    }
+
+    /**
+     * Give back seats within the caller's transaction and, once it commits, announce them with a
+     * {@link SeatsReleasedEvent}.
+     */
+    public void releaseSeats(Collection<Long> scheduleIds) {
+        List<Long> ids = scheduleIds.stream().distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(scheduleRepository::releaseSeat);
+        afterCommit(() -> {
+            ids.forEach(id -> adjust(id, -1));
+            eventPublisher.publishEvent(new SeatsReleasedEvent(ids));
+        });
+    }
+
+    /**
+     * Apply a capacity change made to a schedule or its section.
+     */
+    public void updateCapacity(Long scheduleId, Integer scheduleCapacity, Integer sectionCapacity) {
+        SeatCounter counter = counters.get(scheduleId);
+        if (counter != null) {
+            int previous = counter.capacity;
+            counter.capacity = effectiveCapacity(scheduleCapacity, sectionCapacity);
+            if (previous != UNLIMITED && (counter.capacity == UNLIMITED || counter.capacity > previous)) {
+                eventPublisher.publishEvent(new SeatsReleasedEvent(List.of(scheduleId)));
+            }
+        }
+    }
+
+    public void forgetSchedule(Long scheduleId) {
+        counters.remove(scheduleId);
+    }
+
+    public Map<String, Object> getAvailability(Long scheduleId) {
+        SeatCounter counter = load(scheduleId);
+        if (counter == null) {
+            throw new RuntimeException("Schedule not found with ID: " + scheduleId);
+        }
+        int taken = counter.taken.get();
+        Map<String, Object> availability = new LinkedHashMap<>();
+        availability.put("scheduleId", scheduleId);
+        availability.put("capacity", counter.capacity == UNLIMITED ? null : counter.capacity);
+        availability.put("taken", taken);
+        availability.put("available", counter.capacity == UNLIMITED ? null : Math.max(0, counter.capacity - taken));
+        return availability;
+    }
+
+    /**
+     * Whether the schedule exists and has a free seat. Only a yes is answered from memory.
+     */
+    public boolean hasAvailableSeat(Long scheduleId) {
+        SeatCounter counter = counters.get(scheduleId);
+        if (counter != null && counter.hasRoom()) {
+            return true;
+        }
+        counter = load(scheduleId);
+        return counter != null && counter.hasRoom();
+    }
+
+    /**
+     * Free seats of a schedule as committed in the database: {@link #UNLIMITED} without a limit,
+     * 0 when it does not exist. Lock the row with {@link #lockSchedules} first for a count that
+     * holds until the caller's transaction ends.
+     */
+    public int freeSeats(Long scheduleId) {
+        SeatCounter counter = load(scheduleId);
+        if (counter == null) {
+            return 0;
+        }
+        return counter.capacity == UNLIMITED ? UNLIMITED : Math.max(0, counter.capacity - counter.taken.get());
+    }
+
+    /**
+     * Recompute every schedule's seat count from the enrollment table and replace the counters
+     * with the result. Schedules are recounted in ID-ordered chunks, each in its own transaction
+     * that locks only its own rows, so enrollments elsewhere carry on meanwhile.
+     */
+    public int reconcile() {
+        List<Long> scheduleIds = scheduleRepository.findAllIdsOrdered();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Set<Long> seen = new HashSet<>();
+        for (int from = 0; from < scheduleIds.size(); from += RECOUNT_CHUNK_SIZE) {
+            List<Long> chunk = scheduleIds.subList(from, Math.min(from + RECOUNT_CHUNK_SIZE, scheduleIds.size()));
+            List<Object[]> rows = transaction.execute(status -> {
+                scheduleRepository.lockForSeats(chunk);
+                scheduleRepository.recountSeats(chunk);
+                return scheduleRepository.findSeatRows(chunk);
+            });
+            for (Object[] row : rows) {
+                counters.put((Long) row[0], toCounter(row));
+                seen.add((Long) row[0]);
+            }
+        }
+        // Schedules deleted since; ones created meanwhile are simply loaded again on first use
+        counters.keySet().retainAll(seen);
+        System.out.println("SeatReservationService: recounted seats for " + seen.size() + " schedules");
+        return seen.size();
+    }
+
+    private void adjust(Long scheduleId, int delta) {
+        SeatCounter counter = counters.get(scheduleId);
+        if (counter != null) {
+            counter.taken.updateAndGet(value -> Math.max(0, value + delta));
+        }
+    }
+
+    // Read outside any map lock; a schedule that does not exist is not cached
+    private SeatCounter load(Long scheduleId) {
+        List<Object[]> rows = scheduleRepository.findSeatRow(scheduleId);
+        if (rows.isEmpty()) {
+            counters.remove(scheduleId);
+            return null;
+        }
+        SeatCounter counter = toCounter(rows.get(0));
+        counters.put(scheduleId, counter);
+        return counter;
+    }
+
+    private static SeatCounter toCounter(Object[] row) {
+        Integer capacity = (Integer) row[1];
+        Integer taken = (Integer) row[2];
+        return new SeatCounter(capacity != null && capacity >= 0 ? capacity : UNLIMITED, taken != null ? taken : 0);
+    }
+
+    private static int effectiveCapacity(Integer scheduleCapacity, Integer sectionCapacity) {
+        Integer capacity = scheduleCapacity != null ? scheduleCapacity : sectionCapacity;
+        return capacity != null && capacity >= 0 ? capacity : UNLIMITED;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Published after seats become free, either through a committed drop or a capacity increase.
+     */
+    public record SeatsReleasedEvent(List<Long> scheduleIds) {
+    }
+
+    /**
+     * The schedule has no free seat.
+     */
+    public static class SeatsFullException extends RuntimeException {
+        private final Long scheduleId;
+
+        public SeatsFullException(Long scheduleId) {
+            super("Schedule " + scheduleId + " is full");
+            this.scheduleId = scheduleId;
+        }
+
+        public Long getScheduleId() {
+            return scheduleId;
+        }
+    }
+
+    /**
+     * Committed seats of a schedule as last seen by this node.
+     */
+    private static final class SeatCounter {
+        private volatile int capacity;
+        private final AtomicInteger taken;
+
+        private SeatCounter(int capacity, int taken) {
+            this.capacity = capacity;
+            this.taken = new AtomicInteger(taken);
+        }
+
+        private boolean hasRoom() {
+            int limit = capacity;
+            return limit == UNLIMITED || taken.get() < limit;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.FacultyGradeResponseDTO;
+import com.stasis.stasis.repository.CourseSectionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-section grade statistics for the faculty dashboard.
+ *
+ * All of a faculty member's sections are summarised by one aggregate query, and the result is
+ * cached per faculty member for a short time. A grade or enrollment change evicts the faculty
+ * member whose cached summaries include its section; changes to sections no cached summary
+ * includes leave the cache alone. The TTL covers edits to the sections themselves, such as a
+ * section moving to another faculty member. Grade and enrollment changes made on other nodes arrive
+ * through {@link CacheInvalidationService}.
+ */
+@Service
+public class SectionGradeSummaryService {
+
+    @Autowired
+    private CourseSectionRepository courseSectionRepository;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Value("${stasis.grades.summary-cache-seconds:30}")
+    private long cacheTtlSeconds;
+
+    private final Map<Long, CachedSummaries> cache = new ConcurrentHashMap<>();
+
+    // sectionId -> faculty member whose summaries last included the section
+    private final Map<Long, Long> facultyBySection = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so summaries read before it are not cached: per faculty member,
+    // and for all of them by evictAll and by changes to sections of no known faculty member
+    private final Map<Long, Long> facultyGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cacheInvalidationService.register(GradeService.CACHE,
+            key -> onGradeChanged(GradeService.GradeChangedEvent.fromKey(key)));
+        cacheInvalidationService.register(StudentEnrollmentIndexService.CACHE,
+            key -> onEnrollmentsChanged(StudentEnrollmentIndexService.EnrollmentsChangedEvent.fromKey(key)));
+    }
+
+    public List<FacultyGradeResponseDTO> getSummariesByFaculty(Long facultyId) {
+        CachedSummaries cached = cache.get(facultyId);
+        if (cached != null && !cached.isExpired()) {
+            return cached.summaries();
+        }
+        long startAll = allGeneration.get();
+        long startFaculty = facultyGeneration(facultyId);
+        List<FacultyGradeResponseDTO> summaries = courseSectionRepository
+            .findGradeSummariesByFacultyId(facultyId, GradeService.PASSING_GRADE).stream()
+            .map(SectionGradeSummaryService::toSummary)
+            .toList();
+        // Registered before the check, so a change to one of these sections either bumps this
+        // faculty member's generation or, not yet mapped, the generation of all
+        summaries.forEach(summary -> facultyBySection.put(summary.getSectionId(), facultyId));
+        store(facultyId, new CachedSummaries(summaries, LocalDateTime.now().plusSeconds(cacheTtlSeconds)), startAll, startFaculty);
+        return summaries;
+    }
+
+    @EventListener
+    public void onGradeChanged(GradeService.GradeChangedEvent event) {
+        evictSections(event.sectionIds());
+    }
+
+    @EventListener
+    public void onEnrollmentsChanged(StudentEnrollmentIndexService.EnrollmentsChangedEvent event) {
+        evictSections(event.sectionIds());
+    }
+
+    /**
+     * Evict the faculty members teaching these sections, or everyone when the sections are not known.
+     */
+    public void evictSections(Collection<Long> sectionIds) {
+        if (sectionIds == null) {
+            evictAll();
+            return;
+        }
+        boolean unmapped = false;
+        for (Long sectionId : sectionIds) {
+            Long facultyId = facultyBySection.get(sectionId);
+            if (facultyId != null) {
+                evictFaculty(facultyId);
+            } else {
+                unmapped = true;
+            }
+        }
+        if (unmapped) {
+            // No cached summary includes the section, but one being read right now might
+            allGeneration.incrementAndGet();
+        }
+    }
+
+    public void evictFaculty(Long facultyId) {
+        facultyGenerations.merge(facultyId, 1L, Long::sum);
+        cache.remove(facultyId);
+    }
+
+    public void evictAll() {
+        allGeneration.incrementAndGet();
+        cache.clear();
+    }
+
+    private long facultyGeneration(Long facultyId) {
+        return facultyGenerations.getOrDefault(facultyId, 0L);
+    }
+
+    private void store(Long facultyId, CachedSummaries summaries, long startAll, long startFaculty) {
+        if (allGeneration.get() != startAll || facultyGeneration(facultyId) != startFaculty) {
+            return;
+        }
+        cache.put(facultyId, summaries);
+        // An eviction that slipped in between the check and the put must still win
+        if (allGeneration.get() != startAll || facultyGeneration(facultyId) != startFaculty) {
+            cache.remove(facultyId, summaries);
+        }
+    }
+
+    private static FacultyGradeResponseDTO toSummary(Object[] row) {
+        Number average = (Number) row[6];
+        Number passed = (Number) row[7];
+        return FacultyGradeResponseDTO.builder()
+            .sectionId((Long) row[0])
+            .sectionName((String) row[1])
+            .courseCode(row[2] != null ? (String) row[2] : "N/A")
+            .courseDescription(row[3] != null ? (String) row[3] : "Unknown Course")
+            .enrolledStudentsCount(((Number) row[4]).intValue())
+            .studentsWithGrades(((Number) row[5]).intValue())
+            .averageGrade(average != null ? Math.round(average.doubleValue() * 100) / 100.0 : null)
+            .passedCount(passed != null ? passed.intValue() : 0)
+            .build();
+    }
+
+    private record CachedSummaries(List<FacultyGradeResponseDTO> summaries, LocalDateTime expiresAt) {
+        private boolean isExpired() {
+            return LocalDateTime.now().isAfter(expiresAt);
+        }
+    }
+}
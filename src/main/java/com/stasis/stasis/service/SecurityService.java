@@ -1,20 +1,21 @@
 package com.stasis.stasis.service;
 
+import com.stasis.stasis.dto.PrincipalContext;
 import com.stasis.stasis.model.Users;
-import com.stasis.stasis.model.Student;
-import com.stasis.stasis.model.Faculty;
-import com.stasis.stasis.model.EnrolledCourse;
-import com.stasis.stasis.repository.UserRepository;
-import com.stasis.stasis.repository.StudentRepository;
-import com.stasis.stasis.repository.FacultyRepository;
+import com.stasis.stasis.model.UserRole;
 import com.stasis.stasis.repository.EnrolledCourseRepository;
+import com.stasis.stasis.repository.UserRepository;
+import com.stasis.stasis.repository.WaitlistEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service("securityService")
 public class SecurityService {
@@ -23,11 +24,14 @@ public class SecurityService {
     private UserRepository userRepository;
     
     @Autowired
-    private StudentRepository studentRepository;
-    
+    private PrincipalContextService principalContextService;
+
     @Autowired
-    private FacultyRepository facultyRepository;
+    private WaitlistEntryRepository waitlistEntryRepository;
     
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+
     @Autowired
     private EnrolledCourseRepository enrolledCourseRepository;
 
@@ -35,39 +39,26 @@ public class SecurityService {
      * Check if the currently authenticated user is the same as the requested student
      */
     public boolean isCurrentUser(Long studentId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) {
+        PrincipalContext current = principalContextService.current();
+        if (current == null) {
             System.out.println("SecurityService: No authentication or not authenticated");
             return false;
         }
 
-        String username = auth.getName();
-        Users currentUser = userRepository.findByUsername(username);
-        
-        if (currentUser == null) {
-            System.out.println("SecurityService: Current user not found for username: " + username);
-            return false;
-        }
-
         // Check if current user is a student role
-        if (!currentUser.getRole().name().equals("STUDENT")) {
-            System.out.println("SecurityService: Current user is not a student, role: " + currentUser.getRole());
+        if (current.getRole() != UserRole.STUDENT) {
+            System.out.println("SecurityService: Current user is not a student, role: " + current.getRole());
             return false;
         }
 
-        // Find the student associated with the current user
-        Optional<Student> currentStudentOpt = studentRepository.findByFirstNameAndLastName(
-            currentUser.getFirstName(), currentUser.getLastName());
-        
-        if (!currentStudentOpt.isPresent()) {
-            System.out.println("SecurityService: Student record not found for user: " + currentUser.getFirstName() + " " + currentUser.getLastName());
+        if (current.getStudentId() == null) {
+            System.out.println("SecurityService: Student record not found for user: " + current.getUsername());
             return false;
         }
 
-        Student currentStudent = currentStudentOpt.get();
-        boolean isMatch = currentStudent.getId().equals(studentId);
+        boolean isMatch = current.getStudentId().equals(studentId);
         
-        System.out.println("SecurityService: Checking student access - Current student ID: " + currentStudent.getId() + 
+        System.out.println("SecurityService: Checking student access - Current student ID: " + current.getStudentId() + 
                           ", Requested student ID: " + studentId + ", Match: " + isMatch);
         
         return isMatch;
@@ -77,44 +68,79 @@ public class SecurityService {
      * Check if the currently authenticated faculty is the same as the requested faculty
      */
     public boolean isCurrentFaculty(Long facultyId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) {
+        PrincipalContext current = principalContextService.current();
+        if (current == null) {
             System.out.println("SecurityService: No authentication or not authenticated");
             return false;
         }
 
-        String username = auth.getName();
-        Users currentUser = userRepository.findByUsername(username);
-        
-        if (currentUser == null) {
-            System.out.println("SecurityService: Current user not found for username: " + username);
-            return false;
-        }
-
         // Check if current user is a faculty role
-        if (!currentUser.getRole().name().equals("FACULTY")) {
-            System.out.println("SecurityService: Current user is not faculty, role: " + currentUser.getRole());
+        if (current.getRole() != UserRole.FACULTY) {
+            System.out.println("SecurityService: Current user is not faculty, role: " + current.getRole());
             return false;
         }
 
-        // Find the faculty associated with the current user
-        List<Faculty> facultyList = facultyRepository.findByFirstNameAndLastName(
-            currentUser.getFirstName(), currentUser.getLastName());
-        
-        if (facultyList.isEmpty()) {
-            System.out.println("SecurityService: Faculty record not found for user: " + currentUser.getFirstName() + " " + currentUser.getLastName());
+        if (current.getFacultyId() == null) {
+            System.out.println("SecurityService: Faculty record not found for user: " + current.getUsername());
             return false;
         }
 
-        Faculty currentFaculty = facultyList.get(0);
-        boolean isMatch = currentFaculty.getFacultyID().equals(facultyId);
+        boolean isMatch = current.getFacultyId().equals(facultyId);
         
-        System.out.println("SecurityService: Checking faculty access - Current faculty ID: " + currentFaculty.getFacultyID() + 
+        System.out.println("SecurityService: Checking faculty access - Current faculty ID: " + current.getFacultyId() + 
                           ", Requested faculty ID: " + facultyId + ", Match: " + isMatch);
         
         return isMatch;
     }
 
+    /**
+     * Check if the currently authenticated faculty member teaches the requested section
+     */
+    public boolean teachesSection(Long sectionId) {
+        PrincipalContext current = principalContextService.current();
+        return current != null && current.getRole() == UserRole.FACULTY
+            && principalContextService.taughtSectionIds(current).contains(sectionId);
+    }
+
+    /**
+     * Check if the current user is the faculty member teaching the enrollment's section
+     */
+    public boolean teachesEnrollment(Long enrollmentId) {
+        return teachesEnrollments(List.of(enrollmentId));
+    }
+
+    /**
+     * Check if the current user teaches the sections of every enrollment in a bulk grade update
+     */
+    public boolean teachesGradeUpdates(List<Map<String, Object>> gradeUpdates) {
+        List<Long> enrollmentIds = new ArrayList<>();
+        for (Map<String, Object> gradeUpdate : gradeUpdates) {
+            Object enrollmentId = gradeUpdate.get("enrollmentId");
+            if (enrollmentId == null) {
+                return false;
+            }
+            try {
+                enrollmentIds.add(Long.valueOf(enrollmentId.toString()));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return teachesEnrollments(enrollmentIds);
+    }
+
+    private boolean teachesEnrollments(Collection<Long> enrollmentIds) {
+        PrincipalContext current = principalContextService.current();
+        if (current == null || current.getRole() != UserRole.FACULTY) {
+            return false;
+        }
+        if (enrollmentIds.isEmpty()) {
+            return true;
+        }
+        Set<Long> taught = principalContextService.taughtSectionIds(current);
+        return enrolledCourseRepository.findSectionIdsByEnrollmentIds(enrollmentIds).stream()
+            .allMatch(sectionId -> sectionId != null && taught.contains(sectionId));
+    }
+
     /**
      * Get the current authenticated user
      */
@@ -132,81 +158,53 @@ public class SecurityService {
      * Get the current authenticated user's student ID if they are a student
      */
     public Long getCurrentStudentId() {
-        Users currentUser = getCurrentUser();
-        if (currentUser == null || !currentUser.getRole().name().equals("STUDENT")) {
-            return null;
-        }
-
-        Optional<Student> student = studentRepository.findByFirstNameAndLastName(
-            currentUser.getFirstName(), currentUser.getLastName());
-        
-        return student.map(Student::getId).orElse(null);
+        PrincipalContext current = principalContextService.current();
+        return current != null ? current.getStudentId() : null;
     }
 
     /**
      * Get the current authenticated user's faculty ID if they are faculty
      */
     public Long getCurrentFacultyId() {
-        Users currentUser = getCurrentUser();
-        if (currentUser == null || !currentUser.getRole().name().equals("FACULTY")) {
-            return null;
-        }
+        PrincipalContext current = principalContextService.current();
+        return current != null ? current.getFacultyId() : null;
+    }
 
-        // Assuming Faculty has a similar method - you may need to adjust based on your Faculty repository
-        Optional<Faculty> faculty = facultyRepository.findByFirstNameAndLastName(
-            currentUser.getFirstName(), currentUser.getLastName()).stream().findFirst();
-        
-        return faculty.map(Faculty::getFacultyID).orElse(null);
+    /**
+     * Check if a waitlist entry belongs to the currently authenticated student
+     */
+    public boolean ownsWaitlistEntry(Long waitlistEntryId) {
+        PrincipalContext current = principalContextService.current();
+        if (current == null || current.getRole() != UserRole.STUDENT || current.getStudentId() == null) {
+            return false;
+        }
+        return waitlistEntryRepository.findById(waitlistEntryId)
+            .map(entry -> current.getStudentId().equals(entry.getStudentId()))
+            .orElse(false);
     }
 
     /**
      * Check if the current user can access/modify a specific enrollment
      */
     public boolean canAccessEnrollment(Long enrollmentId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) {
+        PrincipalContext current = principalContextService.current();
+        if (current == null) {
             System.out.println("SecurityService: No authentication for enrollment access check");
             return false;
         }
 
-        String username = auth.getName();
-        Users currentUser = userRepository.findByUsername(username);
-        
-        if (currentUser == null) {
-            System.out.println("SecurityService: Current user not found for enrollment access: " + username);
-            return false;
-        }
-
         // Admin can access any enrollment
-        if ("ADMIN".equals(currentUser.getRole().name())) {
+        if (current.getRole() == UserRole.ADMIN) {
             System.out.println("SecurityService: Admin access granted for enrollment: " + enrollmentId);
             return true;
         }
 
         // For students, check if the enrollment belongs to them
-        if ("STUDENT".equals(currentUser.getRole().name())) {
-            Optional<Student> currentStudentOpt = studentRepository.findByFirstNameAndLastName(
-                currentUser.getFirstName(), currentUser.getLastName());
-            
-            if (currentStudentOpt.isPresent()) {
-                Student currentStudent = currentStudentOpt.get();
-                
-                // Find the enrollment and check if it belongs to this student
-                Optional<EnrolledCourse> enrollmentOpt = enrolledCourseRepository.findById(enrollmentId);
-                if (enrollmentOpt.isPresent()) {
-                    EnrolledCourse enrollment = enrollmentOpt.get();
-                    Long enrollmentStudentId = enrollment.getSemesterEnrollment().getStudent().getId();
-                    boolean isOwner = currentStudent.getId().equals(enrollmentStudentId);
-                    
-                    System.out.println("SecurityService: Student " + currentStudent.getId() + 
-                                     " checking enrollment " + enrollmentId + 
-                                     " (belongs to student " + enrollmentStudentId + ") - Owner: " + isOwner);
-                    return isOwner;
-                } else {
-                    System.out.println("SecurityService: Enrollment not found: " + enrollmentId);
-                    return false;
-                }
-            }
+        if (current.getRole() == UserRole.STUDENT && current.getStudentId() != null) {
+            boolean isOwner = studentEnrollmentIndexService.ownsEnrollment(current.getStudentId(), enrollmentId);
+            System.out.println("SecurityService: Student " + current.getStudentId() + 
+                             " checking enrollment " + enrollmentId + " - Owner: " + isOwner);
+            return isOwner;
         }
 
         System.out.println("SecurityService: Access denied for enrollment: " + enrollmentId);
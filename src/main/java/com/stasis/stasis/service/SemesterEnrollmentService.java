@@ -1,12 +1,10 @@
 package com.stasis.stasis.service;
 
 import com.stasis.stasis.model.SemesterEnrollment;
-import com.stasis.stasis.model.EnrolledCourse;
-import com.stasis.stasis.model.CourseSection;
 import com.stasis.stasis.repository.SemesterEnrollmentRepository;
-import com.stasis.stasis.repository.EnrolledCourseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,7 +17,10 @@ public class SemesterEnrollmentService {
     private SemesterEnrollmentRepository semesterEnrollmentRepository;
 
     @Autowired
-    private EnrolledCourseRepository enrolledCourseRepository;
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
 
     public List<SemesterEnrollment> getAllSemesterEnrollments() {
         return semesterEnrollmentRepository.findAll();
@@ -37,18 +38,27 @@ public class SemesterEnrollmentService {
     public SemesterEnrollment updateSemesterEnrollment(Long id, SemesterEnrollment updatedEnrollment) {
         return semesterEnrollmentRepository.findById(id)
             .map(enrollment -> {
+                // The enrollments filed under this term may move to another student or term
+                Long previousStudentId = enrollment.getStudent() != null ? enrollment.getStudent().getId() : null;
                 enrollment.setStudent(updatedEnrollment.getStudent());
                 enrollment.setSemester(updatedEnrollment.getSemester());
                 enrollment.setAcademicYear(updatedEnrollment.getAcademicYear());
                 enrollment.setStatus(updatedEnrollment.getStatus());
                 enrollment.setTotalCredits(updatedEnrollment.getTotalCredits());
+                academicTermService.evictEnrollment(id);
+                studentEnrollmentIndexService.evictStudent(previousStudentId);
+                studentEnrollmentIndexService.evictStudent(updatedEnrollment.getStudent() != null ?
+                    updatedEnrollment.getStudent().getId() : null);
                 return semesterEnrollmentRepository.save(enrollment);
             })
             .orElseThrow(() -> new RuntimeException("Semester Enrollment not found with ID " + id));
     }
 
     public void deleteSemesterEnrollment(Long id) {
+        semesterEnrollmentRepository.findById(id)
+            .ifPresent(enrollment -> studentEnrollmentIndexService.evictStudent(enrollment.getStudent().getId()));
         semesterEnrollmentRepository.deleteById(id);
+        academicTermService.evictEnrollment(id);
     }
 
     public List<SemesterEnrollment> getEnrollmentsByStudent(Long studentId) {
@@ -63,26 +73,13 @@ public class SemesterEnrollmentService {
         return semesterEnrollmentRepository.findActiveEnrollments();
     }
 
+    @Transactional
     public SemesterEnrollment updateTotalCredits(Long id) {
+        if (!semesterEnrollmentRepository.existsById(id)) {
+            throw new RuntimeException("Semester Enrollment not found with ID " + id);
+        }
+        semesterEnrollmentRepository.recomputeTotalCredits(List.of(id));
         return semesterEnrollmentRepository.findById(id)
-            .map(enrollment -> {
-                List<EnrolledCourse> enrolledCourses = enrolledCourseRepository.findBySemesterEnrollment(enrollment);
-                int totalCredits = enrolledCourses.stream()
-                    .mapToInt(ec -> {
-                        // Calculate credits from all schedules in the course section
-                        CourseSection section = ec.getSection();
-                        if (section != null && section.getSchedules() != null) {
-                            return section.getSchedules().stream()
-                                .filter(schedule -> schedule.getCourse() != null)
-                                .mapToInt(schedule -> schedule.getCourse().getCreditUnits())
-                                .sum(); // Sum all credits from different courses in the section
-                        }
-                        return 0;
-                    })
-                    .sum();
-                enrollment.setTotalCredits(totalCredits);
-                return semesterEnrollmentRepository.save(enrollment);
-            })
             .orElseThrow(() -> new RuntimeException("Semester Enrollment not found with ID " + id));
     }
 
@@ -0,0 +1,408 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.model.CourseSection;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Compact per-student index of what a student is enrolled in, used for duplicate and time-conflict checks.
+ *
+ * Each entry is an immutable snapshot of sorted long arrays (enrollment, section, schedule and
+ * course IDs) plus the student's current-term weekly timetable, built from two projection queries
+ * the first time a student is looked up. New
+ * enrollments are merged in after their transaction commits; drops, rollbacks and catalogue
+ * changes evict the entry so it is rebuilt from the database on next use. Every such change is
+ * announced with an {@link EnrollmentsChangedEvent} for caches derived from a student's enrollments,
+ * and published to the other nodes through {@link CacheInvalidationService} under {@link #CACHE}.
+ */
+@Service
+public class StudentEnrollmentIndexService {
+
+    public static final String CACHE = "enrollments";
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    private final Map<Long, StudentIndex> indexes = new ConcurrentHashMap<>();
+
+    // Bumped on every change to an entry, so a load that read the database before it is not kept;
+    // a student's change holds back that student's loads, a wider eviction everyone's
+    private final Map<Long, Long> studentGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationService.register(CACHE, key -> evictChanged(EnrollmentsChangedEvent.fromKey(key)));
+    }
+
+    public boolean isEnrolledInSection(Long studentId, Long sectionId) {
+        return indexFor(studentId).sectionIds.contains(sectionId);
+    }
+
+    /**
+     * Whether the student holds an enrollment bound to exactly this schedule.
+     */
+    public boolean isEnrolledInSchedule(Long studentId, Long scheduleId) {
+        return indexFor(studentId).scheduleIds.contains(scheduleId);
+    }
+
+    /**
+     * Whether any section the student is enrolled in offers one of these courses.
+     */
+    public boolean hasCourseInEnrolledSections(Long studentId, Collection<Long> courseIds) {
+        LongSet sectionCourseIds = indexFor(studentId).sectionCourseIds;
+        return courseIds.stream().anyMatch(sectionCourseIds::contains);
+    }
+
+    /**
+     * Whether a section-wide (legacy) enrollment of the student already covers this course.
+     */
+    public boolean hasSectionWideCourse(Long studentId, Long courseId) {
+        return indexFor(studentId).sectionWideCourseIds.contains(courseId);
+    }
+
+    public boolean ownsEnrollment(Long studentId, Long enrolledCourseId) {
+        return indexFor(studentId).enrolledCourseIds.contains(enrolledCourseId);
+    }
+
+    public Set<Long> getSectionCourseIds(Long studentId) {
+        return indexFor(studentId).sectionCourseIds.toSet();
+    }
+
+    public int getEnrollmentCount(Long studentId) {
+        return indexFor(studentId).enrolledCourseIds.size();
+    }
+
+    /**
+     * ID of a schedule in the student's current-term timetable that overlaps this one, or null.
+     */
+    public Long findTimeConflict(Long studentId, Schedule schedule) {
+        return indexFor(studentId).timetable.findOverlap(schedule);
+    }
+
+    WeeklyTimetable getTimetable(Long studentId) {
+        return indexFor(studentId).timetable;
+    }
+
+    /**
+     * Merge a newly saved current-term enrollment into the student's entry once the surrounding
+     * transaction commits. On rollback the entry is dropped, since it may have been loaded inside
+     * that transaction.
+     */
+    public void recordEnrollment(Long studentId, Long enrolledCourseId, CourseSection section, Long scheduleId) {
+        List<Schedule> schedules = section.getSchedules() == null ? List.of() : List.copyOf(section.getSchedules());
+        long[] courseIds = schedules.stream()
+            .map(Schedule::getCourse)
+            .filter(course -> course != null && course.getId() != null)
+            .mapToLong(course -> course.getId())
+            .toArray();
+        List<Schedule> covered = schedules.stream()
+            .filter(schedule -> scheduleId == null || scheduleId.equals(schedule.getScheduleID()))
+            .toList();
+        Long sectionId = section.getSectionID();
+        cacheInvalidationService.publish(CACHE, new EnrollmentsChangedEvent(studentId, sectionId != null ? Set.of(sectionId) : null).toKey());
+        afterCompletion(committed -> {
+            studentChanged(studentId);
+            if (committed) {
+                indexes.computeIfPresent(studentId,
+                    (id, index) -> index.with(enrolledCourseId, sectionId, scheduleId, courseIds, covered));
+                eventPublisher.publishEvent(new EnrollmentsChangedEvent(studentId, sectionId != null ? Set.of(sectionId) : null));
+            } else {
+                indexes.remove(studentId);
+            }
+        });
+    }
+
+    /**
+     * Drop the student's entry now and again when the surrounding transaction completes; it is rebuilt lazily.
+     */
+    public void evictStudent(Long studentId) {
+        evictStudent(studentId, null);
+    }
+
+    /**
+     * Same as {@link #evictStudent(Long)}, naming the sections whose enrollments of the student changed.
+     */
+    public void evictStudent(Long studentId, Collection<Long> sectionIds) {
+        if (studentId == null) {
+            return;
+        }
+        Set<Long> changedSections = sectionIds == null ? null : sectionIds.stream()
+            .filter(id -> id != null)
+            .collect(Collectors.toUnmodifiableSet());
+        studentChanged(studentId);
+        indexes.remove(studentId);
+        cacheInvalidationService.publish(CACHE, new EnrollmentsChangedEvent(studentId, changedSections).toKey());
+        afterCompletion(committed -> {
+            studentChanged(studentId);
+            indexes.remove(studentId);
+            eventPublisher.publishEvent(new EnrollmentsChangedEvent(studentId, changedSections));
+        });
+    }
+
+    /**
+     * Drop the entries of students enrolled in these sections, e.g. after the schedules or courses
+     * a section offers changed.
+     */
+    public void evictSections(Collection<Long> sectionIds) {
+        Set<Long> ids = Set.copyOf(sectionIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        evictEnrolledIn(ids);
+        cacheInvalidationService.publish(CACHE, new EnrollmentsChangedEvent(null, ids).toKey());
+        afterCompletion(committed -> {
+            evictEnrolledIn(ids);
+            eventPublisher.publishEvent(new EnrollmentsChangedEvent(null, ids));
+        });
+    }
+
+    /**
+     * Drop every entry, for changes that cannot be narrowed down to sections.
+     */
+    public void evictAll() {
+        allGeneration.incrementAndGet();
+        indexes.clear();
+        cacheInvalidationService.publish(CACHE, new EnrollmentsChangedEvent(null, null).toKey());
+        afterCompletion(committed -> {
+            allGeneration.incrementAndGet();
+            indexes.clear();
+            eventPublisher.publishEvent(new EnrollmentsChangedEvent(null, null));
+        });
+    }
+
+    // A change another node made; its events were announced there
+    private void evictChanged(EnrollmentsChangedEvent change) {
+        if (change.studentId() != null) {
+            studentChanged(change.studentId());
+            indexes.remove(change.studentId());
+        } else if (change.sectionIds() != null) {
+            evictEnrolledIn(change.sectionIds());
+        } else {
+            allGeneration.incrementAndGet();
+            indexes.clear();
+        }
+    }
+
+    private void evictEnrolledIn(Set<Long> sectionIds) {
+        allGeneration.incrementAndGet();
+        indexes.values().removeIf(index -> sectionIds.stream().anyMatch(index.sectionIds::contains));
+    }
+
+    private void studentChanged(Long studentId) {
+        studentGenerations.merge(studentId, 1L, Long::sum);
+    }
+
+    // Loaded outside the map so the queries hold no bin lock; a racing load keeps the first entry
+    private StudentIndex indexFor(Long studentId) {
+        StudentIndex index = indexes.get(studentId);
+        if (index != null) {
+            return index;
+        }
+        long startAll = allGeneration.get();
+        long startStudent = studentGenerations.getOrDefault(studentId, 0L);
+        StudentIndex loaded = loadIndex(studentId);
+        StudentIndex raced = indexes.putIfAbsent(studentId, loaded);
+        if (raced != null) {
+            return raced;
+        }
+        // A change that landed while loading must still win; the caller uses what it read
+        if (allGeneration.get() != startAll || studentGenerations.getOrDefault(studentId, 0L) != startStudent) {
+            indexes.remove(studentId, loaded);
+        }
+        return loaded;
+    }
+
+    private StudentIndex loadIndex(Long studentId) {
+        LongSet.Builder enrolledCourseIds = new LongSet.Builder();
+        LongSet.Builder sectionIds = new LongSet.Builder();
+        LongSet.Builder scheduleIds = new LongSet.Builder();
+        LongSet.Builder sectionCourseIds = new LongSet.Builder();
+        LongSet.Builder sectionWideCourseIds = new LongSet.Builder();
+
+        List<Object[]> rows = enrolledCourseRepository.findIndexRowsByStudentId(studentId);
+        for (Object[] row : rows) {
+            Long scheduleId = (Long) row[2];
+            Long courseId = (Long) row[4];
+            enrolledCourseIds.add((Long) row[0]);
+            sectionIds.add((Long) row[1]);
+            if (scheduleId != null) {
+                scheduleIds.add(scheduleId);
+            }
+            if (courseId != null) {
+                sectionCourseIds.add(courseId);
+                if (scheduleId == null) {
+                    sectionWideCourseIds.add(courseId);
+                }
+            }
+        }
+
+        WeeklyTimetable.Builder timetable = new WeeklyTimetable.Builder();
+        List<Object[]> times = enrolledCourseRepository.findScheduleTimesByStudentAndTerm(
+            studentId, academicTermService.getCurrentSemester(), academicTermService.getCurrentAcademicYear());
+        for (Object[] row : times) {
+            timetable.add((Long) row[0], (String) row[1], (LocalTime) row[2], (LocalTime) row[3]);
+        }
+
+        return new StudentIndex(enrolledCourseIds.build(), sectionIds.build(), scheduleIds.build(),
+                                sectionCourseIds.build(), sectionWideCourseIds.build(), timetable.build());
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * A student's enrollments may have changed; with a null studentId, what the enrollments in the
+     * given sections cover, or with no sections either, what any enrollment covers. A student's
+     * event names the sections involved when they are known.
+     */
+    public record EnrollmentsChangedEvent(Long studentId, Set<Long> sectionIds) {
+        public EnrollmentsChangedEvent(Long studentId) {
+            this(studentId, null);
+        }
+
+        public String toKey() {
+            return CacheInvalidationService.key(studentId, sectionIds);
+        }
+
+        public static EnrollmentsChangedEvent fromKey(String key) {
+            return new EnrollmentsChangedEvent(CacheInvalidationService.idOf(key), CacheInvalidationService.idsOf(key));
+        }
+    }
+
+    private static final class StudentIndex {
+        private final LongSet enrolledCourseIds;
+        private final LongSet sectionIds;
+        private final LongSet scheduleIds;
+        private final LongSet sectionCourseIds;
+        private final LongSet sectionWideCourseIds;
+        private final WeeklyTimetable timetable;
+
+        private StudentIndex(LongSet enrolledCourseIds, LongSet sectionIds, LongSet scheduleIds,
+                             LongSet sectionCourseIds, LongSet sectionWideCourseIds, WeeklyTimetable timetable) {
+            this.enrolledCourseIds = enrolledCourseIds;
+            this.sectionIds = sectionIds;
+            this.scheduleIds = scheduleIds;
+            this.sectionCourseIds = sectionCourseIds;
+            this.sectionWideCourseIds = sectionWideCourseIds;
+            this.timetable = timetable;
+        }
+
+        private StudentIndex with(Long enrolledCourseId, Long sectionId, Long scheduleId, long[] courseIds,
+                                  List<Schedule> coveredSchedules) {
+            WeeklyTimetable merged = timetable;
+            for (Schedule schedule : coveredSchedules) {
+                merged = merged.plus(schedule);
+            }
+            return new StudentIndex(
+                enrolledCourseIds.plus(enrolledCourseId),
+                sectionIds.plus(sectionId),
+                scheduleId != null ? scheduleIds.plus(scheduleId) : scheduleIds,
+                sectionCourseIds.plus(courseIds),
+                scheduleId == null ? sectionWideCourseIds.plus(courseIds) : sectionWideCourseIds,
+                merged);
+        }
+    }
+
+    /**
+     * Immutable sorted set of primitive longs.
+     */
+    private static final class LongSet {
+        private static final LongSet EMPTY = new LongSet(new long[0]);
+
+        private final long[] values;
+
+        private LongSet(long[] values) {
+            this.values = values;
+        }
+
+        private boolean contains(Long value) {
+            return value != null && Arrays.binarySearch(values, value) >= 0;
+        }
+
+        private int size() {
+            return values.length;
+        }
+
+        private LongSet plus(Long value) {
+            return value == null ? this : plus(new long[] { value });
+        }
+
+        private LongSet plus(long[] extra) {
+            if (extra.length == 0) {
+                return this;
+            }
+            long[] merged = Arrays.copyOf(values, values.length + extra.length);
+            System.arraycopy(extra, 0, merged, values.length, extra.length);
+            return of(merged);
+        }
+
+        private Set<Long> toSet() {
+            Set<Long> set = new LinkedHashSet<>();
+            for (long value : values) {
+                set.add(value);
+            }
+            return set;
+        }
+
+        private static LongSet of(long[] values) {
+            if (values.length == 0) {
+                return EMPTY;
+            }
+            return new LongSet(Arrays.stream(values).sorted().distinct().toArray());
+        }
+
+        private static final class Builder {
+            private long[] values = new long[8];
+            private int size;
+
+            private void add(Long value) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = value;
+            }
+
+            private LongSet build() {
+                return of(Arrays.copyOf(values, size));
+            }
+        }
+    }
+}
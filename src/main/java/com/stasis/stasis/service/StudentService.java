@@ -10,35 +10,47 @@ import com.stasis.stasis.repository.AdvisorRepository;
 import com.stasis.stasis.repository.SemesterEnrollmentRepository;
 import com.stasis.stasis.repository.StudentRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import lombok.RequiredArgsConstructor;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class StudentService {
 
+    private static final int MAX_BULK_STUDENTS = 1000;
+
     private final StudentRepository studentRepository;
     private final AcademicRecordService academicRecordService;
     private final UserService userService;
     private final AdvisorRepository advisorRepository;
     private final SemesterEnrollmentRepository semesterEnrollmentRepository;
+    private final AcademicTermService academicTermService;
+    private final StudentEnrollmentIndexService studentEnrollmentIndexService;
+    private final DegreeAuditService degreeAuditService;
+    private final PrincipalContextService principalContextService;
+    private final PlatformTransactionManager transactionManager;
 
     @Autowired
     private EmailValidationService emailValidationService;
 
     public List<Student> getAllStudents() {
         List<Student> students = studentRepository.findAll();
-        // Populate username for each student
+        // Populate usernames from the linked accounts in one query
+        Map<Long, String> usernames = userService.getUsernamesByStudentIds(students.stream().map(Student::getId).toList());
         for (Student student : students) {
-            Optional<Users> user = userService.getUserByStudentInfo(student.getFirstName(), student.getLastName());
-            if (user.isPresent()) {
-                student.setUsername(user.get().getUsername());
-            }
+            student.setUsername(usernames.get(student.getId()));
         }
         return students;
     }
@@ -48,7 +60,7 @@ public class StudentService {
         if (studentOpt.isPresent()) {
             Student student = studentOpt.get();
             // Populate username
-            Optional<Users> user = userService.getUserByStudentInfo(student.getFirstName(), student.getLastName());
+            Optional<Users> user = userService.getUserForStudent(student);
             if (user.isPresent()) {
                 student.setUsername(user.get().getUsername());
             }
@@ -91,22 +103,60 @@ public class StudentService {
                 .GA(0.0)
                 .totalCredits(0)
                 .academicStanding("Good")
+                .weightedGradeSum(BigDecimal.ZERO)
+                .gradedCredits(0)
                 .build();
         academicRecordService.createRecord(academicRecord);
 
         // Create User account for the student with auto-generated credentials
         // Format: [year]-[counter starting from 10000]-[S for student]
         // Password: randomly generated 7 character alphanumeric string
-        com.stasis.stasis.dto.UserWithPlainPassword userWithPassword = userService.createUserWithGeneratedCredentialsForDisplay(
-                savedStudent.getFirstName(), 
-                savedStudent.getLastName(), 
-                savedStudent.getEmail(),
-                UserRole.STUDENT
-        );
+        com.stasis.stasis.dto.UserWithPlainPassword userWithPassword = userService.createUserForStudent(savedStudent);
 
         return new StudentWithCredentials(savedStudent, userWithPassword.getUser().getUsername(), userWithPassword.getPlainTextPassword());
     }
 
+    /**
+     * Create many students with their academic records and accounts in one transaction. Passwords
+     * are hashed in parallel beforehand so no connection is held while hashing.
+     */
+    public List<StudentWithCredentials> createStudents(List<Student> students) {
+        if (students.size() > MAX_BULK_STUDENTS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_STUDENTS + " students can be created at once");
+        }
+        Set<String> emails = new HashSet<>();
+        for (Student student : students) {
+            if (!emails.add(student.getEmail()) || !emailValidationService.isEmailUnique(student.getEmail())) {
+                throw new RuntimeException("Email already exists in the system: " + student.getEmail());
+            }
+        }
+        
+        List<com.stasis.stasis.dto.UserWithPlainPassword> accounts = userService.buildUsersForStudents(students);
+        
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Student> savedStudents = studentRepository.saveAll(students);
+            for (Student savedStudent : savedStudents) {
+                academicRecordService.createRecord(AcademicRecord.builder()
+                        .student(savedStudent)
+                        .GA(0.0)
+                        .totalCredits(0)
+                        .academicStanding("Good")
+                        .weightedGradeSum(BigDecimal.ZERO)
+                        .gradedCredits(0)
+                        .build());
+            }
+            userService.saveWithGeneratedUsernames(accounts.stream().map(com.stasis.stasis.dto.UserWithPlainPassword::getUser).toList(),
+                UserRole.STUDENT);
+            
+            List<StudentWithCredentials> created = new ArrayList<>(savedStudents.size());
+            for (int i = 0; i < savedStudents.size(); i++) {
+                com.stasis.stasis.dto.UserWithPlainPassword account = accounts.get(i);
+                created.add(new StudentWithCredentials(savedStudents.get(i), account.getUser().getUsername(), account.getPlainTextPassword()));
+            }
+            return created;
+        });
+    }
+
     public Student updateStudent(Long id, Student studentDetails) {
         return studentRepository.findById(id)
             .map(student -> {
@@ -116,8 +166,8 @@ public class StudentService {
                     throw new IllegalArgumentException("Email already exists in the system");
                 }
                 
-                // Get the user record BEFORE updating the student (using old name)
-                Optional<Users> userOpt = userService.getUserByStudentInfo(student.getFirstName(), student.getLastName());
+                // Get the user record BEFORE updating the student (unlinked accounts are found by the old name)
+                Optional<Users> userOpt = userService.getUserForStudent(student);
                 
                 // Update student information
                 student.setFirstName(studentDetails.getFirstName());
@@ -130,6 +180,9 @@ public class StudentService {
                 student.setCurriculum(studentDetails.getCurriculum());
                 
                 Student updatedStudent = studentRepository.save(student);
+                // The curriculum being audited against may have changed
+                degreeAuditService.evictStudent(id);
+                principalContextService.studentChanged(id);
                 
                 // Update the associated user record if it exists
                 if (userOpt.isPresent()) {
@@ -137,6 +190,7 @@ public class StudentService {
                     user.setFirstName(studentDetails.getFirstName());
                     user.setLastName(studentDetails.getLastName());
                     user.setEmail(studentDetails.getEmail());
+                    user.setStudent(updatedStudent);
                     userService.updateUser(user);
                     
                     // Set the username on the student object for the response
@@ -162,6 +216,8 @@ public class StudentService {
         // 1. Delete semester enrollments (this will cascade to enrolled courses and grades)
         List<SemesterEnrollment> semesterEnrollments = semesterEnrollmentRepository.findByStudent_Id(id);
         semesterEnrollmentRepository.deleteAll(semesterEnrollments);
+        academicTermService.evictStudent(id);
+        studentEnrollmentIndexService.evictStudent(id);
         
         // 2. Delete advisor relationships
         List<Advisor> advisors = advisorRepository.findByStudent(student);
@@ -171,10 +227,11 @@ public class StudentService {
         academicRecordService.deleteRecordByStudent(student);
         
         // 4. Delete associated user account
-        userService.deleteUserByStudentInfo(student.getFirstName(), student.getLastName());
+        userService.deleteUserForStudent(student);
         
         // 5. Finally delete the student
         studentRepository.deleteById(id);
+        principalContextService.studentChanged(id);
     }
     
 
@@ -188,7 +245,7 @@ public class StudentService {
                 Student promotedStudent = studentRepository.save(student);
                 
                 // Populate username for consistency with getAllStudents() and getStudentById()
-                Optional<Users> user = userService.getUserByStudentInfo(promotedStudent.getFirstName(), promotedStudent.getLastName());
+                Optional<Users> user = userService.getUserForStudent(promotedStudent);
                 if (user.isPresent()) {
                     promotedStudent.setUsername(user.get().getUsername());
                 }
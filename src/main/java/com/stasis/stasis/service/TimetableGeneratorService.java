@@ -0,0 +1,754 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.ScheduleConflictDTO;
+import com.stasis.stasis.dto.TimetableRequestDTO;
+import com.stasis.stasis.dto.TimetableResultDTO;
+import com.stasis.stasis.model.Course;
+import com.stasis.stasis.model.CourseSection;
+import com.stasis.stasis.model.Curriculum;
+import com.stasis.stasis.model.CurriculumDetail;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.repository.CourseSectionRepository;
+import com.stasis.stasis.repository.CurriculumDetailRepository;
+import com.stasis.stasis.repository.CurriculumRepository;
+import com.stasis.stasis.repository.ScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Builds a term's timetable: every course a section still needs from its program's active
+ * curriculum is given a room, a day pattern and a start time, without clashing with existing
+ * schedules or with each other in room, faculty member or section.
+ *
+ * The week is cut into fixed slots and every placement is a bitset over them, so a clash is an AND
+ * of a few longs. One attempt places the most constrained courses first, greedily, then tries to
+ * fit each course that did not fit by moving the one course blocking a room. Attempts with
+ * different random orders run on all cores until one places everything or the time limit passes;
+ * the best one wins. The result can be saved as one batch of Schedule rows.
+ */
+@Service
+public class TimetableGeneratorService {
+
+    private static final int BATCH_SIZE = 500;
+
+    // Moves tried per course that the greedy pass could not place
+    private static final int REPAIR_LIMIT = 50;
+
+    private static final String INSERT_SCHEDULE_SQL =
+        "INSERT INTO schedule (start_time, end_time, day, status, room, course_id, course_section_id) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private CourseSectionRepository courseSectionRepository;
+
+    @Autowired
+    private CurriculumRepository curriculumRepository;
+
+    @Autowired
+    private CurriculumDetailRepository curriculumDetailRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ScheduleConflictService scheduleConflictService;
+
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Solver threads; 0 uses every core. Attempts only touch memory, so this is not bounded by the pool size
+    @Value("${stasis.timetable.threads:0}")
+    private int solverThreads;
+
+    @Value("${stasis.timetable.time-limit-seconds:30}")
+    private long timeLimitSeconds;
+
+    @Value("${stasis.timetable.max-attempts:64}")
+    private int maxAttempts;
+
+    private ExecutorService solverPool;
+
+    @PostConstruct
+    void init() {
+        solverPool = Executors.newFixedThreadPool(solverThreads > 0 ? solverThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        solverPool.shutdownNow();
+    }
+
+    public TimetableResultDTO generate(TimetableRequestDTO request) {
+        long started = System.currentTimeMillis();
+        Grid grid = Grid.of(request);
+        List<CourseSection> sections = loadSections(request);
+        List<TimetableResultDTO.Unplaced> unplaced = new ArrayList<>();
+        List<Task> tasks = buildTasks(sections, grid, unplaced);
+
+        Map<String, String> rooms = loadRooms(request);
+        if (rooms.isEmpty() && !tasks.isEmpty()) {
+            throw new IllegalArgumentException("No rooms given and no existing schedule has a room");
+        }
+
+        Problem problem = new Problem(grid, rooms, tasks);
+        problem.seed(scheduleRepository.findConflictRows());
+
+        AtomicInteger attempts = new AtomicInteger();
+        Solution best = tasks.isEmpty() ? Solution.empty() : solve(problem, attempts, started + timeLimitSeconds * 1000);
+
+        List<TimetableResultDTO.Placement> placements = new ArrayList<>();
+        for (int t = 0; t < tasks.size(); t++) {
+            Task task = tasks.get(t);
+            if (best.candidates[t] < 0) {
+                unplaced.add(TimetableResultDTO.Unplaced.builder()
+                    .sectionId(task.sectionId())
+                    .courseId(task.course().getId())
+                    .courseCode(task.course().getCourseCode())
+                    .reason("No free room and time for the section and its faculty member")
+                    .build());
+                continue;
+            }
+            Candidate candidate = problem.candidates.get(task.length())[best.candidates[t]];
+            LocalTime start = grid.dayStart.plusMinutes((long) candidate.start() * grid.slotMinutes);
+            placements.add(TimetableResultDTO.Placement.builder()
+                .sectionId(task.sectionId())
+                .courseId(task.course().getId())
+                .courseCode(task.course().getCourseCode())
+                .facultyId(task.facultyId())
+                .day(grid.dayNames(problem.patterns[candidate.pattern()]))
+                .startTime(start)
+                .endTime(start.plusMinutes((long) task.length() * grid.slotMinutes))
+                .room(problem.roomNames.get(best.rooms[t]))
+                .build());
+        }
+
+        boolean commit = request.isCommit() && !placements.isEmpty();
+        if (commit) {
+            save(placements, request.getStatus() != null ? request.getStatus() : "ACTIVE");
+        }
+        System.out.println("TimetableGeneratorService: placed " + placements.size() + " of " + tasks.size() +
+            " courses in " + attempts.get() + " attempts" + (commit ? ", saved" : ""));
+
+        return TimetableResultDTO.builder()
+            .sections(sections.size())
+            .requested(tasks.size())
+            .placed(placements.size())
+            .unplaced(unplaced.size())
+            .attempts(attempts.get())
+            .elapsedMillis(System.currentTimeMillis() - started)
+            .committed(commit)
+            .schedules(placements)
+            .unplacedCourses(unplaced)
+            .build();
+    }
+
+    private List<CourseSection> loadSections(TimetableRequestDTO request) {
+        if (request.getSectionIds() != null && !request.getSectionIds().isEmpty()) {
+            return courseSectionRepository.findAllById(request.getSectionIds());
+        }
+        if (request.getSemester() == null || request.getYear() == null) {
+            throw new IllegalArgumentException("Either sectionIds or semester and year are required");
+        }
+        return courseSectionRepository.findBySemesterAndYear(request.getSemester(), request.getYear());
+    }
+
+    /**
+     * One task per course a section still lacks a schedule for, from the latest active curriculum
+     * of its program for the section's year level and semester.
+     */
+    private List<Task> buildTasks(List<CourseSection> sections, Grid grid, List<TimetableResultDTO.Unplaced> unplaced) {
+        if (sections.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Curriculum> curriculumByProgram = new HashMap<>();
+        for (Curriculum curriculum : curriculumRepository.findActiveCurriculums()) {
+            if (curriculum.getProgram() != null) {
+                curriculumByProgram.merge(curriculum.getProgram().getProgramID(), curriculum,
+                    (current, other) -> effectiveDate(other).isAfter(effectiveDate(current)) ? other : current);
+            }
+        }
+
+        Set<String> scheduled = new HashSet<>();
+        List<Long> sectionIds = sections.stream().map(CourseSection::getSectionID).toList();
+        for (Object[] row : courseSectionRepository.findScheduleCoursesBySectionIds(sectionIds)) {
+            if (row[2] != null) {
+                scheduled.add(row[1] + ":" + row[2]);
+            }
+        }
+
+        Map<Long, List<CurriculumDetail>> detailsByCurriculum = new HashMap<>();
+        List<Task> tasks = new ArrayList<>();
+        for (CourseSection section : sections) {
+            Curriculum curriculum = section.getProgram() != null ? curriculumByProgram.get(section.getProgram().getProgramID()) : null;
+            if (curriculum == null) {
+                unplaced.add(TimetableResultDTO.Unplaced.builder()
+                    .sectionId(section.getSectionID())
+                    .reason("No active curriculum for the section's program")
+                    .build());
+                continue;
+            }
+            Long facultyId = section.getFaculty() != null ? section.getFaculty().getFacultyID() : null;
+            Set<Long> seen = new HashSet<>();
+            for (CurriculumDetail detail : detailsByCurriculum.computeIfAbsent(curriculum.getCurriculumID(),
+                    curriculumDetailRepository::findByCurriculumId)) {
+                Course course = detail.getCourse();
+                if (course == null || detail.getYearLevel() != section.getYear() || !sameSemester(detail.getSemester(), section.getSemester()) ||
+                        !seen.add(course.getId()) || scheduled.contains(section.getSectionID() + ":" + course.getId())) {
+                    continue;
+                }
+                tasks.add(new Task(section.getSectionID(), facultyId, course, grid.lengthFor(course.getCredits())));
+            }
+        }
+        return tasks;
+    }
+
+    private Map<String, String> loadRooms(TimetableRequestDTO request) {
+        Map<String, String> rooms = new LinkedHashMap<>();
+        if (request.getRooms() != null && !request.getRooms().isEmpty()) {
+            request.getRooms().forEach(room -> addRoom(rooms, room));
+        } else {
+            scheduleRepository.findConflictRows().forEach(row -> addRoom(rooms, (String) row[1]));
+        }
+        return rooms;
+    }
+
+    private Solution solve(Problem problem, AtomicInteger attempts, long deadline) {
+        AtomicInteger nextAttempt = new AtomicInteger();
+        AtomicReference<Solution> best = new AtomicReference<>();
+        int workers = solverThreads > 0 ? solverThreads : Runtime.getRuntime().availableProcessors();
+
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            runs.add(CompletableFuture.runAsync(() -> {
+                while (true) {
+                    Solution current = best.get();
+                    // The first attempt always runs, however short the time limit
+                    if (current != null && (current.unplaced == 0 || System.currentTimeMillis() > deadline)) {
+                        return;
+                    }
+                    int attempt = nextAttempt.getAndIncrement();
+                    if (attempt >= Math.max(1, maxAttempts)) {
+                        return;
+                    }
+                    Solution solution = problem.attempt(attempt, deadline);
+                    attempts.incrementAndGet();
+                    best.accumulateAndGet(solution, (kept, found) -> kept == null || found.unplaced < kept.unplaced ? found : kept);
+                }
+            }, solverPool));
+        }
+        runs.forEach(CompletableFuture::join);
+        return best.get();
+    }
+
+    private void save(List<TimetableResultDTO.Placement> placements, String status) {
+        // Another admin may have added schedules while this one was being solved
+        for (TimetableResultDTO.Placement placement : placements) {
+            Schedule schedule = Schedule.builder()
+                .day(placement.getDay())
+                .startTime(placement.getStartTime())
+                .endTime(placement.getEndTime())
+                .room(placement.getRoom())
+                .build();
+            ScheduleConflictDTO conflict = scheduleConflictService.check(schedule, placement.getSectionId(), placement.getFacultyId(), List.of());
+            if (conflict.isConflicting()) {
+                throw new RuntimeException("Timetable is out of date, generate it again: " + ScheduleConflictService.describe(conflict));
+            }
+        }
+
+        Set<Long> sectionIds = placements.stream()
+            .map(TimetableResultDTO.Placement::getSectionId)
+            .collect(Collectors.toSet());
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            for (int from = 0; from < placements.size(); from += BATCH_SIZE) {
+                List<TimetableResultDTO.Placement> chunk = placements.subList(from, Math.min(from + BATCH_SIZE, placements.size()));
+                GeneratedKeyHolder keys = new GeneratedKeyHolder();
+                jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SCHEDULE_SQL, new String[] {"schedule_id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            TimetableResultDTO.Placement placement = chunk.get(i);
+                            ps.setTime(1, Time.valueOf(placement.getStartTime()));
+                            ps.setTime(2, Time.valueOf(placement.getEndTime()));
+                            ps.setString(3, placement.getDay());
+                            ps.setString(4, status);
+                            ps.setString(5, placement.getRoom());
+                            ps.setLong(6, placement.getCourseId());
+                            ps.setLong(7, placement.getSectionId());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keys);
+
+                // Keys come back in statement order
+                List<Map<String, Object>> keyList = keys.getKeyList();
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunk.get(i).setScheduleId(((Number) keyList.get(i).get("schedule_id")).longValue());
+                }
+            }
+            scheduleConflictService.sectionsChanged(sectionIds);
+        });
+        studentEnrollmentIndexService.evictSections(sectionIds);
+    }
+
+    private static void addRoom(Map<String, String> rooms, String room) {
+        if (room != null && !room.isBlank()) {
+            rooms.putIfAbsent(room.trim().toLowerCase(Locale.ROOT), room.trim());
+        }
+    }
+
+    private static LocalDate effectiveDate(Curriculum curriculum) {
+        return curriculum.getEffectiveStartDate() != null ? curriculum.getEffectiveStartDate() : LocalDate.MIN;
+    }
+
+    private static boolean sameSemester(String a, String b) {
+        return a != null && b != null && a.trim().equalsIgnoreCase(b.trim());
+    }
+
+    /**
+     * The teaching week: chosen days, each cut into equal slots between dayStart and dayEnd.
+     */
+    private static final class Grid {
+        private final int[] days;
+        private final int[] positionOfDay = new int[ScheduleDays.DAYS_PER_WEEK];
+        private final LocalTime dayStart;
+        private final int slotMinutes;
+        private final int slotsPerDay;
+        private final int meetings;
+
+        private Grid(int[] days, LocalTime dayStart, LocalTime dayEnd, int slotMinutes, int meetings) {
+            this.days = days;
+            this.dayStart = dayStart;
+            this.slotMinutes = slotMinutes;
+            this.slotsPerDay = (ScheduleDays.minuteOfDay(dayEnd) - ScheduleDays.minuteOfDay(dayStart)) / slotMinutes;
+            this.meetings = Math.min(meetings, days.length);
+            Arrays.fill(positionOfDay, -1);
+            for (int i = 0; i < days.length; i++) {
+                positionOfDay[days[i]] = i;
+            }
+        }
+
+        private static Grid of(TimetableRequestDTO request) {
+            List<String> dayNames = request.getDays() != null && !request.getDays().isEmpty() ? request.getDays()
+                : List.of("Monday", "Tuesday", "Wednesday", "Thursday", "Friday");
+            int[] days = ScheduleDays.parse(String.join(",", dayNames));
+            LocalTime dayStart = request.getDayStart() != null ? request.getDayStart() : LocalTime.of(7, 30);
+            LocalTime dayEnd = request.getDayEnd() != null ? request.getDayEnd() : LocalTime.of(19, 30);
+            int slotMinutes = request.getSlotMinutes() != null ? request.getSlotMinutes() : 30;
+            int meetings = request.getMeetingsPerWeek() != null ? request.getMeetingsPerWeek() : 2;
+            if (days.length == 0) {
+                throw new IllegalArgumentException("No valid teaching days given");
+            }
+            if (slotMinutes <= 0 || !dayStart.plusMinutes(slotMinutes).isAfter(dayStart) || dayStart.plusMinutes(slotMinutes).isAfter(dayEnd)) {
+                throw new IllegalArgumentException("The teaching day must hold at least one slot");
+            }
+            if (meetings <= 0) {
+                throw new IllegalArgumentException("meetingsPerWeek must be positive");
+            }
+            return new Grid(days, dayStart, dayEnd, slotMinutes, meetings);
+        }
+
+        private int bits() {
+            return days.length * slotsPerDay;
+        }
+
+        /**
+         * Slots per meeting for a course of the given credits: one hour a week per credit.
+         */
+        private int lengthFor(int credits) {
+            int weeklyMinutes = Math.max(1, credits) * 60;
+            int perMeeting = (weeklyMinutes + meetings - 1) / meetings;
+            return Math.min(slotsPerDay, Math.max(1, (perMeeting + slotMinutes - 1) / slotMinutes));
+        }
+
+        private String dayNames(int[] pattern) {
+            return Arrays.stream(pattern).mapToObj(position -> ScheduleDays.name(days[position])).collect(Collectors.joining(", "));
+        }
+
+        /**
+         * Set the slots an existing schedule touches.
+         */
+        private void mark(long[] mask, String day, LocalTime start, LocalTime end) {
+            if (start == null || end == null || !start.isBefore(end)) {
+                return;
+            }
+            int gridStart = ScheduleDays.minuteOfDay(dayStart);
+            int from = Math.max(0, Math.floorDiv(ScheduleDays.minuteOfDay(start) - gridStart, slotMinutes));
+            int to = Math.min(slotsPerDay, Math.floorDiv(ScheduleDays.minuteOfDay(end) - gridStart + slotMinutes - 1, slotMinutes));
+            for (int d : ScheduleDays.parse(day)) {
+                int position = positionOfDay[d];
+                for (int slot = from; position >= 0 && slot < to; slot++) {
+                    set(mask, position * slotsPerDay + slot);
+                }
+            }
+        }
+    }
+
+    private record Task(Long sectionId, Long facultyId, Course course, int length) {
+    }
+
+    private record Candidate(int pattern, int start, long[] mask) {
+    }
+
+    /**
+     * Everything an attempt needs, read-only so attempts can share it across threads.
+     */
+    private static final class Problem {
+        private final Grid grid;
+        private final List<Task> tasks;
+        private final List<String> roomNames;
+        private final Map<String, Integer> roomIndex = new HashMap<>();
+        private final Map<Long, Integer> facultyIndex = new HashMap<>();
+        private final Map<Long, Integer> sectionIndex = new HashMap<>();
+        private final int[] taskFaculty;
+        private final int[] taskSection;
+        private final int[][] patterns;
+        private final Map<Integer, Candidate[]> candidates = new HashMap<>();
+        private final int words;
+        private final long[][] seedRooms;
+        private final long[][] seedFaculty;
+        private final long[][] seedSections;
+
+        private Problem(Grid grid, Map<String, String> rooms, List<Task> tasks) {
+            this.grid = grid;
+            this.tasks = tasks;
+            this.roomNames = new ArrayList<>(rooms.values());
+            rooms.keySet().forEach(key -> roomIndex.put(key, roomIndex.size()));
+            this.taskFaculty = new int[tasks.size()];
+            this.taskSection = new int[tasks.size()];
+            for (int t = 0; t < tasks.size(); t++) {
+                Task task = tasks.get(t);
+                taskFaculty[t] = task.facultyId() != null ? facultyIndex.computeIfAbsent(task.facultyId(), id -> facultyIndex.size()) : -1;
+                taskSection[t] = sectionIndex.computeIfAbsent(task.sectionId(), id -> sectionIndex.size());
+            }
+            this.words = (grid.bits() + 63) / 64;
+            this.seedRooms = new long[roomNames.size()][words];
+            this.seedFaculty = new long[facultyIndex.size()][words];
+            this.seedSections = new long[sectionIndex.size()][words];
+            this.patterns = patterns(grid.days.length, grid.meetings);
+            for (Task task : tasks) {
+                candidates.computeIfAbsent(task.length(), this::candidatesFor);
+            }
+        }
+
+        private void seed(List<Object[]> schedules) {
+            for (Object[] row : schedules) {
+                String day = (String) row[2];
+                LocalTime start = (LocalTime) row[3];
+                LocalTime end = (LocalTime) row[4];
+                Integer room = row[1] != null ? roomIndex.get(((String) row[1]).trim().toLowerCase(Locale.ROOT)) : null;
+                Integer faculty = row[6] != null ? facultyIndex.get((Long) row[6]) : null;
+                Integer section = row[5] != null ? sectionIndex.get((Long) row[5]) : null;
+                if (room != null) {
+                    grid.mark(seedRooms[room], day, start, end);
+                }
+                if (faculty != null) {
+                    grid.mark(seedFaculty[faculty], day, start, end);
+                }
+                if (section != null) {
+                    grid.mark(seedSections[section], day, start, end);
+                }
+            }
+        }
+
+        /**
+         * Every choice of k teaching days, the most spread out first (Mon/Wed before Mon/Tue).
+         */
+        private static int[][] patterns(int days, int k) {
+            List<int[]> patterns = new ArrayList<>();
+            combine(new int[k], 0, 0, days, patterns);
+            patterns.sort(Comparator.comparingInt(Problem::minimumGap).reversed());
+            return patterns.toArray(new int[0][]);
+        }
+
+        private static void combine(int[] current, int depth, int from, int days, List<int[]> out) {
+            if (depth == current.length) {
+                out.add(current.clone());
+                return;
+            }
+            for (int d = from; d < days; d++) {
+                current[depth] = d;
+                combine(current, depth + 1, d + 1, days, out);
+            }
+        }
+
+        private static int minimumGap(int[] pattern) {
+            int gap = Integer.MAX_VALUE;
+            for (int i = 1; i < pattern.length; i++) {
+                gap = Math.min(gap, pattern[i] - pattern[i - 1]);
+            }
+            return gap;
+        }
+
+        private Candidate[] candidatesFor(int length) {
+            List<Candidate> result = new ArrayList<>();
+            for (int start = 0; start + length <= grid.slotsPerDay; start++) {
+                for (int p = 0; p < patterns.length; p++) {
+                    long[] mask = new long[words];
+                    for (int position : patterns[p]) {
+                        for (int slot = start; slot < start + length; slot++) {
+                            set(mask, position * grid.slotsPerDay + slot);
+                        }
+                    }
+                    result.add(new Candidate(p, start, mask));
+                }
+            }
+            return result.toArray(new Candidate[0]);
+        }
+
+        private Solution attempt(int attempt, long deadline) {
+            return new Attempt(this, new Random(attempt)).run(attempt == 0, deadline);
+        }
+    }
+
+    /**
+     * One greedy pass plus repair over private copies of the occupancy bitsets.
+     */
+    private static final class Attempt {
+        private final Problem problem;
+        private final Random random;
+        private final long[][] rooms;
+        private final long[][] faculty;
+        private final long[][] sections;
+        private final List<List<Integer>> roomTasks;
+        private final int[] placedCandidate;
+        private final int[] placedRoom;
+
+        private Attempt(Problem problem, Random random) {
+            this.problem = problem;
+            this.random = random;
+            this.rooms = copy(problem.seedRooms);
+            this.faculty = copy(problem.seedFaculty);
+            this.sections = copy(problem.seedSections);
+            this.roomTasks = new ArrayList<>(rooms.length);
+            for (int r = 0; r < rooms.length; r++) {
+                roomTasks.add(new ArrayList<>());
+            }
+            this.placedCandidate = new int[problem.tasks.size()];
+            this.placedRoom = new int[problem.tasks.size()];
+            Arrays.fill(placedCandidate, -1);
+        }
+
+        private Solution run(boolean deterministic, long deadline) {
+            List<Integer> order = order(deterministic);
+            List<Integer> unplaced = new ArrayList<>();
+            for (int t : order) {
+                if (!place(t, deterministic)) {
+                    unplaced.add(t);
+                }
+            }
+            int remaining = 0;
+            for (int t : unplaced) {
+                // Repairs are the expensive part; past the deadline the greedy result stands
+                if (System.currentTimeMillis() > deadline || !repair(t)) {
+                    remaining++;
+                }
+            }
+            return new Solution(placedCandidate, placedRoom, remaining);
+        }
+
+        /**
+         * Busiest faculty members first, then the longest courses; ties broken at random.
+         */
+        private List<Integer> order(boolean deterministic) {
+            int[] facultyLoad = new int[problem.seedFaculty.length];
+            for (int t = 0; t < problem.tasks.size(); t++) {
+                if (problem.taskFaculty[t] >= 0) {
+                    facultyLoad[problem.taskFaculty[t]] += problem.tasks.get(t).length();
+                }
+            }
+            double[] noise = new double[problem.tasks.size()];
+            for (int t = 0; t < noise.length && !deterministic; t++) {
+                noise[t] = random.nextDouble();
+            }
+            List<Integer> order = new ArrayList<>(problem.tasks.size());
+            for (int t = 0; t < problem.tasks.size(); t++) {
+                order.add(t);
+            }
+            order.sort(Comparator
+                .comparingInt((Integer t) -> problem.taskFaculty[t] >= 0 ? -facultyLoad[problem.taskFaculty[t]] : 0)
+                .thenComparingInt(t -> -problem.tasks.get(t).length())
+                .thenComparingDouble(t -> noise[t]));
+            return order;
+        }
+
+        private boolean place(int t, boolean firstFit) {
+            Candidate[] candidates = problem.candidates.get(problem.tasks.get(t).length());
+            int offset = firstFit ? 0 : random.nextInt(candidates.length);
+            int roomOffset = firstFit ? 0 : random.nextInt(Math.max(1, rooms.length));
+            for (int i = 0; i < candidates.length; i++) {
+                int c = (offset + i) % candidates.length;
+                long[] mask = candidates[c].mask();
+                if (!freeForTeaching(t, mask)) {
+                    continue;
+                }
+                for (int j = 0; j < rooms.length; j++) {
+                    int r = (roomOffset + j) % rooms.length;
+                    if (!intersects(rooms[r], mask)) {
+                        assign(t, c, r);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Find a time the section and faculty member are free whose room is blocked by a single
+         * course that can move elsewhere, and swap them.
+         */
+        private boolean repair(int t) {
+            Candidate[] candidates = problem.candidates.get(problem.tasks.get(t).length());
+            int tries = 0;
+            for (int c = 0; c < candidates.length && tries < REPAIR_LIMIT; c++) {
+                long[] mask = candidates[c].mask();
+                if (!freeForTeaching(t, mask)) {
+                    continue;
+                }
+                for (int r = 0; r < rooms.length && tries < REPAIR_LIMIT; r++) {
+                    if (intersects(problem.seedRooms[r], mask)) {
+                        continue;
+                    }
+                    int blocker = singleBlocker(r, mask);
+                    if (blocker < 0) {
+                        continue;
+                    }
+                    tries++;
+                    int blockerCandidate = placedCandidate[blocker];
+                    unassign(blocker);
+                    assign(t, c, r);
+                    if (place(blocker, false)) {
+                        return true;
+                    }
+                    unassign(t);
+                    assign(blocker, blockerCandidate, r);
+                }
+            }
+            return false;
+        }
+
+        private int singleBlocker(int room, long[] mask) {
+            int blocker = -1;
+            for (int other : roomTasks.get(room)) {
+                if (intersects(maskOf(other), mask)) {
+                    if (blocker >= 0) {
+                        return -1;
+                    }
+                    blocker = other;
+                }
+            }
+            return blocker;
+        }
+
+        private boolean freeForTeaching(int t, long[] mask) {
+            int f = problem.taskFaculty[t];
+            return !intersects(sections[problem.taskSection[t]], mask) && (f < 0 || !intersects(faculty[f], mask));
+        }
+
+        private long[] maskOf(int t) {
+            return problem.candidates.get(problem.tasks.get(t).length())[placedCandidate[t]].mask();
+        }
+
+        private void assign(int t, int c, int r) {
+            placedCandidate[t] = c;
+            placedRoom[t] = r;
+            long[] mask = maskOf(t);
+            or(rooms[r], mask);
+            or(sections[problem.taskSection[t]], mask);
+            if (problem.taskFaculty[t] >= 0) {
+                or(faculty[problem.taskFaculty[t]], mask);
+            }
+            roomTasks.get(r).add(t);
+        }
+
+        private void unassign(int t) {
+            long[] mask = maskOf(t);
+            int r = placedRoom[t];
+            andNot(rooms[r], mask);
+            andNot(sections[problem.taskSection[t]], mask);
+            if (problem.taskFaculty[t] >= 0) {
+                andNot(faculty[problem.taskFaculty[t]], mask);
+            }
+            roomTasks.get(r).remove(Integer.valueOf(t));
+            placedCandidate[t] = -1;
+        }
+
+        private static long[][] copy(long[][] source) {
+            long[][] copy = new long[source.length][];
+            for (int i = 0; i < source.length; i++) {
+                copy[i] = source[i].clone();
+            }
+            return copy;
+        }
+    }
+
+    private record Solution(int[] candidates, int[] rooms, int unplaced) {
+        private static Solution empty() {
+            return new Solution(new int[0], new int[0], 0);
+        }
+    }
+
+    private static void set(long[] mask, int bit) {
+        mask[bit >>> 6] |= 1L << (bit & 63);
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void or(long[] target, long[] mask) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= mask[i];
+        }
+    }
+
+    private static void andNot(long[] target, long[] mask) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= ~mask[i];
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.stasis.stasis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stasis.stasis.dto.PrincipalContext;
+import com.stasis.stasis.model.UserRole;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Issues and verifies the signed tokens of the stateless authentication mode.
+ *
+ * A token is {@code keyId.payload.signature}: the payload is the base64url JSON of the user's ID,
+ * username, role, student and faculty IDs, issue time in milliseconds (the principal context
+ * version) and expiry, and the signature is HMAC-SHA256 over the key ID and payload. Keys are the secret key entries of a PKCS12 keystore;
+ * new tokens are signed with the configured active key, or the newest entry when none is set, and
+ * any key still in the keystore verifies. The keystore is re-read when the file changes, so a key
+ * is rotated by adding a new entry and removing the old one once its tokens have expired.
+ */
+@Service
+@ConditionalOnProperty(name = "stasis.auth.mode", havingValue = "token")
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${stasis.auth.token.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${stasis.auth.token.keystore:}")
+    private String keystorePath;
+
+    @Value("${stasis.auth.token.keystore-password:}")
+    private String keystorePassword;
+
+    @Value("${stasis.auth.token.active-key:}")
+    private String activeKeyId;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile SigningKeys signingKeys;
+
+    private volatile long keystoreModified;
+
+    private record SigningKeys(String activeId, Map<String, SecretKey> byId) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (keystorePath.isBlank()) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            signingKeys = new SigningKeys("ephemeral", Map.of("ephemeral", new SecretKeySpec(secret, ALGORITHM)));
+            System.out.println("TokenService: no keystore configured, signing with a random key; tokens will not survive a restart or work across nodes");
+            return;
+        }
+        keystoreModified = new File(keystorePath).lastModified();
+        signingKeys = loadKeys();
+        System.out.println("TokenService: loaded " + signingKeys.byId().size() + " signing keys, active key " + signingKeys.activeId());
+    }
+
+    /**
+     * Pick up keys added to or removed from the keystore.
+     */
+    @Scheduled(fixedDelayString = "${stasis.auth.token.key-reload-ms:60000}")
+    public void reloadKeys() {
+        if (keystorePath.isBlank()) {
+            return;
+        }
+        long modified = new File(keystorePath).lastModified();
+        if (modified == keystoreModified) {
+            return;
+        }
+        try {
+            signingKeys = loadKeys();
+            keystoreModified = modified;
+            System.out.println("TokenService: reloaded " + signingKeys.byId().size() + " signing keys, active key " + signingKeys.activeId());
+        } catch (RuntimeException e) {
+            // Keep signing with the previous keys until the keystore is readable again
+            System.err.println("TokenService: could not reload keystore - " + e.getMessage());
+        }
+    }
+
+    public String issue(PrincipalContext context) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("uid", context.getUserId());
+        claims.put("sub", context.getUsername());
+        claims.put("role", context.getRole().name());
+        claims.put("sid", context.getStudentId());
+        claims.put("fid", context.getFacultyId());
+        // Compared with the principal context invalidation epochs, which are wall-clock milliseconds
+        claims.put("ver", System.currentTimeMillis());
+        claims.put("exp", System.currentTimeMillis() / 1000 + ttlMinutes * 60);
+        try {
+            SigningKeys keys = signingKeys;
+            String signed = keys.activeId() + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return signed + "." + ENCODER.encodeToString(sign(keys.byId().get(keys.activeId()), signed));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to issue token: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The context a token carries, or null when it is malformed, forged, signed with an unknown
+     * key or expired. Faculty contexts leave taught sections to be resolved on first use.
+     */
+    public PrincipalContext verify(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        SecretKey key = signingKeys.byId().get(parts[0]);
+        if (key == null) {
+            return null;
+        }
+        try {
+            byte[] expected = sign(key, parts[0] + "." + parts[1]);
+            if (!MessageDigest.isEqual(expected, DECODER.decode(parts[2]))) {
+                return null;
+            }
+            Map<?, ?> claims = objectMapper.readValue(DECODER.decode(parts[1]), Map.class);
+            if (((Number) claims.get("exp")).longValue() < System.currentTimeMillis() / 1000) {
+                return null;
+            }
+            return PrincipalContext.builder()
+                .userId(asLong(claims.get("uid")))
+                .username((String) claims.get("sub"))
+                .role(UserRole.valueOf((String) claims.get("role")))
+                .studentId(asLong(claims.get("sid")))
+                .facultyId(asLong(claims.get("fid")))
+                .builtAt(((Number) claims.get("ver")).longValue())
+                .build();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private SigningKeys loadKeys() {
+        char[] password = keystorePassword.toCharArray();
+        try (InputStream in = new FileInputStream(keystorePath)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            Map<String, SecretKey> byId = new HashMap<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                    byId.put(alias, (SecretKey) keyStore.getKey(alias, password));
+                }
+            }
+            // PKCS12 aliases are stored in lower case
+            String activeId = activeKeyId.toLowerCase();
+            if (activeId.isBlank()) {
+                for (String alias : byId.keySet()) {
+                    if (activeId.isBlank() || keyStore.getCreationDate(alias).after(keyStore.getCreationDate(activeId))) {
+                        activeId = alias;
+                    }
+                }
+            }
+            if (!byId.containsKey(activeId)) {
+                throw new IllegalStateException("Active token key '" + activeKeyId + "' is not a secret key in " + keystorePath);
+            }
+            return new SigningKeys(activeId, Map.copyOf(byId));
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to read token keystore " + keystorePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] sign(SecretKey key, String content) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac.doFinal(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
@@ -0,0 +1,368 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.TranscriptBatchJobDTO;
+import com.stasis.stasis.model.TranscriptEntry;
+import com.stasis.stasis.repository.AcademicRecordRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates the transcripts of a whole cohort (a program or curriculum, optionally one year level)
+ * into a single zip archive on local disk.
+ *
+ * A job partitions the cohort into chunks that run on a small fixed pool. Only the reads from the
+ * transcript read model hold a database connection, and they are gated by a semaphore sized below
+ * the Hikari pool so online requests are never starved; rendering and writing to the archive happen
+ * outside it. Jobs and their progress are kept in memory, and archives are deleted after a while.
+ */
+@Service
+public class TranscriptBatchService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_HTML = "html";
+
+    private static final int CHUNK_SIZE = 50;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AcademicRecordRepository academicRecordRepository;
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Value("${stasis.transcripts.batch.threads:4}")
+    private int batchThreads;
+
+    // Connections the batch may hold at once; always leaves at least one for online requests
+    @Value("${stasis.transcripts.batch.db-connections:2}")
+    private int dbConnections;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    @Value("${stasis.transcripts.batch.output-dir:${java.io.tmpdir}/stasis-transcripts}")
+    private String outputDir;
+
+    @Value("${stasis.transcripts.batch.retention-hours:24}")
+    private long retentionHours;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // Jobs run one at a time; their chunks share the worker pool
+    private ExecutorService jobRunner;
+
+    private ExecutorService workers;
+
+    private Semaphore dbBudget;
+
+    @PostConstruct
+    void init() {
+        jobRunner = Executors.newSingleThreadExecutor();
+        workers = Executors.newFixedThreadPool(Math.max(1, batchThreads));
+        dbBudget = new Semaphore(Math.max(1, Math.min(dbConnections, poolSize - 1)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobRunner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public TranscriptBatchJobDTO startJob(Long programId, Long curriculumId, Integer yearLevel, String format) {
+        if (programId == null && curriculumId == null) {
+            throw new IllegalArgumentException("Either programId or curriculumId is required");
+        }
+        String normalizedFormat = format == null ? FORMAT_CSV : format.trim().toLowerCase();
+        if (!FORMAT_CSV.equals(normalizedFormat) && !FORMAT_HTML.equals(normalizedFormat)) {
+            throw new IllegalArgumentException("Unsupported transcript format: " + format);
+        }
+        Job job = new Job(UUID.randomUUID().toString(), programId, curriculumId, yearLevel, normalizedFormat);
+        jobs.put(job.id, job);
+        jobRunner.submit(() -> run(job));
+        return job.toDTO();
+    }
+
+    public TranscriptBatchJobDTO getJob(String jobId) {
+        return findJob(jobId).toDTO();
+    }
+
+    /**
+     * Path of a completed job's archive.
+     */
+    public Path getArchive(String jobId) {
+        Job job = findJob(jobId);
+        if (!TranscriptBatchJobDTO.COMPLETED.equals(job.status) || !Files.exists(job.archive)) {
+            throw new RuntimeException("Archive of transcript job " + jobId + " is not available");
+        }
+        return job.archive;
+    }
+
+    /**
+     * Forget finished jobs past the retention period and delete their archives.
+     */
+    @Scheduled(cron = "${stasis.transcripts.batch.cleanup-cron:0 0 * * * *}")
+    public void cleanup() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(job.archive);
+            } catch (IOException e) {
+                System.out.println("TranscriptBatchService: could not delete " + job.archive + ": " + e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Transcript job not found with ID: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        job.status = TranscriptBatchJobDTO.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        Path partial = job.archive.resolveSibling(job.archive.getFileName() + ".part");
+        try {
+            List<Object[]> cohort = withConnection(() -> studentRepository.findCohort(job.programId, job.curriculumId, job.yearLevel));
+            job.totalStudents = cohort.size();
+            Files.createDirectories(job.archive.getParent());
+
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                List<CompletableFuture<Void>> chunks = new ArrayList<>();
+                for (int from = 0; from < cohort.size(); from += CHUNK_SIZE) {
+                    List<Object[]> chunk = cohort.subList(from, Math.min(from + CHUNK_SIZE, cohort.size()));
+                    chunks.add(CompletableFuture.runAsync(() -> writeChunk(job, chunk, zip), workers));
+                }
+                CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+            }
+
+            Files.move(partial, job.archive, StandardCopyOption.REPLACE_EXISTING);
+            job.status = TranscriptBatchJobDTO.COMPLETED;
+            System.out.println("TranscriptBatchService: job " + job.id + " wrote " + job.processed.get() +
+                " transcripts (" + job.failed.get() + " failed)");
+        } catch (Exception e) {
+            job.status = TranscriptBatchJobDTO.FAILED;
+            job.error = e.getMessage();
+            System.out.println("TranscriptBatchService: job " + job.id + " failed: " + e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Removed with the job's retention cleanup at the latest
+            }
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void writeChunk(Job job, List<Object[]> students, ZipOutputStream zip) {
+        List<Long> studentIds = students.stream().map(row -> (Long) row[0]).toList();
+        try {
+            Map<Long, List<TranscriptEntry>> entries = new HashMap<>();
+            Map<Long, Object[]> summaries = new HashMap<>();
+            withConnection(() -> {
+                for (TranscriptEntry entry : transcriptService.getEntries(studentIds)) {
+                    entries.computeIfAbsent(entry.getStudentId(), id -> new ArrayList<>()).add(entry);
+                }
+                for (Object[] summary : academicRecordRepository.findSummariesByStudentIds(studentIds)) {
+                    summaries.put((Long) summary[0], summary);
+                }
+                return null;
+            });
+
+            for (Object[] student : students) {
+                Long studentId = (Long) student[0];
+                String content = FORMAT_HTML.equals(job.format)
+                    ? renderHtml(student, summaries.get(studentId), entries.getOrDefault(studentId, List.of()))
+                    : renderCsv(student, summaries.get(studentId), entries.getOrDefault(studentId, List.of()));
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                synchronized (zip) {
+                    zip.putNextEntry(new ZipEntry(fileName(student, job.format)));
+                    zip.write(bytes);
+                    zip.closeEntry();
+                }
+                job.processed.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // The archive itself is broken, so the whole job fails
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            job.failed.addAndGet(students.size());
+            System.out.println("TranscriptBatchService: job " + job.id + " skipped students " + studentIds + ": " + e.getMessage());
+        }
+    }
+
+    private <T> T withConnection(Supplier<T> work) {
+        try {
+            dbBudget.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a database connection");
+        }
+        try {
+            return work.get();
+        } finally {
+            dbBudget.release();
+        }
+    }
+
+    private static String renderCsv(Object[] student, Object[] summary, Collection<TranscriptEntry> entries) {
+        StringBuilder out = new StringBuilder();
+        out.append("Student ID,").append(student[0]).append('\n');
+        out.append("Name,").append(csv(student[2] + ", " + student[1])).append('\n');
+        out.append("Year Level,").append(value(student[3])).append('\n');
+        out.append("Cumulative GA,").append(summary != null ? value(summary[1]) : "").append('\n');
+        out.append("Earned Credits,").append(summary != null ? value(summary[2]) : "").append('\n');
+        out.append("Academic Standing,").append(summary != null ? csv(value(summary[3])) : "").append('\n');
+        out.append('\n');
+        out.append("Academic Year,Semester,Course Code,Course Description,Credits,Section,Midterm,Final,Overall,Grade,Remark\n");
+        for (TranscriptEntry entry : entries) {
+            out.append(csv(entry.getAcademicYear())).append(',')
+                .append(csv(entry.getSemester())).append(',')
+                .append(csv(entry.getCourseCode())).append(',')
+                .append(csv(entry.getCourseDescription())).append(',')
+                .append(value(entry.getCredits())).append(',')
+                .append(csv(entry.getSectionName())).append(',')
+                .append(value(entry.getMidtermGrade())).append(',')
+                .append(value(entry.getFinalGrade())).append(',')
+                .append(value(entry.getOverallGrade())).append(',')
+                .append(value(entry.getGradeValue())).append(',')
+                .append(csv(entry.getRemark())).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String renderHtml(Object[] student, Object[] summary, Collection<TranscriptEntry> entries) {
+        String name = html(student[2] + ", " + student[1]);
+        StringBuilder out = new StringBuilder();
+        out.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Transcript - ").append(name)
+            .append("</title></head><body>\n");
+        out.append("<h1>").append(name).append("</h1>\n");
+        out.append("<p>Student ID: ").append(student[0])
+            .append("<br>Year Level: ").append(html(value(student[3])));
+        if (summary != null) {
+            out.append("<br>Cumulative GA: ").append(html(value(summary[1])))
+                .append("<br>Earned Credits: ").append(html(value(summary[2])))
+                .append("<br>Academic Standing: ").append(html(value(summary[3])));
+        }
+        out.append("</p>\n<table border=\"1\">\n<tr><th>Academic Year</th><th>Semester</th><th>Course Code</th>" +
+            "<th>Course Description</th><th>Credits</th><th>Section</th><th>Midterm</th><th>Final</th>" +
+            "<th>Overall</th><th>Grade</th><th>Remark</th></tr>\n");
+        for (TranscriptEntry entry : entries) {
+            out.append("<tr>");
+            for (Object cell : new Object[] {entry.getAcademicYear(), entry.getSemester(), entry.getCourseCode(),
+                    entry.getCourseDescription(), entry.getCredits(), entry.getSectionName(), entry.getMidtermGrade(),
+                    entry.getFinalGrade(), entry.getOverallGrade(), entry.getGradeValue(), entry.getRemark()}) {
+                out.append("<td>").append(html(value(cell))).append("</td>");
+            }
+            out.append("</tr>\n");
+        }
+        out.append("</table>\n</body></html>\n");
+        return out.toString();
+    }
+
+    private static String fileName(Object[] student, String format) {
+        String name = (student[2] + "_" + student[1]).replaceAll("[^A-Za-z0-9._-]+", "_");
+        return name + "_" + student[0] + "." + format;
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String html(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private class Job {
+        private final String id;
+        private final Long programId;
+        private final Long curriculumId;
+        private final Integer yearLevel;
+        private final String format;
+        private final Path archive;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile String status = TranscriptBatchJobDTO.QUEUED;
+        private volatile int totalStudents;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, Long programId, Long curriculumId, Integer yearLevel, String format) {
+            this.id = id;
+            this.programId = programId;
+            this.curriculumId = curriculumId;
+            this.yearLevel = yearLevel;
+            this.format = format;
+            this.archive = Paths.get(outputDir, "transcripts-" + id + ".zip");
+        }
+
+        private TranscriptBatchJobDTO toDTO() {
+            return TranscriptBatchJobDTO.builder()
+                .jobId(id)
+                .status(status)
+                .programId(programId)
+                .curriculumId(curriculumId)
+                .yearLevel(yearLevel)
+                .format(format)
+                .totalStudents(totalStudents)
+                .processedStudents(processed.get())
+                .failedStudents(failed.get())
+                .archiveReady(TranscriptBatchJobDTO.COMPLETED.equals(status))
+                .error(error)
+                .createdAt(createdAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+        }
+    }
+}
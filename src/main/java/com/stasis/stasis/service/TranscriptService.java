@@ -0,0 +1,271 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.TranscriptPageDTO;
+import com.stasis.stasis.model.AcademicRecord;
+import com.stasis.stasis.model.TranscriptEntry;
+import com.stasis.stasis.repository.EnrolledCourseRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import com.stasis.stasis.repository.TranscriptEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains the transcript_entry read model and serves transcripts from it.
+ *
+ * Grade and enrollment events only mark a student dirty; a background pass rewrites the dirty
+ * students' rows from one projection query per chunk. Reading a dirty student's transcript rebuilds
+ * it first, so callers always see their own writes. Dirty marks are rows of their own table, so they
+ * survive a restart and are seen by every node, and a schedule change marks only the students
+ * enrolled in its section. The row count and refresh time of a student's rows form a version that
+ * is used as the transcript's ETag.
+ */
+@Service
+@Order(5)
+public class TranscriptService implements CommandLineRunner {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private static final String CREATE_DIRTY_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS transcript_dirty_student (student_id bigint PRIMARY KEY)";
+
+    private static final String MARK_STUDENT_SQL =
+        "INSERT INTO transcript_dirty_student (student_id) VALUES (?) ON CONFLICT DO NOTHING";
+
+    private static final String MARK_SECTIONS_SQL =
+        "INSERT INTO transcript_dirty_student (student_id) SELECT DISTINCT se.studentid FROM enrolled_course ec " +
+        "JOIN semester_enrollment se ON se.semester_enrollmentid = ec.semester_enrollmentid " +
+        "WHERE se.studentid IS NOT NULL AND ec.sectionid IN (%s) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_ENTRY_SQL =
+        "INSERT INTO transcript_entry (student_id, enrolled_course_id, academic_year, semester, section_name, status, " +
+        "course_id, course_code, course_description, credits, grade_value, midterm_grade, final_grade, overall_grade, " +
+        "remark, grade_date, refreshed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private TranscriptEntryRepository transcriptEntryRepository;
+
+    @Autowired
+    private EnrolledCourseRepository enrolledCourseRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AcademicRecordService academicRecordService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicBoolean rebuildAllPending = new AtomicBoolean();
+
+    // Rewrites of the same student must not interleave, or both would insert its rows
+    private final Object refreshLock = new Object();
+
+    @PostConstruct
+    public void createDirtyTable() {
+        jdbcTemplate.execute(CREATE_DIRTY_TABLE_SQL);
+    }
+
+    @Override
+    public void run(String... args) {
+        if (transcriptEntryRepository.count() == 0) {
+            rebuildAll();
+        }
+    }
+
+    public TranscriptPageDTO getTranscript(Long studentId, int page, int size) {
+        refreshIfDirty(studentId);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        long totalRows = rowCount(studentId);
+        List<TranscriptEntry> rows = transcriptEntryRepository
+            .findByStudentIdOrderByAcademicYearAscSemesterAscCourseCodeAsc(studentId, PageRequest.of(pageNumber, pageSize));
+        AcademicRecord record = academicRecordService.getRecordByStudentId(studentId).orElse(null);
+        return TranscriptPageDTO.builder()
+            .studentId(studentId)
+            .page(pageNumber)
+            .size(pageSize)
+            .totalRows(totalRows)
+            .totalPages((int) ((totalRows + pageSize - 1) / pageSize))
+            .cumulativeGA(record != null ? record.getGA() : null)
+            .earnedCredits(record != null ? record.getTotalCredits() : null)
+            .academicStanding(record != null ? record.getAcademicStanding() : null)
+            .rows(rows)
+            .build();
+    }
+
+    /**
+     * Every row of these students' transcripts, ordered by student and term, in one query.
+     */
+    public List<TranscriptEntry> getEntries(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return List.of();
+        }
+        refreshIfDirty(studentIds);
+        return transcriptEntryRepository.findByStudentIdInOrderByStudentIdAscAcademicYearAscSemesterAscCourseCodeAsc(studentIds);
+    }
+
+    /**
+     * Version of the student's transcript; changes whenever any of its rows is rewritten.
+     */
+    public String getVersion(Long studentId) {
+        refreshIfDirty(studentId);
+        Object[] version = transcriptEntryRepository.findVersionByStudentId(studentId).get(0);
+        LocalDateTime refreshedAt = (LocalDateTime) version[1];
+        return studentId + "-" + version[0] + "-" + (refreshedAt != null ? Timestamp.valueOf(refreshedAt).getTime() : 0);
+    }
+
+    @EventListener
+    public void onGradeChanged(GradeService.GradeChangedEvent event) {
+        mark(MARK_STUDENT_SQL, List.of(event.studentId()));
+    }
+
+    @EventListener
+    public void onEnrollmentsChanged(StudentEnrollmentIndexService.EnrollmentsChangedEvent event) {
+        if (event.studentId() != null) {
+            mark(MARK_STUDENT_SQL, List.of(event.studentId()));
+        } else if (event.sectionIds() != null) {
+            List<Long> sectionIds = List.copyOf(event.sectionIds());
+            mark(String.format(MARK_SECTIONS_SQL, placeholders(sectionIds.size())), sectionIds);
+        } else {
+            rebuildAllPending.set(true);
+        }
+    }
+
+    /**
+     * Rewrite the rows of every student marked dirty since the last pass.
+     */
+    @Scheduled(fixedDelayString = "${stasis.transcripts.refresh-delay-ms:2000}")
+    public void refreshDirty() {
+        if (rebuildAllPending.getAndSet(false)) {
+            rebuildAll();
+            return;
+        }
+        List<Long> studentIds = jdbcTemplate.queryForList("SELECT student_id FROM transcript_dirty_student", Long.class);
+        for (int from = 0; from < studentIds.size(); from += CHUNK_SIZE) {
+            rewrite(studentIds.subList(from, Math.min(from + CHUNK_SIZE, studentIds.size())));
+        }
+    }
+
+    /**
+     * Rebuild every student's transcript, also nightly to pick up course and section edits.
+     */
+    @Scheduled(cron = "${stasis.transcripts.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        List<Long> studentIds = studentRepository.findAllIds();
+        for (int from = 0; from < studentIds.size(); from += CHUNK_SIZE) {
+            rewrite(studentIds.subList(from, Math.min(from + CHUNK_SIZE, studentIds.size())));
+        }
+        System.out.println("TranscriptService: rebuilt transcripts of " + studentIds.size() + " students");
+    }
+
+    private void refreshIfDirty(Long studentId) {
+        refreshIfDirty(List.of(studentId));
+    }
+
+    private void refreshIfDirty(Collection<Long> studentIds) {
+        // A mark stays visible until the pass that rewrites its student commits, so a reader racing
+        // that pass rewrites the student once more rather than reading the old rows
+        List<Long> dirty = jdbcTemplate.queryForList(
+            "SELECT student_id FROM transcript_dirty_student WHERE student_id IN (" + placeholders(studentIds.size()) + ")",
+            Long.class, studentIds.toArray());
+        if (!dirty.isEmpty()) {
+            rewrite(dirty);
+        }
+    }
+
+    /**
+     * Persist dirty marks in their own transaction; events arrive after the change committed.
+     */
+    private void mark(String sql, List<Long> ids) {
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transaction.executeWithoutResult(status -> jdbcTemplate.update(sql, ids.toArray()));
+        } catch (RuntimeException e) {
+            // The nightly rebuild still picks the change up
+            System.err.println("TranscriptService: could not mark transcripts dirty - " + e.getMessage());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private long rowCount(Long studentId) {
+        return ((Number) transcriptEntryRepository.findVersionByStudentId(studentId).get(0)[0]).longValue();
+    }
+
+    private void rewrite(List<Long> studentIds) {
+        synchronized (refreshLock) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                String placeholders = placeholders(studentIds.size());
+                // Taken first: it waits for another node rewriting the same students, and marks
+                // added after it are kept for the next pass
+                jdbcTemplate.update("DELETE FROM transcript_dirty_student WHERE student_id IN (" + placeholders + ")", studentIds.toArray());
+                Timestamp refreshedAt = Timestamp.valueOf(LocalDateTime.now());
+                Collection<Object[]> rows = distinctRows(enrolledCourseRepository.findTranscriptRowsByStudentIds(studentIds));
+                jdbcTemplate.update("DELETE FROM transcript_entry WHERE student_id IN (" + placeholders + ")", studentIds.toArray());
+                jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, rows, CHUNK_SIZE, (ps, row) -> {
+                    ps.setLong(1, (Long) row[0]);
+                    ps.setLong(2, (Long) row[1]);
+                    ps.setString(3, (String) row[2]);
+                    ps.setString(4, (String) row[3]);
+                    ps.setString(5, (String) row[4]);
+                    ps.setString(6, (String) row[5]);
+                    ps.setLong(7, (Long) row[6]);
+                    ps.setString(8, (String) row[7]);
+                    ps.setString(9, (String) row[8]);
+                    ps.setObject(10, row[9], Types.INTEGER);
+                    ps.setObject(11, (BigDecimal) row[10], Types.NUMERIC);
+                    ps.setObject(12, row[11], Types.DOUBLE);
+                    ps.setObject(13, row[12], Types.DOUBLE);
+                    ps.setObject(14, row[13], Types.DOUBLE);
+                    ps.setString(15, (String) row[14]);
+                    ps.setObject(16, row[15] != null ? Date.valueOf((LocalDate) row[15]) : null, Types.DATE);
+                    ps.setTimestamp(17, refreshedAt);
+                });
+            });
+        }
+    }
+
+    /**
+     * One row per (enrollment, course); a legacy section-wide enrollment can reach the same course
+     * through several schedules.
+     */
+    private static Collection<Object[]> distinctRows(List<Object[]> rows) {
+        Map<String, Object[]> distinct = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            distinct.putIfAbsent(row[1] + ":" + row[6], row);
+        }
+        return distinct.values();
+    }
+}
@@ -0,0 +1,52 @@
+package com.stasis.stasis.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Links accounts created before users carried student and faculty references.
+ *
+ * An account is linked only when its name matches exactly one student (or faculty member) and no
+ * other account of the same role has that name, so ambiguous names stay on the name fallback
+ * instead of being attached to the wrong person. Re-running is a no-op for linked accounts.
+ */
+@Service
+@Order(7)
+public class UserLinkBackfillService implements CommandLineRunner {
+
+    private static final String LINK_STUDENTS_SQL =
+        "UPDATE users u SET student_id = s.id FROM student s " +
+        "WHERE u.role = 'STUDENT' AND u.student_id IS NULL " +
+        "AND s.first_name = u.first_name AND s.last_name = u.last_name " +
+        "AND NOT EXISTS (SELECT 1 FROM users o WHERE o.student_id = s.id) " +
+        "AND (SELECT COUNT(*) FROM student s2 WHERE s2.first_name = s.first_name AND s2.last_name = s.last_name) = 1 " +
+        "AND (SELECT COUNT(*) FROM users u2 WHERE u2.role = 'STUDENT' " +
+        "AND u2.first_name = u.first_name AND u2.last_name = u.last_name) = 1";
+
+    private static final String LINK_FACULTY_SQL =
+        "UPDATE users u SET faculty_facultyid = f.facultyid FROM faculty f " +
+        "WHERE u.role = 'FACULTY' AND u.faculty_facultyid IS NULL " +
+        "AND f.first_name = u.first_name AND f.last_name = u.last_name " +
+        "AND NOT EXISTS (SELECT 1 FROM users o WHERE o.faculty_facultyid = f.facultyid) " +
+        "AND (SELECT COUNT(*) FROM faculty f2 WHERE f2.first_name = f.first_name AND f2.last_name = f.last_name) = 1 " +
+        "AND (SELECT COUNT(*) FROM users u2 WHERE u2.role = 'FACULTY' " +
+        "AND u2.first_name = u.first_name AND u2.last_name = u.last_name) = 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        int students = jdbcTemplate.update(LINK_STUDENTS_SQL);
+        int faculty = jdbcTemplate.update(LINK_FACULTY_SQL);
+        Long unlinkedStudents = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM users WHERE role = 'STUDENT' AND student_id IS NULL", Long.class);
+        Long unlinkedFaculty = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM users WHERE role = 'FACULTY' AND faculty_facultyid IS NULL", Long.class);
+        System.out.println("UserLinkBackfillService: linked " + students + " student and " + faculty + " faculty accounts; " +
+            unlinkedStudents + " student and " + unlinkedFaculty + " faculty accounts remain on the name fallback");
+    }
+}
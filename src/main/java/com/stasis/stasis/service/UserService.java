@@ -1,26 +1,66 @@
 package com.stasis.stasis.service;
 
+import com.stasis.stasis.model.Faculty;
+import com.stasis.stasis.model.Student;
 import com.stasis.stasis.model.Users;
 import com.stasis.stasis.model.UserRole;
 import com.stasis.stasis.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+
+    // Keeps IN lists well under the driver's bind parameter limit
+    private static final int USERNAME_BATCH_SIZE = 1000;
+
+    // Advisory lock keys, one per username role code, serializing generated username allocation until commit
+    private static final long USERNAME_LOCK_KEY = 0x5354_4153_0000_0000L;
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalContextService principalContextService;
+    private final PasswordHashingService passwordHashingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, PrincipalContextService principalContextService,
+                       PasswordHashingService passwordHashingService, JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalContextService = principalContextService;
+        this.passwordHashingService = passwordHashingService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * What a failed account insert collided with, worded for the caller.
+     */
+    public static String describeConflict(DataIntegrityViolationException e) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (message.contains("uk_users_username")) {
+            return "Generated username is already taken, please try again";
+        }
+        if (message.contains("(email)")) {
+            return "Email already exists in the system";
+        }
+        return "Data integrity violation: " + message;
     }
 
     public Users createUser(Users user) {
@@ -32,11 +72,9 @@ public class UserService {
     }
 
     public Users createUserWithGeneratedCredentials(String firstName, String lastName, String email, UserRole role) {
-        String username = generateUsername(role);
         String password = generatePassword();
         
         Users user = Users.builder()
-                .username(username)
                 .password(passwordEncoder.encode(password)) // Properly encode the password
                 .firstName(firstName)
                 .lastName(lastName)
@@ -44,27 +82,87 @@ public class UserService {
                 .role(role)
                 .build();
         
-        return userRepository.save(user);
+        return saveWithGeneratedUsernames(List.of(user), role).get(0);
     }
 
     public com.stasis.stasis.dto.UserWithPlainPassword createUserWithGeneratedCredentialsForDisplay(String firstName, String lastName, String email, UserRole role) {
-        String username = generateUsername(role);
+        return createLinkedUser(firstName, lastName, email, role, null, null);
+    }
+
+    /**
+     * Create the login account of a student, linked to its student record.
+     */
+    public com.stasis.stasis.dto.UserWithPlainPassword createUserForStudent(Student student) {
+        return createLinkedUser(student.getFirstName(), student.getLastName(), student.getEmail(), UserRole.STUDENT, student, null);
+    }
+
+    /**
+     * Create the login account of a faculty member, linked to its faculty record.
+     */
+    public com.stasis.stasis.dto.UserWithPlainPassword createUserForFaculty(Faculty faculty) {
+        return createLinkedUser(faculty.getFirstName(), faculty.getLastName(), faculty.getEmail(), UserRole.FACULTY, null, faculty);
+    }
+
+    private com.stasis.stasis.dto.UserWithPlainPassword createLinkedUser(String firstName, String lastName, String email, UserRole role,
+                                                                        Student student, Faculty faculty) {
         String plainTextPassword = generatePassword();
         
         Users user = Users.builder()
-                .username(username)
                 .password(passwordEncoder.encode(plainTextPassword)) // Hash the password for storage
                 .firstName(firstName)
                 .lastName(lastName)
                 .email(email)
                 .role(role)
+                .student(student)
+                .faculty(faculty)
                 .build();
         
-        Users savedUser = userRepository.save(user);
+        Users savedUser = saveWithGeneratedUsernames(List.of(user), role).get(0);
         return new com.stasis.stasis.dto.UserWithPlainPassword(savedUser, plainTextPassword);
     }
 
-    private String generateUsername(UserRole role) {
+    /**
+     * Unsaved, linked login accounts for many students, with their passwords hashed in parallel
+     * before any transaction is opened. Usernames are given when they are saved.
+     */
+    public List<com.stasis.stasis.dto.UserWithPlainPassword> buildUsersForStudents(List<Student> students) {
+        List<String> plainTextPasswords = students.stream().map(student -> generatePassword()).toList();
+        List<String> hashedPasswords = passwordHashingService.encodeAll(plainTextPasswords);
+        
+        List<com.stasis.stasis.dto.UserWithPlainPassword> users = new ArrayList<>(students.size());
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            Users user = Users.builder()
+                    .password(hashedPasswords.get(i))
+                    .firstName(student.getFirstName())
+                    .lastName(student.getLastName())
+                    .email(student.getEmail())
+                    .role(UserRole.STUDENT)
+                    .student(student)
+                    .build();
+            users.add(new com.stasis.stasis.dto.UserWithPlainPassword(user, plainTextPasswords.get(i)));
+        }
+        return users;
+    }
+
+    /**
+     * Give new accounts of one role consecutive generated usernames and save them. The usernames
+     * stay locked for the role until the surrounding transaction commits, so run this in the
+     * transaction that creates the accounts' owners.
+     */
+    public List<Users> saveWithGeneratedUsernames(List<Users> users, UserRole role) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            String roleCode = role == UserRole.STUDENT ? "S" : "F";
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> { }, USERNAME_LOCK_KEY + roleCode.charAt(0));
+            int counter = nextUsernameCounter(role);
+            for (Users user : users) {
+                user.setUsername(LocalDate.now().getYear() + "-" + counter++ + "-" + roleCode);
+            }
+            return userRepository.saveAll(users);
+        });
+    }
+
+    private int nextUsernameCounter(UserRole role) {
         int currentYear = LocalDate.now().getYear();
         String roleCode = role == UserRole.STUDENT ? "S" : "F";
         
@@ -86,7 +184,7 @@ public class UserService {
             }
         }
         
-        return currentYear + "-" + (maxCounter + 1) + "-" + roleCode;
+        return maxCounter + 1;
     }
 
     private String generatePassword() {
@@ -110,21 +208,78 @@ public class UserService {
     }
 
     public Users updateUser(Users user) {
-        return userRepository.save(user);
+        Users saved = userRepository.save(user);
+        principalContextService.userChanged(saved.getUserID());
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        principalContextService.userChanged(id);
     }
 
     public void deleteUserByStudentInfo(String firstName, String lastName) {
         Optional<Users> user = userRepository.findByFirstNameAndLastNameAndRole(firstName, lastName, UserRole.STUDENT);
-        user.ifPresent(u -> userRepository.deleteById(u.getUserID()));
+        user.ifPresent(u -> deleteUser(u.getUserID()));
     }
 
     public void deleteUserByFacultyInfo(String firstName, String lastName) {
         Optional<Users> user = userRepository.findByFirstNameAndLastNameAndRole(firstName, lastName, UserRole.FACULTY);
-        user.ifPresent(u -> userRepository.deleteById(u.getUserID()));
+        user.ifPresent(u -> deleteUser(u.getUserID()));
+    }
+
+    public void deleteUserForStudent(Student student) {
+        getUserForStudent(student).ifPresent(u -> deleteUser(u.getUserID()));
+    }
+
+    public void deleteUserForFaculty(Faculty faculty) {
+        getUserForFaculty(faculty).ifPresent(u -> deleteUser(u.getUserID()));
+    }
+
+    /**
+     * The student's account by its link, or by name for accounts not yet linked.
+     */
+    public Optional<Users> getUserForStudent(Student student) {
+        Optional<Users> linked = userRepository.findByStudent_Id(student.getId());
+        return linked.isPresent() ? linked : getUserByStudentInfo(student.getFirstName(), student.getLastName())
+            .filter(user -> user.getStudent() == null);
+    }
+
+    /**
+     * The faculty member's account by its link, or by name for accounts not yet linked.
+     */
+    public Optional<Users> getUserForFaculty(Faculty faculty) {
+        Optional<Users> linked = userRepository.findByFaculty_FacultyID(faculty.getFacultyID());
+        return linked.isPresent() ? linked : getUserByFacultyInfo(faculty.getFirstName(), faculty.getLastName())
+            .filter(user -> user.getFaculty() == null);
+    }
+
+    /**
+     * Usernames of the accounts linked to these students, keyed by student ID.
+     */
+    public Map<Long, String> getUsernamesByStudentIds(Collection<Long> studentIds) {
+        Map<Long, String> usernames = new HashMap<>();
+        List<Long> ids = new ArrayList<>(studentIds);
+        for (int from = 0; from < ids.size(); from += USERNAME_BATCH_SIZE) {
+            for (Object[] row : userRepository.findUsernamesByStudentIds(ids.subList(from, Math.min(from + USERNAME_BATCH_SIZE, ids.size())))) {
+                usernames.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return usernames;
+    }
+
+    /**
+     * Usernames of the accounts linked to these faculty members, keyed by faculty ID.
+     */
+    public Map<Long, String> getUsernamesByFacultyIds(Collection<Long> facultyIds) {
+        Map<Long, String> usernames = new HashMap<>();
+        List<Long> ids = new ArrayList<>(facultyIds);
+        for (int from = 0; from < ids.size(); from += USERNAME_BATCH_SIZE) {
+            for (Object[] row : userRepository.findUsernamesByFacultyIds(ids.subList(from, Math.min(from + USERNAME_BATCH_SIZE, ids.size())))) {
+                usernames.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return usernames;
     }
 
     public Optional<Users> getUserByStudentInfo(String firstName, String lastName) {
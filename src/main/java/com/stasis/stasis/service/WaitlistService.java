@@ -0,0 +1,229 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.dto.BulkEnrollmentItemDTO;
+import com.stasis.stasis.dto.BulkEnrollmentResultDTO;
+import com.stasis.stasis.model.Schedule;
+import com.stasis.stasis.model.Student;
+import com.stasis.stasis.model.WaitlistEntry;
+import com.stasis.stasis.repository.ScheduleRepository;
+import com.stasis.stasis.repository.StudentRepository;
+import com.stasis.stasis.repository.WaitlistEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-schedule waitlists.
+ *
+ * Entries live in the waitlist_entry table; a schedule's queue is its WAITING entries ordered by
+ * year level (highest first) and then request time, read from the table each time so every node
+ * sees the same queue. When seats free up, as many queue heads as there are free seats are
+ * promoted asynchronously in one transaction through the bulk enrollment path, which re-checks
+ * prerequisites and time conflicts against each student's current timetable. The schedule's seat
+ * row is locked for the transaction, so promotions into one schedule run one at a time across
+ * nodes.
+ */
+@Service
+public class WaitlistService {
+
+    // Most entries promoted by one transaction
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private StudentEnrollmentIndexService studentEnrollmentIndexService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Put a student on the waitlist of a schedule.
+     */
+    @Transactional
+    public WaitlistEntry join(Long studentId, Long scheduleId) {
+        Student student = studentRepository.findById(studentId)
+            .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentId));
+        Schedule schedule = scheduleRepository.findById(scheduleId)
+            .orElseThrow(() -> new RuntimeException("Schedule not found with ID: " + scheduleId));
+        if (schedule.getCourse() == null) {
+            throw new RuntimeException("Schedule " + scheduleId + " does not have a course assigned");
+        }
+        if (studentEnrollmentIndexService.isEnrolledInSchedule(studentId, scheduleId) ||
+            studentEnrollmentIndexService.hasSectionWideCourse(studentId, schedule.getCourse().getId())) {
+            throw new RuntimeException("Student is already enrolled in this specific course schedule");
+        }
+        Optional<WaitlistEntry> existing = waitlistEntryRepository
+            .findByStudentIdAndScheduleIdAndStatus(studentId, scheduleId, WaitlistEntry.WAITING);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        WaitlistEntry saved = waitlistEntryRepository.save(WaitlistEntry.builder()
+            .studentId(studentId)
+            .scheduleId(scheduleId)
+            .sectionId(schedule.getCourseSectionId())
+            .yearLevel(student.getYear_level())
+            .requestedAt(LocalDateTime.now())
+            .status(WaitlistEntry.WAITING)
+            .build());
+        System.out.println("Student " + studentId + " joined the waitlist of schedule " + scheduleId);
+
+        afterCommit(() -> {
+            // A seat may have freed up between the failed enrollment and joining the list
+            if (seatReservationService.hasAvailableSeat(scheduleId)) {
+                promote(scheduleId);
+            }
+        });
+        return saved;
+    }
+
+    @Transactional
+    public void cancel(Long waitlistEntryId) {
+        WaitlistEntry entry = waitlistEntryRepository.lockById(waitlistEntryId)
+            .orElseThrow(() -> new RuntimeException("Waitlist entry not found with ID: " + waitlistEntryId));
+        if (!WaitlistEntry.WAITING.equals(entry.getStatus())) {
+            return;
+        }
+        resolve(entry, WaitlistEntry.CANCELLED, "Cancelled");
+    }
+
+    /**
+     * 1-based position of an entry in its schedule's queue, or null when it is not waiting.
+     */
+    public Integer getPosition(WaitlistEntry entry) {
+        if (!WaitlistEntry.WAITING.equals(entry.getStatus())) {
+            return null;
+        }
+        List<WaitlistEntry> ordered = getQueue(entry.getScheduleId());
+        for (int i = 0; i < ordered.size(); i++) {
+            if (ordered.get(i).getWaitlistEntryID().equals(entry.getWaitlistEntryID())) {
+                return i + 1;
+            }
+        }
+        return null;
+    }
+
+    public List<WaitlistEntry> getQueue(Long scheduleId) {
+        return waitlistEntryRepository.findQueue(scheduleId, WaitlistEntry.WAITING);
+    }
+
+    public List<WaitlistEntry> getEntriesForStudent(Long studentId) {
+        return waitlistEntryRepository.findByStudentIdOrderByRequestedAtDesc(studentId);
+    }
+
+    @Async
+    @EventListener
+    public void onSeatsReleased(SeatReservationService.SeatsReleasedEvent event) {
+        new LinkedHashSet<>(event.scheduleIds()).forEach(this::promote);
+    }
+
+    /**
+     * Promote queue heads into the schedule while it has free seats. Returns the number promoted.
+     */
+    public int promote(Long scheduleId) {
+        int promoted = 0;
+        while (true) {
+            try {
+                int[] counts = new TransactionTemplate(transactionManager).execute(status -> promoteBatch(scheduleId));
+                promoted += counts[1];
+                if (counts[0] == 0) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // Nothing was written; the entries wait for the next release
+                System.err.println("WaitlistService: could not promote into schedule " + scheduleId + " - " + e.getMessage());
+                break;
+            }
+        }
+        if (promoted > 0) {
+            System.out.println("WaitlistService: promoted " + promoted + " students into schedule " + scheduleId);
+        }
+        return promoted;
+    }
+
+    /**
+     * Enroll one queue head per free seat. The schedule's seat row stays locked until commit, so
+     * every seat counted here is still free when the rows take it, and no other promotion into the
+     * schedule reads the same heads. Returns the number of entries resolved and the number promoted.
+     */
+    private int[] promoteBatch(Long scheduleId) {
+        if (!scheduleRepository.existsById(scheduleId)) {
+            List<WaitlistEntry> orphaned = waitlistEntryRepository.findQueue(scheduleId, WaitlistEntry.WAITING);
+            orphaned.forEach(entry -> resolve(entry, WaitlistEntry.FAILED, "Schedule no longer exists"));
+            return new int[] {0, 0};
+        }
+        seatReservationService.lockSchedules(List.of(scheduleId));
+        int free = seatReservationService.freeSeats(scheduleId);
+        if (free == 0) {
+            return new int[] {0, 0};
+        }
+        List<WaitlistEntry> waiting = waitlistEntryRepository.lockQueueHeads(scheduleId, WaitlistEntry.WAITING,
+            PageRequest.of(0, free == SeatReservationService.UNLIMITED ? BATCH_SIZE : Math.min(free, BATCH_SIZE)));
+        if (waiting.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        List<BulkEnrollmentItemDTO> items = waiting.stream()
+            .map(entry -> BulkEnrollmentItemDTO.builder().studentId(entry.getStudentId()).scheduleId(scheduleId).build())
+            .toList();
+        List<BulkEnrollmentResultDTO.RowResult> rows = bulkEnrollmentService.enrollRows(items, "Enrolled").getRows();
+
+        int promoted = 0;
+        for (int i = 0; i < waiting.size(); i++) {
+            BulkEnrollmentResultDTO.RowResult row = rows.get(i);
+            if (BulkEnrollmentResultDTO.ENROLLED.equals(row.getResult())) {
+                resolve(waiting.get(i), WaitlistEntry.PROMOTED, "Enrolled from waitlist");
+                promoted++;
+            } else {
+                resolve(waiting.get(i), WaitlistEntry.FAILED, row.getMessage());
+            }
+        }
+        return new int[] {waiting.size(), promoted};
+    }
+
+    private void resolve(WaitlistEntry entry, String status, String message) {
+        entry.setStatus(status);
+        entry.setMessage(message);
+        entry.setResolvedAt(LocalDateTime.now());
+        waitlistEntryRepository.save(entry);
+        System.out.println("Waitlist entry " + entry.getWaitlistEntryID() + " -> " + status + ": " + message);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
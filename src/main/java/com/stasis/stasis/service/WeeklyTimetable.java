@@ -0,0 +1,253 @@
+package com.stasis.stasis.service;
+
+import com.stasis.stasis.model.Schedule;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable weekly set of time intervals, bucketed by day.
+ *
+ * Each day keeps its intervals sorted by start minute together with a running maximum of end
+ * minutes, so whether [start, end) overlaps anything is two binary searches: the last interval
+ * starting before {@code end}, and the first whose running maximum end passes {@code start}.
+ * Intervals only touching at an endpoint do not overlap, as in ScheduleService.
+ */
+final class WeeklyTimetable {
+
+    static final WeeklyTimetable EMPTY = new WeeklyTimetable(new DayIntervals[ScheduleDays.DAYS_PER_WEEK]);
+
+    private final DayIntervals[] days;
+
+    private WeeklyTimetable(DayIntervals[] days) {
+        this.days = days;
+    }
+
+    /**
+     * ID of a schedule in this timetable that overlaps the given one, or null.
+     */
+    Long findOverlap(Schedule schedule) {
+        if (!hasTimes(schedule)) {
+            return null;
+        }
+        int start = ScheduleDays.minuteOfDay(schedule.getStartTime());
+        int end = ScheduleDays.minuteOfDay(schedule.getEndTime());
+        for (int day : ScheduleDays.parse(schedule.getDay())) {
+            if (days[day] != null) {
+                Long overlap = days[day].findOverlap(start, end);
+                if (overlap != null) {
+                    return overlap;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * IDs of every schedule in this timetable that overlaps the given one.
+     */
+    Set<Long> findOverlaps(Schedule schedule) {
+        Set<Long> overlaps = new LinkedHashSet<>();
+        if (!hasTimes(schedule)) {
+            return overlaps;
+        }
+        int start = ScheduleDays.minuteOfDay(schedule.getStartTime());
+        int end = ScheduleDays.minuteOfDay(schedule.getEndTime());
+        for (int day : ScheduleDays.parse(schedule.getDay())) {
+            if (days[day] != null) {
+                days[day].collectOverlaps(start, end, overlaps);
+            }
+        }
+        return overlaps;
+    }
+
+    /**
+     * Set, in a bitset of {@code slotMinutes}-long slots from midnight, every slot of the day that
+     * an interval touches.
+     */
+    void markOccupied(int day, BitSet slots, int slotMinutes) {
+        DayIntervals intervals = days[day];
+        if (intervals == null) {
+            return;
+        }
+        for (int i = 0; i < intervals.starts.length; i++) {
+            slots.set(intervals.starts[i] / slotMinutes, (intervals.ends[i] + slotMinutes - 1) / slotMinutes);
+        }
+    }
+
+    boolean isEmpty() {
+        return Arrays.stream(days).allMatch(intervals -> intervals == null);
+    }
+
+    WeeklyTimetable plus(Schedule schedule) {
+        if (!hasTimes(schedule)) {
+            return this;
+        }
+        Builder builder = new Builder(this);
+        builder.add(schedule.getScheduleID(), schedule.getDay(), schedule.getStartTime(), schedule.getEndTime());
+        return builder.build();
+    }
+
+    WeeklyTimetable minus(Long scheduleId) {
+        Builder builder = new Builder();
+        boolean found = false;
+        for (int day = 0; day < ScheduleDays.DAYS_PER_WEEK; day++) {
+            DayIntervals intervals = days[day];
+            if (intervals == null) {
+                continue;
+            }
+            for (int i = 0; i < intervals.scheduleIds.length; i++) {
+                if (intervals.scheduleIds[i] == scheduleId) {
+                    found = true;
+                } else {
+                    builder.append(day, intervals.scheduleIds[i], intervals.starts[i], intervals.ends[i]);
+                }
+            }
+        }
+        return found ? builder.build() : this;
+    }
+
+    private static boolean hasTimes(Schedule schedule) {
+        return schedule != null && schedule.getDay() != null && schedule.getStartTime() != null &&
+               schedule.getEndTime() != null && schedule.getStartTime().isBefore(schedule.getEndTime());
+    }
+
+    static final class Builder {
+        private final int[][] starts = new int[ScheduleDays.DAYS_PER_WEEK][];
+        private final int[][] ends = new int[ScheduleDays.DAYS_PER_WEEK][];
+        private final long[][] scheduleIds = new long[ScheduleDays.DAYS_PER_WEEK][];
+        private final int[] sizes = new int[ScheduleDays.DAYS_PER_WEEK];
+
+        Builder() {
+        }
+
+        private Builder(WeeklyTimetable base) {
+            for (int day = 0; day < ScheduleDays.DAYS_PER_WEEK; day++) {
+                DayIntervals intervals = base.days[day];
+                if (intervals != null) {
+                    int size = intervals.scheduleIds.length;
+                    starts[day] = Arrays.copyOf(intervals.starts, size + 1);
+                    ends[day] = Arrays.copyOf(intervals.ends, size + 1);
+                    scheduleIds[day] = Arrays.copyOf(intervals.scheduleIds, size + 1);
+                    sizes[day] = size;
+                }
+            }
+        }
+
+        Builder add(Long scheduleId, String day, LocalTime start, LocalTime end) {
+            if (scheduleId == null || start == null || end == null || !start.isBefore(end)) {
+                return this;
+            }
+            for (int d : ScheduleDays.parse(day)) {
+                append(d, scheduleId, ScheduleDays.minuteOfDay(start), ScheduleDays.minuteOfDay(end));
+            }
+            return this;
+        }
+
+        WeeklyTimetable build() {
+            DayIntervals[] days = new DayIntervals[ScheduleDays.DAYS_PER_WEEK];
+            for (int d = 0; d < ScheduleDays.DAYS_PER_WEEK; d++) {
+                if (sizes[d] > 0) {
+                    days[d] = DayIntervals.of(Arrays.copyOf(starts[d], sizes[d]), Arrays.copyOf(ends[d], sizes[d]),
+                                              Arrays.copyOf(scheduleIds[d], sizes[d]));
+                }
+            }
+            return new WeeklyTimetable(days);
+        }
+
+        private void append(int day, long scheduleId, int start, int end) {
+            if (starts[day] == null) {
+                starts[day] = new int[4];
+                ends[day] = new int[4];
+                scheduleIds[day] = new long[4];
+            } else if (sizes[day] == starts[day].length) {
+                int capacity = sizes[day] * 2;
+                starts[day] = Arrays.copyOf(starts[day], capacity);
+                ends[day] = Arrays.copyOf(ends[day], capacity);
+                scheduleIds[day] = Arrays.copyOf(scheduleIds[day], capacity);
+            }
+            int i = sizes[day]++;
+            starts[day][i] = start;
+            ends[day][i] = end;
+            scheduleIds[day][i] = scheduleId;
+        }
+    }
+
+    /**
+     * One day's intervals sorted by start, with maxEnds[i] = max(ends[0..i]).
+     */
+    private static final class DayIntervals {
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] maxEnds;
+        private final long[] scheduleIds;
+
+        private DayIntervals(int[] starts, int[] ends, int[] maxEnds, long[] scheduleIds) {
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = maxEnds;
+            this.scheduleIds = scheduleIds;
+        }
+
+        private Long findOverlap(int start, int end) {
+            // Intervals 0..last start before the new one ends
+            int last = firstIndex(starts, end) - 1;
+            if (last < 0) {
+                return null;
+            }
+            // The first interval whose running max end passes the new start is the one holding that max
+            int first = firstIndex(maxEnds, start + 1);
+            return first <= last ? scheduleIds[first] : null;
+        }
+
+        private void collectOverlaps(int start, int end, Set<Long> overlaps) {
+            int last = firstIndex(starts, end) - 1;
+            // Past the running max, only intervals that themselves end after the start overlap
+            for (int i = firstIndex(maxEnds, start + 1); i <= last; i++) {
+                if (ends[i] > start) {
+                    overlaps.add(scheduleIds[i]);
+                }
+            }
+        }
+
+        /**
+         * First index whose value is >= key in an ascending array, or the array length.
+         */
+        private static int firstIndex(int[] sorted, int key) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static DayIntervals of(int[] starts, int[] ends, long[] scheduleIds) {
+            Integer[] order = new Integer[starts.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(starts[a], starts[b]));
+
+            int[] sortedStarts = new int[order.length];
+            int[] sortedEnds = new int[order.length];
+            int[] maxEnds = new int[order.length];
+            long[] sortedIds = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedStarts[i] = starts[order[i]];
+                sortedEnds[i] = ends[order[i]];
+                sortedIds[i] = scheduleIds[order[i]];
+                maxEnds[i] = i == 0 ? sortedEnds[i] : Math.max(maxEnds[i - 1], sortedEnds[i]);
+            }
+            return new DayIntervals(sortedStarts, sortedEnds, maxEnds, sortedIds);
+        }
+    }
+}